@@ -0,0 +1,16 @@
+#!/bin/sh
+# Refreshes this directory from the config git repository, for config-server's native (offline)
+# profile. Run it whenever the remote config changed and the network is available; config-server
+# notices the new files on its own and pushes a refresh to the affected services.
+set -e
+REPO_URL=${1:-https://github.com/zeinebroihii/config-server-app}
+BRANCH=${2:-main}
+DIR=$(cd "$(dirname "$0")" && pwd)
+TMP=$(mktemp -d)
+trap 'rm -rf "$TMP"' EXIT
+
+git clone --quiet --depth 1 --branch "$BRANCH" "$REPO_URL" "$TMP/repo"
+for file in "$TMP"/repo/*.yml "$TMP"/repo/*.yaml "$TMP"/repo/*.properties "$TMP"/repo/*.json; do
+    [ -f "$file" ] && cp "$file" "$DIR/"
+done
+echo "config-repo synced from $REPO_URL ($BRANCH) at $(git -C "$TMP/repo" rev-parse --short HEAD)"
@@ -0,0 +1,8 @@
+package com.unihelp.config_server;
+
+import java.util.Set;
+
+// Published by ConfigRepoWatcher when the content of the local config repository changed;
+// changedFiles are file names relative to the repository directory
+public record ConfigRepoChangedEvent(String version, Set<String> changedFiles) {
+}
@@ -0,0 +1,131 @@
+package com.unihelp.config_server;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Versions the local config repository served by the native profile: the version is a digest of
+// every config file, recomputed when the directory changes (WatchService) and on a periodic rescan
+// for file systems that do not deliver watch events (e.g. some bind mounts)
+@Component
+@Profile("native")
+public class ConfigRepoWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigRepoWatcher.class);
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path directory;
+    private final long rescanMs;
+
+    private volatile Map<String, String> fileDigests = Map.of();
+    private volatile String version;
+    private WatchService watchService;
+    private Thread thread;
+
+    public ConfigRepoWatcher(ApplicationEventPublisher eventPublisher,
+                             @Value("${config.repo.dir}") String directory,
+                             @Value("${config.repo.rescan-ms:30000}") long rescanMs) {
+        this.eventPublisher = eventPublisher;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.rescanMs = rescanMs;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        scan();
+        log.info("Serving config from {} at version {}", directory, version);
+        watchService = FileSystems.getDefault().newWatchService();
+        if (Files.isDirectory(directory)) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+        thread = new Thread(this::watch, "config-repo-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        watchService.close();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.poll(rescanMs, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // Editors and git write in several steps; let them finish before rescanning
+                    Thread.sleep(300);
+                    key.pollEvents();
+                    key.reset();
+                }
+                scan();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void scan() {
+        Map<String, String> digests = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.{yml,yaml,properties,json}")) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    digests.put(file.getFileName().toString(), DigestUtils.md5DigestAsHex(Files.readAllBytes(file)));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Config repository scan failed: {}", e.getMessage());
+            return;
+        }
+        if (version != null && digests.equals(fileDigests)) {
+            return;
+        }
+
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, String> entry : digests.entrySet()) {
+            if (!entry.getValue().equals(fileDigests.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String file : fileDigests.keySet()) {
+            if (!digests.containsKey(file)) {
+                changed.add(file);
+            }
+        }
+
+        boolean initial = version == null;
+        fileDigests = digests;
+        version = DigestUtils.md5DigestAsHex(digests.toString().getBytes()).substring(0, 12);
+        if (!initial) {
+            log.info("Config repository changed to version {}: {}", version, changed);
+            eventPublisher.publishEvent(new ConfigRepoChangedEvent(version, changed));
+        }
+    }
+}
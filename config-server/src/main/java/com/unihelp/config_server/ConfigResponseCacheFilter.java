@@ -0,0 +1,89 @@
+package com.unihelp.config_server;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps rendered config responses in memory until the config repository changes, and answers
+// If-None-Match with 304 so that clients re-fetching unchanged config get no body at all
+@Component
+@Profile("native")
+public class ConfigResponseCacheFilter extends OncePerRequestFilter {
+
+    private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
+    // Bumped on every change, so a response rendered from the old files is not cached afterwards
+    private final AtomicLong generation = new AtomicLong();
+
+    @Value("${config.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @EventListener
+    public void onRepoChanged(ConfigRepoChangedEvent event) {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !HttpMethod.GET.matches(request.getMethod())
+                || path.startsWith("/actuator")
+                || path.startsWith("/eureka");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getRequestURI() + "?" + request.getQueryString() + "|" + request.getHeader(HttpHeaders.ACCEPT);
+        CachedResponse cached = cache.get(key);
+        if (cached == null) {
+            long renderedAt = generation.get();
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+                wrapper.copyBodyToResponse();
+                return;
+            }
+            byte[] body = wrapper.getContentAsByteArray();
+            cached = new CachedResponse(body, wrapper.getContentType(),
+                    "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+            if (generation.get() == renderedAt) {
+                if (cache.size() >= maxEntries) {
+                    cache.clear();
+                }
+                cache.put(key, cached);
+            }
+            wrapper.resetBuffer();
+        }
+
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        if (cached.etag().equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        if (cached.contentType() != null) {
+            response.setContentType(cached.contentType());
+        }
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+    }
+
+    private record CachedResponse(byte[] body, String contentType, String etag) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.unihelp.config_server;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Pushes a refresh to the instances whose config changed instead of having every client poll:
+// application*.{yml,properties} concerns every service, <name>[-<profile>].* only service <name>.
+// Instances started from the fast-startup images have no refresh endpoint and answer 404
+@Component
+@Profile("native")
+public class RefreshNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshNotifier.class);
+
+    // The services only accept actuator calls other than health and info with the internal token
+    private static final String INTERNAL_TOKEN_HEADER = "X-Internal-Token";
+
+    private final DiscoveryClient discoveryClient;
+    private final RestClient restClient;
+
+    @Value("${spring.application.name}")
+    private String self;
+
+    @Value("${internal.token:}")
+    private String internalToken;
+
+    @PostConstruct
+    void checkToken() {
+        if (internalToken.isBlank()) {
+            throw new IllegalStateException("internal.token must be set");
+        }
+    }
+
+    public RefreshNotifier(DiscoveryClient discoveryClient) {
+        this.discoveryClient = discoveryClient;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(1));
+        requestFactory.setReadTimeout(Duration.ofSeconds(10));
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    @EventListener
+    public void onRepoChanged(ConfigRepoChangedEvent event) {
+        List<String> services = discoveryClient.getServices();
+        Set<String> targets = new HashSet<>();
+        for (String file : event.changedFiles()) {
+            String name = file.substring(0, file.lastIndexOf('.')).toLowerCase();
+            for (String service : services) {
+                String id = service.toLowerCase();
+                if (isFor(name, "application") || isFor(name, id)) {
+                    targets.add(id);
+                }
+            }
+        }
+        targets.remove(self.toLowerCase());
+
+        for (String service : targets) {
+            for (ServiceInstance instance : discoveryClient.getInstances(service)) {
+                try {
+                    restClient.post()
+                            .uri(instance.getUri() + "/actuator/refresh")
+                            .header(INTERNAL_TOKEN_HEADER, internalToken)
+                            .retrieve()
+                            .toBodilessEntity();
+                    log.info("Refreshed {} at {} (config {})", service, instance.getUri(), event.version());
+                } catch (RuntimeException e) {
+                    // The instance picks the change up on its next restart or manual refresh
+                    log.warn("Config refresh of {} failed: {}", instance.getUri(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static boolean isFor(String name, String application) {
+        return name.equals(application) || name.startsWith(application + "-");
+    }
+}
@@ -0,0 +1,19 @@
+package com.unihelp.cours.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// A committed change to a cached entity, as sent to the other cours replicas
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidation {
+    private String entity;
+    private Long id;
+    // Course of a Module, module of a Lesson: whose child collection to evict. Null when unknown,
+    // in which case the whole collection region goes
+    private Long ownerId;
+}
@@ -0,0 +1,8 @@
+package com.unihelp.cours.cache;
+
+import java.util.List;
+
+// Carries invalidations from the replica that committed a change to its peers
+public interface CacheInvalidationTransport {
+    void publish(List<CacheInvalidation> invalidations);
+}
@@ -0,0 +1,194 @@
+package com.unihelp.cours.cache;
+
+import com.unihelp.cours.entities.Course;
+import com.unihelp.cours.entities.Lesson;
+import com.unihelp.cours.entities.Module;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Hibernate keeps this replica's second-level cache consistent by itself; this component forwards
+// every committed Course/Module/Lesson change to the other replicas and applies theirs locally
+@Slf4j
+@Component
+public class CourseCacheInvalidator implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final String COURSE_MODULES = Course.class.getName() + ".modules";
+    private static final String MODULE_LESSONS = Module.class.getName() + ".lessons";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheInvalidationTransport transport;
+    private final ConcurrentLinkedQueue<CacheInvalidation> outgoing = new ConcurrentLinkedQueue<>();
+
+    public CourseCacheInvalidator(EntityManagerFactory entityManagerFactory, CacheInvalidationTransport transport) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.transport = transport;
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    // For changes made outside the entity lifecycle, e.g. native updates
+    public void evictCourse(Long courseId) {
+        cache().evictEntityData(Course.class, courseId);
+        outgoing.add(new CacheInvalidation(Course.class.getSimpleName(), courseId, null));
+    }
+
+    // Bulk deletes skip the entity lifecycle too; Hibernate already dropped the local regions.
+    // Maps the id of every deleted row to its owner's (see CacheInvalidation.ownerId)
+    public void evictDeleted(Class<?> entity, Map<Long, Long> ownerIds) {
+        ownerIds.forEach((id, ownerId) -> outgoing.add(new CacheInvalidation(entity.getSimpleName(), id, ownerId)));
+    }
+
+    // Invalidations received from a peer: only the ids in the batch, their owners' collections, and
+    // the query results over the tables they live in
+    public void apply(List<CacheInvalidation> invalidations) {
+        SessionFactoryImplementor sessionFactory = sessionFactory();
+        Cache cache = sessionFactory.getCache();
+        Set<Class<?>> changed = new HashSet<>();
+        for (CacheInvalidation invalidation : invalidations) {
+            Long id = invalidation.getId();
+            switch (invalidation.getEntity()) {
+                case "Course" -> {
+                    cache.evictEntityData(Course.class, id);
+                    cache.evictCollectionData(COURSE_MODULES, id);
+                    changed.add(Course.class);
+                }
+                case "Module" -> {
+                    cache.evictEntityData(Module.class, id);
+                    cache.evictCollectionData(MODULE_LESSONS, id);
+                    evictOwner(cache, COURSE_MODULES, invalidation.getOwnerId());
+                    changed.add(Module.class);
+                }
+                case "Lesson" -> {
+                    cache.evictEntityData(Lesson.class, id);
+                    evictOwner(cache, MODULE_LESSONS, invalidation.getOwnerId());
+                    changed.add(Lesson.class);
+                }
+                default -> log.warn("Ignoring cache invalidation for {}", invalidation.getEntity());
+            }
+        }
+        if (!changed.isEmpty()) {
+            invalidateQueries(sessionFactory, changed);
+        }
+    }
+
+    // Batches everything committed since the last run into one message per peer
+    @Scheduled(fixedDelayString = "${cours.cache.invalidation.send-ms:200}")
+    public void send() {
+        if (outgoing.isEmpty()) {
+            return;
+        }
+        Map<String, CacheInvalidation> batch = new LinkedHashMap<>();
+        CacheInvalidation invalidation;
+        while ((invalidation = outgoing.poll()) != null) {
+            batch.putIfAbsent(invalidation.getEntity() + "#" + invalidation.getId(), invalidation);
+        }
+        transport.publish(new ArrayList<>(batch.values()));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.canWriteToCache();
+    }
+
+    private void record(Object entity, Object id) {
+        if (entity instanceof Course) {
+            outgoing.add(new CacheInvalidation("Course", (Long) id, null));
+        } else if (entity instanceof Module module) {
+            Long courseId = module.getCourse() != null ? module.getCourse().getId() : null;
+            outgoing.add(new CacheInvalidation("Module", (Long) id, courseId));
+        } else if (entity instanceof Lesson lesson) {
+            Long moduleId = lesson.getModule() != null ? lesson.getModule().getId() : null;
+            outgoing.add(new CacheInvalidation("Lesson", (Long) id, moduleId));
+        }
+    }
+
+    private static void evictOwner(Cache cache, String role, Long ownerId) {
+        if (ownerId != null) {
+            cache.evictCollectionData(role, ownerId);
+        } else {
+            cache.evictCollectionData(role);
+        }
+    }
+
+    // Marks the changed tables as updated now, which makes every cached query over them stale,
+    // the same way a local write would
+    private static void invalidateQueries(SessionFactoryImplementor sessionFactory, Set<Class<?>> entities) {
+        String[] spaces = entities.stream()
+                .flatMap(entity -> Arrays.stream(sessionFactory.getMappingMetamodel().getEntityDescriptor(entity).getQuerySpaces()))
+                .map(Object::toString)
+                .distinct()
+                .toArray(String[]::new);
+        try (Session session = sessionFactory.openSession()) {
+            sessionFactory.getCache().getTimestampsCache().invalidate(spaces, (SharedSessionContractImplementor) session);
+        }
+    }
+
+    private Cache cache() {
+        return sessionFactory().getCache();
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+}
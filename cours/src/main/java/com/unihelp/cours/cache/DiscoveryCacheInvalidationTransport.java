@@ -0,0 +1,73 @@
+package com.unihelp.cours.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+
+// Sends invalidations to every other cours instance registered in Eureka
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cours.cache.invalidation.transport", havingValue = "discovery", matchIfMissing = true)
+public class DiscoveryCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    static final String TOKEN_HEADER = "X-Internal-Token";
+
+    private final DiscoveryClient discoveryClient;
+    private final Registration registration;
+    private final RestClient restClient;
+
+    @Value("${spring.application.name}")
+    private String serviceId;
+
+    @Value("${internal.token:}")
+    private String token;
+
+    public DiscoveryCacheInvalidationTransport(DiscoveryClient discoveryClient, Registration registration) {
+        this.discoveryClient = discoveryClient;
+        this.registration = registration;
+        // Short timeouts: a slow peer must not hold back invalidations for the others
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(1));
+        requestFactory.setReadTimeout(Duration.ofSeconds(2));
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    @PostConstruct
+    void checkToken() {
+        if (token.isBlank()) {
+            throw new IllegalStateException("internal.token must be set");
+        }
+    }
+
+    @Override
+    public void publish(List<CacheInvalidation> invalidations) {
+        for (ServiceInstance peer : discoveryClient.getInstances(serviceId)) {
+            if (peer.getInstanceId() != null && peer.getInstanceId().equals(registration.getInstanceId())) {
+                continue;
+            }
+            try {
+                restClient.post()
+                        .uri(peer.getUri() + "/internal/cache/invalidate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(TOKEN_HEADER, token)
+                        .body(invalidations)
+                        .retrieve()
+                        .toBodilessEntity();
+            } catch (RuntimeException e) {
+                // The peer's own cache expiry bounds the staleness if it missed this message
+                log.warn("Cache invalidation to {} failed: {}", peer.getUri(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.unihelp.cours.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// /actuator/hibernatecache: hit/miss/put counts per second-level cache region and for the query cache
+@Component
+@Endpoint(id = "hibernatecache")
+public class HibernateCacheEndpoint {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public HibernateCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @ReadOperation
+    public Map<String, Object> cacheStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getStatistics();
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            regions.put(region, counts(regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount()));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("secondLevel", counts(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()));
+        result.put("queries", counts(statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+        result.put("queryExecutions", statistics.getQueryExecutionCount());
+        result.put("entityLoads", statistics.getEntityLoadCount());
+        result.put("regions", regions);
+        return result;
+    }
+
+    private static Map<String, Object> counts(long hits, long misses, long puts) {
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("hits", hits);
+        counts.put("misses", misses);
+        counts.put("puts", puts);
+        long lookups = hits + misses;
+        counts.put("hitRatio", lookups > 0 ? (double) hits / lookups : 0.0);
+        return counts;
+    }
+}
@@ -0,0 +1,24 @@
+package com.unihelp.cours.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Single-process stand-in: invalidations loop back to this instance, as if received from a peer
+@Component
+@ConditionalOnProperty(name = "cours.cache.invalidation.transport", havingValue = "local")
+public class LocalCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private final ObjectProvider<CourseCacheInvalidator> invalidator;
+
+    public LocalCacheInvalidationTransport(ObjectProvider<CourseCacheInvalidator> invalidator) {
+        this.invalidator = invalidator;
+    }
+
+    @Override
+    public void publish(List<CacheInvalidation> invalidations) {
+        invalidator.getObject().apply(invalidations);
+    }
+}
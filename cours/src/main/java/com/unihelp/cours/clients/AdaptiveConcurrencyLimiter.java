@@ -0,0 +1,69 @@
+package com.unihelp.cours.clients;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Gradient concurrency limit: while latency stays near its long-term average the limit grows by
+// about sqrt(limit) per sample, when it rises the limit shrinks in proportion. Callers that
+// find the limit reached are rejected at once instead of queueing behind a slow downstream.
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double TOLERANCE = 1.5;
+    private static final double LONG_RTT_WEIGHT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > (int) limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    // Called once per acquired permit; dropped = the call failed or timed out
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        update(rttNanos, current, dropped);
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtCompletion, boolean dropped) {
+        double rtt = Math.max(1, rttNanos);
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt = longRtt * (1 - LONG_RTT_WEIGHT) + rtt * LONG_RTT_WEIGHT;
+            // Lets the baseline come back down after a long slow period
+            if (longRtt / rtt > 2) {
+                longRtt *= 0.95;
+            }
+        }
+        // Too little load to tell anything about the downstream's capacity
+        if (!dropped && inFlightAtCompletion < limit / 2) {
+            return;
+        }
+        double gradient = dropped ? 0.5 : Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
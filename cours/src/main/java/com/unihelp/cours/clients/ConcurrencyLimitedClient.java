@@ -0,0 +1,50 @@
+package com.unihelp.cours.clients;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+
+// USER client between hedging and the load balancer: the adaptive concurrency limit rejects calls,
+// hedges included, before the load balancer picks an instance, so a rejection never counts against
+// (or drains) a healthy instance
+public class ConcurrencyLimitedClient implements Client {
+
+    private final Client delegate;
+    private final String serviceId;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Counter rejected;
+
+    public ConcurrencyLimitedClient(Client delegate, String serviceId, AdaptiveConcurrencyLimiter limiter,
+                                    MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.serviceId = serviceId;
+        this.limiter = limiter;
+        Gauge.builder("cours.feign.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("client", serviceId).register(meterRegistry);
+        Gauge.builder("cours.feign.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("client", serviceId).register(meterRegistry);
+        this.rejected = Counter.builder("cours.feign.concurrency.rejected").tag("client", serviceId).register(meterRegistry);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (!limiter.tryAcquire()) {
+            rejected.increment();
+            throw new IOException(serviceId + " concurrency limit of " + limiter.getLimit() + " reached");
+        }
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            Response response = delegate.execute(request, options);
+            dropped = response.status() >= 500;
+            return response;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.unihelp.cours.clients;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Ring buffer of the latest call latencies; the p95 is recomputed every few samples
+public class LatencyTracker {
+
+    private static final int SIZE = 256;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final AtomicLongArray samples = new AtomicLongArray(SIZE);
+    private final AtomicLong count = new AtomicLong();
+    private volatile long p95Nanos = -1;
+
+    public void record(long nanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % SIZE), nanos);
+        if ((n + 1) % RECOMPUTE_EVERY == 0) {
+            recompute(Math.min(n + 1, SIZE));
+        }
+    }
+
+    // -1 until enough samples were seen
+    public long p95Nanos() {
+        return p95Nanos;
+    }
+
+    private void recompute(long available) {
+        if (available < RECOMPUTE_EVERY * 2) {
+            return;
+        }
+        long[] copy = new long[(int) available];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        p95Nanos = copy[(int) Math.min(copy.length - 1, Math.ceil(copy.length * 0.95) - 1)];
+    }
+}
@@ -0,0 +1,166 @@
+package com.unihelp.cours.clients;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Outermost USER client: idempotent GETs still running after the observed p95 are sent a second time
+// and the first response wins; streamed (NDJSON) responses are never hedged. Both attempts go through
+// the concurrency limit and the load balancer below, so a hedge takes a permit and counts as in flight
+// like any other call, and the primary's instance, one request busier, is the less likely pick.
+// Attempts run on a bounded pool; when it is exhausted calls run on the caller's thread unhedged
+public class ResilientUserClient implements Client {
+
+    private final Client delegate;
+    private final String serviceId;
+    private final LatencyTracker latencies = new LatencyTracker();
+    private final boolean hedgingEnabled;
+    private final long minHedgeDelayNanos;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter hedges;
+    private final Counter hedgeWins;
+
+    public ResilientUserClient(Client delegate, String serviceId, boolean hedgingEnabled, long minHedgeDelayMs,
+                               int threads, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.serviceId = serviceId;
+        this.hedgingEnabled = hedgingEnabled;
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMs);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "user-client-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.hedges = Counter.builder("cours.feign.hedges").tag("client", serviceId).tag("outcome", "sent").register(meterRegistry);
+        this.hedgeWins = Counter.builder("cours.feign.hedges").tag("client", serviceId).tag("outcome", "won").register(meterRegistry);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        long start = System.nanoTime();
+        Response response = hedgeable(request) ? executeHedged(request, options) : delegate.execute(request, options);
+        if (response.status() < 500) {
+            latencies.record(System.nanoTime() - start);
+        }
+        return response;
+    }
+
+    private Response executeHedged(Request request, Request.Options options) throws IOException {
+        long p95 = latencies.p95Nanos();
+        if (p95 < 0) {
+            return delegate.execute(request, options);
+        }
+        CompletableFuture<Response> primary;
+        try {
+            primary = submit(request, options);
+        } catch (RejectedExecutionException e) {
+            return delegate.execute(request, options);
+        }
+        try {
+            return primary.get(Math.max(p95, minHedgeDelayNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Slower than usual, hedge below
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closeWhenDone(primary);
+            throw new InterruptedIOException("Interrupted while waiting for " + serviceId);
+        }
+
+        CompletableFuture<Response> hedge;
+        try {
+            hedge = submit(request, options);
+        } catch (RejectedExecutionException e) {
+            return await(primary);
+        }
+        hedges.increment();
+        CompletableFuture<Response> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((response, error) -> settle(winner, failures, response, error, false));
+        hedge.whenComplete((response, error) -> settle(winner, failures, response, error, true));
+        return await(winner);
+    }
+
+    // First successful response wins; the loser's response is closed; fails only if both fail
+    private void settle(CompletableFuture<Response> winner, AtomicInteger failures, Response response,
+                        Throwable error, boolean isHedge) {
+        if (error == null) {
+            if (winner.complete(response)) {
+                if (isHedge) {
+                    hedgeWins.increment();
+                }
+            } else {
+                response.close();
+            }
+        } else if (failures.incrementAndGet() == 2) {
+            winner.completeExceptionally(error);
+        }
+    }
+
+    private CompletableFuture<Response> submit(Request request, Request.Options options) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(delegate.execute(request, options));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private Response await(CompletableFuture<Response> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closeWhenDone(future);
+            throw new InterruptedIOException("Interrupted while waiting for " + serviceId);
+        }
+    }
+
+    private static void closeWhenDone(CompletableFuture<Response> future) {
+        future.thenAccept(Response::close);
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                ? e.getCause().getCause()
+                : e.getCause();
+        if (cause instanceof IOException ioException) {
+            return ioException;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return new IOException(cause);
+    }
+
+    private boolean hedgeable(Request request) {
+        if (!hedgingEnabled || request.httpMethod() != Request.HttpMethod.GET) {
+            return false;
+        }
+        Collection<String> accept = request.headers().get("Accept");
+        return accept == null || accept.stream().noneMatch(value -> value.contains("ndjson"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.unihelp.cours.clients;
+
+import com.unihelp.cours.model.User;
+import com.unihelp.cours.model.UserPage;
+import feign.Response;
+import feign.codec.Decoder;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+// Records every user decoded from a successful USER response as the last known good profile
+public class SnapshotRecordingDecoder implements Decoder {
+
+    private final Decoder delegate;
+    private final UserSnapshotStore userSnapshotStore;
+
+    public SnapshotRecordingDecoder(Decoder delegate, UserSnapshotStore userSnapshotStore) {
+        this.delegate = delegate;
+        this.userSnapshotStore = userSnapshotStore;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException {
+        Object result = delegate.decode(response, type);
+        if (result instanceof User user) {
+            userSnapshotStore.remember(user);
+        } else if (result instanceof UserPage page) {
+            userSnapshotStore.rememberAll(page.getContent());
+        } else if (result instanceof Collection<?> items) {
+            for (Object item : items) {
+                if (item instanceof User user) {
+                    userSnapshotStore.remember(user);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.unihelp.cours.clients;
+
+import feign.Client;
+import feign.RequestInterceptor;
+import feign.codec.Decoder;
+import feign.optionals.OptionalDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.LoadBalancerFeignRequestTransformer;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.context.annotation.Bean;
+
+// Feign configuration of the USER client only; deliberately not a @Configuration so that it
+// is not picked up by component scanning and applied to every client
+public class UserClientConfiguration {
+
+    static final String INTERNAL_TOKEN_HEADER = "X-Internal-Token";
+
+    @Bean
+    Decoder userDecoder(ObjectFactory<HttpMessageConverters> messageConverters,
+                        ObjectProvider<HttpMessageConverterCustomizer> customizers,
+                        UserSnapshotStore userSnapshotStore) {
+        Decoder springDecoder = new OptionalDecoder(new ResponseEntityDecoder(new SpringDecoder(messageConverters, customizers)));
+        return new SnapshotRecordingDecoder(springDecoder, userSnapshotStore);
+    }
+
+    // USER only answers /api/internal/** to callers presenting the shared internal token
+    @Bean
+    RequestInterceptor internalTokenInterceptor(@Value("${internal.token:}") String token) {
+        if (token.isBlank()) {
+            throw new IllegalStateException("internal.token must be set");
+        }
+        return template -> template.header(INTERNAL_TOKEN_HEADER, token);
+    }
+
+    // Hedging on top, so that each attempt, hedges included, is admitted by the concurrency limit and
+    // then load balanced on its own; rejected calls never reach the load balancer
+    @Bean
+    Client userFeignClient(LoadBalancerClient loadBalancerClient,
+                           LoadBalancerClientFactory loadBalancerClientFactory,
+                           ObjectProvider<LoadBalancerFeignRequestTransformer> transformers,
+                           MeterRegistry meterRegistry,
+                           @Value("${cours.user-client.limit.initial:20}") int initialLimit,
+                           @Value("${cours.user-client.limit.min:4}") int minLimit,
+                           @Value("${cours.user-client.limit.max:200}") int maxLimit,
+                           @Value("${cours.user-client.hedging.enabled:true}") boolean hedgingEnabled,
+                           @Value("${cours.user-client.hedging.min-delay-ms:20}") long minHedgeDelayMs,
+                           @Value("${cours.user-client.hedging.threads:64}") int hedgingThreads) {
+        Client loadBalanced = new FeignBlockingLoadBalancerClient(new Client.Default(null, null), loadBalancerClient,
+                loadBalancerClientFactory, transformers.orderedStream().toList());
+        Client limited = new ConcurrencyLimitedClient(loadBalanced, "USER",
+                new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit), meterRegistry);
+        return new ResilientUserClient(limited, "USER", hedgingEnabled, minHedgeDelayMs, hedgingThreads, meterRegistry);
+    }
+}
@@ -1,34 +1,36 @@
 package com.unihelp.cours.clients;
 
 import com.unihelp.cours.model.User;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.springboot3.circuitbreaker.monitoring.endpoint.CircuitBreakerEndpoint;
+import com.unihelp.cours.model.UserPage;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
 import java.util.List;
-@FeignClient(name = "USER")
+
+// Every call runs through the "userService" circuit breaker (see FeignCircuitBreakerConfig);
+// when it is open, UserRestClientFallbackFactory serves the last known good profiles
+@FeignClient(name = "USER", configuration = UserClientConfiguration.class, fallbackFactory = UserRestClientFallbackFactory.class)
 public interface UserRestClient {
 
-    @GetMapping("/api/auth/admin/users/{id}")
-    @CircuitBreaker(name = "userService", fallbackMethod = "getDefaultUser")
+    // Internal endpoints answer with a slim summary, negotiated as CBOR instead of JSON
+    @GetMapping(value = "/api/internal/users/{id}", produces = MediaType.APPLICATION_CBOR_VALUE)
     User findUserById(@PathVariable Long id);
 
     @GetMapping("/api/auth/admin/users")
-    @CircuitBreaker(name = "userService", fallbackMethod = "getDefaultUsers")
     List<User> allUsers();
 
-    default User getDefaultUser(Long id, Exception exception) {
-        User user = new User();
-        user.setId(id);
-        user.setFirstName("Default");
-        user.setLastName("User");
-        user.setEmail("<EMAIL>");
-        return user;
-    }
-
-    default List<User> getDefaultUsers(Exception exception) {
-        return List.of();
-    }
-}
\ No newline at end of file
+    @GetMapping("/api/auth/admin/users/page")
+    UserPage usersPage(@RequestParam("page") int page, @RequestParam("size") int size);
+
+    // Raw NDJSON response, read incrementally by UserStreamReader
+    @GetMapping(value = "/api/auth/admin/users/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Response streamUsers();
+
+    @GetMapping(value = "/api/internal/users", produces = MediaType.APPLICATION_CBOR_VALUE)
+    List<User> findUsersByIds(@RequestParam("ids") Collection<Long> ids);
+}
@@ -0,0 +1,72 @@
+package com.unihelp.cours.clients;
+
+import com.unihelp.cours.model.User;
+import com.unihelp.cours.model.UserPage;
+import feign.FeignException;
+import feign.Response;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+// Used while the userService circuit breaker is open or a call fails: profiles come from the
+// last known good snapshots, marked stale; listings that cannot be served from them fail.
+// Only an unreachable or failing USER (transport error, 5xx, open breaker) is covered this way: a 4xx
+// such as an unknown user is USER's answer and is rethrown as is
+@Component
+@RequiredArgsConstructor
+public class UserRestClientFallbackFactory implements FallbackFactory<UserRestClient> {
+
+    private final UserSnapshotStore userSnapshotStore;
+
+    @Override
+    public UserRestClient create(Throwable cause) {
+        return new UserRestClient() {
+            @Override
+            public User findUserById(Long id) {
+                requireOutage();
+                return userSnapshotStore.find(id).orElseThrow(this::unavailable);
+            }
+
+            @Override
+            public List<User> allUsers() {
+                requireOutage();
+                return userSnapshotStore.all();
+            }
+
+            @Override
+            public UserPage usersPage(int page, int size) {
+                throw unavailable();
+            }
+
+            @Override
+            public Response streamUsers() {
+                throw unavailable();
+            }
+
+            @Override
+            public List<User> findUsersByIds(Collection<Long> ids) {
+                requireOutage();
+                return userSnapshotStore.findAll(ids);
+            }
+
+            // The breaker may hand over the FeignException wrapped, e.g. by the time limiter
+            private void requireOutage() {
+                for (Throwable error = cause; error != null; error = error.getCause()) {
+                    if (error instanceof FeignException feignException
+                            && feignException.status() >= 400 && feignException.status() < 500) {
+                        throw feignException;
+                    }
+                }
+            }
+
+            private RuntimeException unavailable() {
+                return cause instanceof RuntimeException runtimeException
+                        ? runtimeException
+                        : new IllegalStateException("User service unavailable", cause);
+            }
+        };
+    }
+}
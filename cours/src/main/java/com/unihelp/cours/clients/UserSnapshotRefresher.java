@@ -0,0 +1,87 @@
+package com.unihelp.cours.clients;
+
+import com.unihelp.cours.entities.UserSnapshot;
+import com.unihelp.cours.model.User;
+import com.unihelp.cours.repository.UserSnapshotRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// When the userService breaker half-opens, re-reads the snapshotted profiles in the background;
+// those calls double as the breaker's trial calls, and the decoder stores the fresh results. A
+// half-open breaker only lets a few calls through and answers the rest from the fallback, with stale
+// profiles: the refresh stops at the first stale answer and starts over once the breaker has closed
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSnapshotRefresher {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final UserSnapshotRepository userSnapshotRepository;
+    private final UserRestClient userRestClient;
+
+    @Value("${cours.user-snapshot.refresh-batch-size:100}")
+    private int batchSize;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-snapshot-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("userService");
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.State toState = event.getStateTransition().getToState();
+            if ((toState == CircuitBreaker.State.HALF_OPEN || toState == CircuitBreaker.State.CLOSED)
+                    && running.compareAndSet(false, true)) {
+                executor.submit(() -> refresh(circuitBreaker));
+            }
+        });
+    }
+
+    private void refresh(CircuitBreaker circuitBreaker) {
+        try {
+            long lastId = 0;
+            int refreshed = 0;
+            while (true) {
+                if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                    log.info("User snapshot refresh stopped, breaker open again");
+                    return;
+                }
+                List<UserSnapshot> page = userSnapshotRepository.findByUserIdGreaterThanOrderByUserIdAsc(
+                        lastId, PageRequest.of(0, batchSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = page.stream().map(UserSnapshot::getUserId).toList();
+                List<User> users = userRestClient.findUsersByIds(ids);
+                if (users.stream().anyMatch(User::isStale)) {
+                    // The call failed or was not permitted, and the fallback answered
+                    log.info("User snapshot refresh stopped after {} snapshots, breaker {}", refreshed, circuitBreaker.getState());
+                    return;
+                }
+                refreshed += users.size();
+                lastId = ids.get(ids.size() - 1);
+            }
+            log.info("Refreshed {} user snapshots", refreshed);
+        } catch (RuntimeException e) {
+            log.warn("User snapshot refresh failed: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+}
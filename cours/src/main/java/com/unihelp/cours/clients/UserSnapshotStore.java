@@ -0,0 +1,160 @@
+package com.unihelp.cours.clients;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unihelp.cours.entities.UserSnapshot;
+import com.unihelp.cours.model.Role;
+import com.unihelp.cours.model.User;
+import com.unihelp.cours.repository.UserSnapshotRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Last known good user profiles: in memory for the fallback path, persisted in user_snapshot
+// with write-behind so they survive restarts. Every successful USER response is recorded here.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSnapshotStore {
+
+    private final UserSnapshotRepository userSnapshotRepository;
+
+    // Unchanged profiles are re-persisted at most this often, just to move fetchedAt forward
+    @Value("${cours.user-snapshot.persist-interval:PT10M}")
+    private Duration persistInterval;
+
+    // Profiles kept in memory; older ones are read back from user_snapshot when needed
+    @Value("${cours.user-snapshot.cache-size:100000}")
+    private long cacheSize;
+
+    private Cache<Long, UserSnapshot> snapshots;
+    private final Map<Long, UserSnapshot> dirty = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void createCache() {
+        snapshots = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    public void remember(User user) {
+        if (user == null || user.getId() == null || user.isStale()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        user.setFetchedAt(now);
+        UserSnapshot fresh = new UserSnapshot(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getprofileImage(), (Role) user.getRole(), now);
+        UserSnapshot previous = snapshots.asMap().put(user.getId(), fresh);
+        if (previous == null || changed(previous, fresh)
+                || previous.getFetchedAt() == null || previous.getFetchedAt().plus(persistInterval).isBefore(now)) {
+            dirty.put(user.getId(), fresh);
+        } else {
+            // Keep the persisted timestamp as reference for the next re-persist
+            fresh.setFetchedAt(previous.getFetchedAt());
+        }
+    }
+
+    public void rememberAll(Collection<User> users) {
+        if (users != null) {
+            users.forEach(this::remember);
+        }
+    }
+
+    // The returned copies are marked stale
+    public Optional<User> find(Long userId) {
+        UserSnapshot snapshot = snapshots.getIfPresent(userId);
+        if (snapshot == null) {
+            snapshot = userSnapshotRepository.findById(userId).orElse(null);
+            if (snapshot == null) {
+                return Optional.empty();
+            }
+            snapshots.asMap().putIfAbsent(userId, snapshot);
+        }
+        return Optional.of(toStaleUser(snapshot));
+    }
+
+    public List<User> findAll(Collection<Long> userIds) {
+        List<User> users = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long userId : userIds) {
+            UserSnapshot snapshot = snapshots.getIfPresent(userId);
+            if (snapshot != null) {
+                users.add(toStaleUser(snapshot));
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (UserSnapshot snapshot : userSnapshotRepository.findAllById(missing)) {
+                snapshots.asMap().putIfAbsent(snapshot.getUserId(), snapshot);
+                users.add(toStaleUser(snapshot));
+            }
+        }
+        return users;
+    }
+
+    public List<User> all() {
+        return userSnapshotRepository.findAll().stream().map(UserSnapshotStore::toStaleUser).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${cours.user-snapshot.flush-ms:5000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<UserSnapshot> batch = new ArrayList<>();
+        for (Long userId : new ArrayList<>(dirty.keySet())) {
+            UserSnapshot snapshot = dirty.remove(userId);
+            if (snapshot != null) {
+                batch.add(snapshot);
+            }
+        }
+        try {
+            userSnapshotRepository.saveAll(batch);
+        } catch (RuntimeException e) {
+            log.warn("Failed to persist {} user snapshots: {}", batch.size(), e.getMessage());
+            batch.forEach(snapshot -> dirty.putIfAbsent(snapshot.getUserId(), snapshot));
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private static boolean changed(UserSnapshot a, UserSnapshot b) {
+        return !Objects.equals(a.getEmail(), b.getEmail())
+                || !Objects.equals(a.getFirstName(), b.getFirstName())
+                || !Objects.equals(a.getLastName(), b.getLastName())
+                || !Objects.equals(a.getProfileImage(), b.getProfileImage())
+                || a.getRole() != b.getRole();
+    }
+
+    private static User toStaleUser(UserSnapshot snapshot) {
+        User user = new User();
+        user.setId(snapshot.getUserId());
+        user.setEmail(snapshot.getEmail());
+        user.setFirstName(snapshot.getFirstName());
+        user.setLastName(snapshot.getLastName());
+        user.setprofileImage(snapshot.getProfileImage());
+        user.setRole(snapshot.getRole());
+        user.setStale(true);
+        user.setFetchedAt(snapshot.getFetchedAt());
+        return user;
+    }
+}
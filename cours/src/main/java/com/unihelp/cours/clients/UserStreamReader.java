@@ -0,0 +1,41 @@
+package com.unihelp.cours.clients;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unihelp.cours.model.User;
+import feign.Response;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+@Component
+@RequiredArgsConstructor
+public class UserStreamReader {
+
+    private final UserRestClient userRestClient;
+    private final ObjectMapper objectMapper;
+
+    // Hands every user of the NDJSON listing to the consumer without buffering the whole list
+    public long forEachUser(Consumer<User> consumer) {
+        try (Response response = userRestClient.streamUsers()) {
+            if (response.status() >= 300 || response.body() == null) {
+                throw new IllegalStateException("User stream failed with status " + response.status());
+            }
+            long count = 0;
+            try (InputStream body = response.body().asInputStream();
+                 MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(body)) {
+                while (users.hasNextValue()) {
+                    consumer.accept(users.nextValue());
+                    count++;
+                }
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read user stream", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.unihelp.cours.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// The actuator is reachable by anyone who can reach the service, and refresh changes its config:
+// apart from health and info, the endpoints answer only callers presenting the internal token
+// (config-server, monitoring). cours has no Spring Security, hence a plain servlet filter
+@Component
+public class ActuatorTokenFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "X-Internal-Token";
+
+    @Value("${internal.token:}")
+    private String token;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/actuator")
+                || path.equals("/actuator/health") || path.startsWith("/actuator/health/")
+                || path.equals("/actuator/info");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String presented = request.getHeader(HEADER);
+        if (token.isBlank() || presented == null || !MessageDigest.isEqual(
+                presented.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
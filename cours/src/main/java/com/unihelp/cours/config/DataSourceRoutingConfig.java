@@ -0,0 +1,87 @@
+package com.unihelp.cours.config;
+
+import com.unihelp.cours.datasource.ReadYourWrites;
+import com.unihelp.cours.datasource.ReplicaLagMonitor;
+import com.unihelp.cours.datasource.ReplicaRoutingDataSource;
+import com.unihelp.cours.datasource.RoutingJpaTransactionManager;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Primary plus read replicas, each its own Hikari pool with hikaricp.* metrics tagged by pool name.
+// Off unless cours.datasource.routing.enabled; spring.datasource.* stays the primary either way.
+@Configuration
+@ConditionalOnProperty(name = "cours.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(DataSourceProperties properties,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${cours.datasource.routing.replica-urls}") List<String> replicaUrls,
+                                        @Value("${cours.datasource.routing.replica-username:${spring.datasource.username:}}") String username,
+                                        @Value("${cours.datasource.routing.replica-password:${spring.datasource.password:}}") String password,
+                                        @Value("${cours.datasource.routing.replica-pool-size:10}") int poolSize,
+                                        @Value("${cours.datasource.routing.max-lag-ms:2000}") long maxLagMs) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("cours-primary");
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(replicaUrls.get(i).trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName("cours-replica-" + i);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaLagMonitor(primary, replicas, maxLagMs, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaLagMonitor replicaLagMonitor,
+                          @Value("${cours.datasource.routing.read-your-writes-ms:5000}") long readYourWritesMs) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaLagMonitor, new ReadYourWrites(readYourWritesMs));
+        Map<Object, Object> targets = new HashMap<>(replicaLagMonitor.dataSources());
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(ReplicaRoutingDataSource.PRIMARY));
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // Replaces Boot's JpaTransactionManager, which backs off when one is defined
+    @Bean
+    JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+                                             ObjectProvider<TransactionManagerCustomizers> customizers) throws SQLException {
+        JpaTransactionManager transactionManager = new RoutingJpaTransactionManager(entityManagerFactory,
+                dataSource.unwrap(ReplicaRoutingDataSource.class));
+        customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+        return transactionManager;
+    }
+}
@@ -0,0 +1,18 @@
+package com.unihelp.cours.config;
+
+import feign.Feign;
+import org.springframework.cloud.openfeign.CircuitBreakerNameResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FeignCircuitBreakerConfig {
+
+    // All USER calls share the "userService" breaker, as with the former @CircuitBreaker annotations
+    @Bean
+    public CircuitBreakerNameResolver circuitBreakerNameResolver() {
+        return (feignClientName, target, method) -> "USER".equalsIgnoreCase(feignClientName)
+                ? "userService"
+                : Feign.configKey(target.type(), method);
+    }
+}
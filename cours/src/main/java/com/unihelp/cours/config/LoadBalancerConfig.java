@@ -0,0 +1,11 @@
+package com.unihelp.cours.config;
+
+import com.unihelp.cours.loadbalancer.LatencyAwareLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+// Latency-aware instance choice for every load-balanced client (USER through Feign included)
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -1,14 +1,23 @@
 package com.unihelp.cours.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.nio.file.Paths;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
+    @Value("${cours.uploads.dir:src/main/resources/uploads/}")
+    private String uploadDir;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // A location must end with a slash, which toUri() only adds for a directory that exists already
+        String location = Paths.get(uploadDir).toAbsolutePath().normalize().toUri().toString();
         registry.addResourceHandler("/COURS/uploads/**")
-                .addResourceLocations("file:src/main/resources/uploads/");
+                .addResourceLocations(location.endsWith("/") ? location : location + "/");
     }
 }
\ No newline at end of file
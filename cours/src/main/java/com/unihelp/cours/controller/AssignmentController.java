@@ -0,0 +1,81 @@
+package com.unihelp.cours.controller;
+
+import com.unihelp.cours.dto.AssignmentStatsView;
+import com.unihelp.cours.dto.GradeUpdate;
+import com.unihelp.cours.entities.Assignment;
+import com.unihelp.cours.entities.Submission;
+import com.unihelp.cours.service.AssignmentService;
+import com.unihelp.cours.service.AssignmentStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/assignments")
+@RequiredArgsConstructor
+public class AssignmentController {
+
+    private final AssignmentService assignmentService;
+    private final AssignmentStatsService assignmentStatsService;
+
+    @PostMapping
+    public ResponseEntity<Assignment> createAssignment(@RequestParam Long lessonId, @RequestBody Assignment assignment) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(assignmentService.createAssignment(lessonId, assignment));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Assignment>> getAssignmentsByLesson(@RequestParam Long lessonId) {
+        return ResponseEntity.ok(assignmentService.getAssignmentsByLesson(lessonId));
+    }
+
+    @GetMapping("/{assignmentId}")
+    public ResponseEntity<Assignment> getAssignment(@PathVariable Long assignmentId) {
+        return ResponseEntity.ok(assignmentService.getAssignment(assignmentId));
+    }
+
+    @PostMapping(value = "/{assignmentId}/submissions", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Submission> submit(
+            @PathVariable Long assignmentId,
+            @RequestParam("userId") Long userId,
+            @RequestParam(value = "content", required = false) String content,
+            @RequestParam(value = "file", required = false) MultipartFile file) throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(assignmentService.submit(assignmentId, userId, content, file));
+    }
+
+    @GetMapping("/{assignmentId}/submissions")
+    public ResponseEntity<PagedModel<Submission>> getSubmissions(
+            @PathVariable Long assignmentId,
+            @PageableDefault(size = 50, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
+        return ResponseEntity.ok(new PagedModel<>(assignmentService.getSubmissions(assignmentId, pageable)));
+    }
+
+    @PutMapping("/{assignmentId}/grades")
+    public ResponseEntity<Map<String, Integer>> gradeSubmissions(
+            @PathVariable Long assignmentId,
+            @RequestBody List<GradeUpdate> updates) {
+        return ResponseEntity.ok(Map.of("updated", assignmentService.gradeSubmissions(assignmentId, updates)));
+    }
+
+    @GetMapping("/{assignmentId}/stats")
+    public ResponseEntity<AssignmentStatsView> getStats(@PathVariable Long assignmentId) {
+        assignmentService.getAssignment(assignmentId);
+        return ResponseEntity.ok(assignmentStatsService.getStats(assignmentId));
+    }
+
+    @PostMapping("/{assignmentId}/stats/rebuild")
+    public ResponseEntity<AssignmentStatsView> rebuildStats(@PathVariable Long assignmentId) {
+        assignmentService.getAssignment(assignmentId);
+        return ResponseEntity.ok(assignmentStatsService.rebuild(assignmentId));
+    }
+}
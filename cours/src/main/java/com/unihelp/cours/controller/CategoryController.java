@@ -1,9 +1,16 @@
 package com.unihelp.cours.controller;
 
+import com.unihelp.cours.dto.CatalogueCard;
+import com.unihelp.cours.dto.CategoryFacets;
 import com.unihelp.cours.enums.Category;
+import com.unihelp.cours.service.CategoryIndex;
+import com.unihelp.cours.service.CourseSummaryService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Arrays;
@@ -12,8 +19,14 @@ import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/categories")
+@RequiredArgsConstructor
 public class CategoryController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final CategoryIndex categoryIndex;
+    private final CourseSummaryService courseSummaryService;
+
     @GetMapping
     public ResponseEntity<List<String>> getCategories() {
         List<String> categories = Arrays.stream(Category.values())
@@ -21,4 +34,21 @@ public class CategoryController {
                 .collect(Collectors.toList());
         return ResponseEntity.ok(categories);
     }
+
+    // Course counts per category and level, served from memory
+    @GetMapping("/facets")
+    public ResponseEntity<CategoryFacets> getFacets() {
+        return ResponseEntity.ok(categoryIndex.getFacets());
+    }
+
+    // Keyset pagination: pass the last id of a page as afterId to get the next one
+    @GetMapping("/{category}/courses")
+    public ResponseEntity<List<CatalogueCard>> getCoursesByCategory(
+            @PathVariable Category category,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "20") int size) {
+        List<Long> ids = categoryIndex.getCourseIds(category, level, afterId, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        return ResponseEntity.ok(courseSummaryService.getCards(ids));
+    }
 }
@@ -1,14 +1,29 @@
 package com.unihelp.cours.controller;
 
+import com.unihelp.cours.dto.CatalogueCard;
+import com.unihelp.cours.dto.ImportReport;
 import com.unihelp.cours.entities.Course;
+import com.unihelp.cours.service.CourseBulkService;
 import com.unihelp.cours.service.CourseService;
+import com.unihelp.cours.service.CourseSummaryService;
+import com.unihelp.cours.service.CourseVersionService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -17,6 +32,9 @@ import java.util.List;
 public class CourseController {
 @Autowired
     private final CourseService courseService;
+    private final CourseBulkService courseBulkService;
+    private final CourseVersionService courseVersionService;
+    private final CourseSummaryService courseSummaryService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -24,11 +42,44 @@ public class CourseController {
         return courseService.createCourse(course);
     }
 
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ImportReport> importCourses(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(courseBulkService.importCourses(request.getInputStream()));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCourses() {
+        StreamingResponseBody body = courseBulkService::exportCourses;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // Cards with module/lesson/media statistics, read from course_summary in one query per page
+    @GetMapping("/catalogue")
+    public ResponseEntity<PagedModel<CatalogueCard>> getCatalogue(
+            @PageableDefault(size = 50, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
+        return ResponseEntity.ok(new PagedModel<>(courseSummaryService.getCatalogue(pageable)));
+    }
+
+    // Runs in the background on one instance; the catalogue is served as before meanwhile
+    @PostMapping("/catalogue/rebuild")
+    public ResponseEntity<Void> rebuildCatalogue() {
+        courseSummaryService.requestRebuild();
+        return ResponseEntity.accepted().build();
+    }
+
 
 
+    // Revalidation only costs the tree version lookup; the course is loaded on a miss only, and its
+    // ETag comes from the loaded course, which a shared load may have read before or after the lookup
     @GetMapping("/{id}")
-    public Course getCourse(@PathVariable Long id) {
-        return courseService.getCourseWithInstructor(id);
+    public ResponseEntity<Course> getCourse(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(courseVersionService.sharedEtag(id))) {
+            return null;
+        }
+        Course course = courseService.getCourseWithInstructor(id);
+        return ResponseEntity.ok().eTag(courseVersionService.etag(id, course.getTreeVersion())).body(course);
     }
 
 
@@ -46,16 +97,22 @@ public class CourseController {
 
 
     @PutMapping("/{id}")
-    public Course updateCourse(@PathVariable Long id, @RequestBody Course course) {
-        return courseService.updateCourse(id, course);
+    public ResponseEntity<Course> updateCourse(
+            @PathVariable Long id,
+            @RequestBody Course course,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Course updated = courseService.updateCourse(id, course, ifMatch);
+        return ResponseEntity.ok().eTag(courseVersionService.etag(id)).body(updated);
     }
 
 
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteCourse(@PathVariable Long id) {
-        courseService.deleteCourse(id);
+    public void deleteCourse(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        courseService.deleteCourse(id, ifMatch);
     }
 
 
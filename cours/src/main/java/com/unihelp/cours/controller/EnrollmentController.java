@@ -0,0 +1,47 @@
+package com.unihelp.cours.controller;
+
+import com.unihelp.cours.dto.EnrollmentView;
+import com.unihelp.cours.dto.SeatCount;
+import com.unihelp.cours.service.EnrollmentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class EnrollmentController {
+
+    private final EnrollmentService enrollmentService;
+
+    // Idempotent: enrolling twice returns the existing enrolment with 200 instead of 201
+    @PostMapping("/courses/{courseId}/enrollments")
+    public ResponseEntity<EnrollmentView> enroll(@PathVariable Long courseId, @RequestParam Long userId) {
+        EnrollmentView enrollment = enrollmentService.enroll(courseId, userId);
+        return ResponseEntity.status(enrollment.isCreated() ? HttpStatus.CREATED : HttpStatus.OK).body(enrollment);
+    }
+
+    @DeleteMapping("/courses/{courseId}/enrollments")
+    public ResponseEntity<Void> unenroll(@PathVariable Long courseId, @RequestParam Long userId) {
+        enrollmentService.unenroll(courseId, userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/courses/{courseId}/enrollments/count")
+    public ResponseEntity<SeatCount> getSeatCount(@PathVariable Long courseId) {
+        return ResponseEntity.ok(enrollmentService.getSeatCount(courseId));
+    }
+
+    @GetMapping("/courses/{courseId}/enrollments/status")
+    public ResponseEntity<Map<String, Boolean>> isEnrolled(@PathVariable Long courseId, @RequestParam Long userId) {
+        return ResponseEntity.ok(Map.of("enrolled", enrollmentService.isEnrolled(courseId, userId)));
+    }
+
+    @GetMapping("/enrollments")
+    public ResponseEntity<long[]> getEnrolledCourses(@RequestParam Long userId) {
+        return ResponseEntity.ok(enrollmentService.getEnrolledCourseIds(userId));
+    }
+}
@@ -0,0 +1,46 @@
+package com.unihelp.cours.controller;
+
+import com.unihelp.cours.cache.CacheInvalidation;
+import com.unihelp.cours.cache.CourseCacheInvalidator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+// Receives second-level cache invalidations from the other cours replicas, which present the shared
+// internal token
+@RestController
+@RequestMapping("/internal/cache")
+@RequiredArgsConstructor
+public class InternalCacheController {
+
+    private final CourseCacheInvalidator courseCacheInvalidator;
+
+    @Value("${internal.token:}")
+    private String token;
+
+    @PostConstruct
+    void checkToken() {
+        if (token.isBlank()) {
+            throw new IllegalStateException("internal.token must be set");
+        }
+    }
+
+    @PostMapping("/invalidate")
+    public ResponseEntity<Void> invalidate(
+            @RequestHeader(value = "X-Internal-Token", required = false) String requestToken,
+            @RequestBody List<CacheInvalidation> invalidations) {
+        if (requestToken == null || !MessageDigest.isEqual(
+                requestToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        courseCacheInvalidator.apply(invalidations);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,13 +1,21 @@
 package com.unihelp.cours.controller;
 
+import com.unihelp.cours.dto.Versioned;
 import com.unihelp.cours.entities.Lesson;
 import com.unihelp.cours.entities.Module;
-import com.unihelp.cours.repository.LessonRepository;
+import com.unihelp.cours.exception.LessonNotFoundException;
+import com.unihelp.cours.exception.PreconditionFailedException;
+import com.unihelp.cours.exception.PreconditionRequiredException;
 import com.unihelp.cours.repository.ModuleRepository;
+import com.unihelp.cours.service.CourseVersionService;
 import com.unihelp.cours.service.LessonService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.nio.file.Files;
@@ -22,30 +30,29 @@ import java.util.UUID;
 public class LessonController {
 
     private final LessonService lessonService;
-    private final LessonRepository lessonRepository;
     private final ModuleRepository moduleRepository;
+    private final CourseVersionService courseVersionService;
+
+    @Value("${cours.uploads.dir:src/main/resources/uploads/}")
+    private String uploadDir;
 
     @GetMapping
     public ResponseEntity<?> getLessonsByModule(
             @PathVariable Long courseId,
-            @PathVariable Long moduleId) {
+            @PathVariable Long moduleId,
+            WebRequest request) {
+        // The module must belong to the course before the course's version can stand for its lessons
+        if (!moduleRepository.existsByIdAndCourseId(moduleId, courseId)) {
+            return ResponseEntity.badRequest().body("Module ID " + moduleId + " not found");
+        }
+        if (request.checkNotModified(courseVersionService.sharedEtag(courseId))) {
+            return null;
+        }
         try {
             System.out.println("GET lessons for course: " + courseId + ", module: " + moduleId);
-            if (!moduleRepository.existsById(moduleId)) {
-                System.out.println("Module not found: " + moduleId);
-                return ResponseEntity.badRequest().body("Module ID " + moduleId + " not found");
-            }
-            List<Lesson> lessons = lessonService.getLessonsByModule(moduleId);
-            System.out.println("Found " + lessons.size() + " lessons");
-            lessons.forEach(lesson -> {
-                if (lesson.getContentUrl() != null && !lesson.getContentUrl().startsWith("/COURS/uploads/")) {
-                    lesson.setContentUrl("/COURS/uploads/" + lesson.getContentUrl().replace("/uploads/", ""));
-                }
-                if (lesson.getThumbnailUrl() != null && !lesson.getThumbnailUrl().startsWith("/COURS/uploads/")) {
-                    lesson.setThumbnailUrl("/COURS/uploads/" + lesson.getThumbnailUrl().replace("/uploads/", ""));
-                }
-            });
-            return ResponseEntity.ok(lessons);
+            Versioned<List<Lesson>> lessons = lessonService.getLessonsByModule(courseId, moduleId);
+            System.out.println("Found " + lessons.getBody().size() + " lessons");
+            return ResponseEntity.ok().eTag(courseVersionService.etag(courseId, lessons.getTreeVersion())).body(lessons.getBody());
         } catch (Exception e) {
             System.out.println("Error fetching lessons for module " + moduleId + ": " + e.getMessage());
             e.printStackTrace();
@@ -72,16 +79,14 @@ public class LessonController {
 
             Module module = moduleRepository.findById(moduleId)
                     .orElseThrow(() -> {
-                        System.out.println("Module not found: " + moduleId);
                         return new RuntimeException("Module ID " + moduleId + " not found");
                     });
 
-            String uploadDir = "src/main/resources/uploads/";
             String fileExtension = file.getOriginalFilename() != null
                     ? file.getOriginalFilename().substring(file.getOriginalFilename().lastIndexOf("."))
                     : "";
             String fileName = UUID.randomUUID() + fileExtension;
-            Path filePath = Paths.get(uploadDir + fileName);
+            Path filePath = Paths.get(uploadDir, fileName);
             Files.createDirectories(filePath.getParent());
             Files.write(filePath, file.getBytes());
             System.out.println("Saved file: " + filePath);
@@ -90,7 +95,7 @@ public class LessonController {
             String thumbnailUrl = null;
             if (contentType.equals("video")) {
                 String thumbnailName = UUID.randomUUID() + ".jpg";
-                Path thumbnailPath = Paths.get(uploadDir + thumbnailName);
+                Path thumbnailPath = Paths.get(uploadDir, thumbnailName);
                 Files.createFile(thumbnailPath); // Placeholder for thumbnail
                 thumbnailUrl = "/COURS/uploads/" + thumbnailName;
             }
@@ -100,10 +105,11 @@ public class LessonController {
             lesson.setDescription(description);
             lesson.setContentUrl("/COURS/uploads/" + fileName);
             lesson.setContentType(contentType);
+            lesson.setSizeBytes(file.getSize());
             lesson.setThumbnailUrl(thumbnailUrl);
             lesson.setModule(module);
 
-            Lesson savedLesson = lessonRepository.save(lesson);
+            Lesson savedLesson = lessonService.addLessonToModule(moduleId, lesson);
             System.out.println("Lesson saved: " + savedLesson.getContentUrl());
             return ResponseEntity.ok(savedLesson);
         } catch (Exception e) {
@@ -118,11 +124,15 @@ public class LessonController {
             @PathVariable Long courseId,
             @PathVariable Long moduleId,
             @PathVariable Long lessonId,
-            @RequestBody Lesson updatedLesson) {
+            @RequestBody Lesson updatedLesson,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
             System.out.println("PUT lesson: " + lessonId);
-            Lesson lesson = lessonService.updateLesson(moduleId, lessonId, updatedLesson);
-            return ResponseEntity.ok(lesson);
+            Lesson lesson = lessonService.updateLesson(courseId, moduleId, lessonId, updatedLesson, ifMatch);
+            return ResponseEntity.ok().eTag(courseVersionService.etag(courseId)).body(lesson);
+        } catch (LessonNotFoundException | PreconditionFailedException | PreconditionRequiredException
+                 | OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             System.out.println("Error updating lesson: " + e.getMessage());
             return ResponseEntity.status(500).body("Error updating lesson: " + e.getMessage());
@@ -133,11 +143,15 @@ public class LessonController {
     public ResponseEntity<?> deleteLesson(
             @PathVariable Long courseId,
             @PathVariable Long moduleId,
-            @PathVariable Long lessonId) {
+            @PathVariable Long lessonId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
             System.out.println("DELETE lesson: " + lessonId);
-            lessonService.deleteLesson(moduleId, lessonId);
+            lessonService.deleteLesson(courseId, moduleId, lessonId, ifMatch);
             return ResponseEntity.noContent().build();
+        } catch (LessonNotFoundException | PreconditionFailedException | PreconditionRequiredException
+                 | OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             System.out.println("Error deleting lesson: " + e.getMessage());
             return ResponseEntity.status(500).body("Error deleting lesson: " + e.getMessage());
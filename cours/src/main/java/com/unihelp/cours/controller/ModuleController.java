@@ -1,10 +1,14 @@
 package com.unihelp.cours.controller;
 
+import com.unihelp.cours.dto.Versioned;
 import com.unihelp.cours.entities.Module;
+import com.unihelp.cours.service.CourseVersionService;
 import com.unihelp.cours.service.ModuleService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -14,6 +18,7 @@ import java.util.List;
 public class ModuleController {
 
     private final ModuleService moduleService;
+    private final CourseVersionService courseVersionService;
 
     @PostMapping("/{courseId}/modules")
     public ResponseEntity<Module> addModule(@PathVariable Long courseId, @RequestBody Module module) {
@@ -22,29 +27,38 @@ public class ModuleController {
     }
     // READ: Get all modules for a specific course
     @GetMapping("/{courseId}/modules")
-    public ResponseEntity<List<Module>> getModulesByCourse(@PathVariable Long courseId) {
-        List<Module> modules = moduleService.getModulesByCourse(courseId);
-        return ResponseEntity.ok(modules);
+    public ResponseEntity<List<Module>> getModulesByCourse(@PathVariable Long courseId, WebRequest request) {
+        if (request.checkNotModified(courseVersionService.sharedEtag(courseId))) {
+            return null;
+        }
+        Versioned<List<Module>> modules = moduleService.getModulesByCourse(courseId);
+        return ResponseEntity.ok().eTag(courseVersionService.etag(courseId, modules.getTreeVersion())).body(modules.getBody());
     }
 
     // READ: Get a specific module by ID
     @GetMapping("/{courseId}/modules/{moduleId}")
-    public ResponseEntity<Module> getModuleById(@PathVariable Long courseId, @PathVariable Long moduleId) {
-        Module module = moduleService.getModuleById(courseId, moduleId);
-        return ResponseEntity.ok(module);
+    public ResponseEntity<Module> getModuleById(@PathVariable Long courseId, @PathVariable Long moduleId, WebRequest request) {
+        moduleService.checkModuleInCourse(courseId, moduleId);
+        if (request.checkNotModified(courseVersionService.sharedEtag(courseId))) {
+            return null;
+        }
+        Versioned<Module> module = moduleService.getModuleById(courseId, moduleId);
+        return ResponseEntity.ok().eTag(courseVersionService.etag(courseId, module.getTreeVersion())).body(module.getBody());
     }
 
     // UPDATE: Update an existing module
     @PutMapping("/{courseId}/modules/{moduleId}")
-    public ResponseEntity<Module> updateModule(@PathVariable Long courseId, @PathVariable Long moduleId, @RequestBody Module updatedModule) {
-        Module module = moduleService.updateModule(courseId, moduleId, updatedModule);
-        return ResponseEntity.ok(module);
+    public ResponseEntity<Module> updateModule(@PathVariable Long courseId, @PathVariable Long moduleId, @RequestBody Module updatedModule,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Module module = moduleService.updateModule(courseId, moduleId, updatedModule, ifMatch);
+        return ResponseEntity.ok().eTag(courseVersionService.etag(courseId)).body(module);
     }
 
     // DELETE: Delete a module by ID
     @DeleteMapping("/{courseId}/modules/{moduleId}")
-    public ResponseEntity<Void> deleteModule(@PathVariable Long courseId, @PathVariable Long moduleId) {
-        moduleService.deleteModule(courseId, moduleId);
+    public ResponseEntity<Void> deleteModule(@PathVariable Long courseId, @PathVariable Long moduleId,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        moduleService.deleteModule(courseId, moduleId, ifMatch);
         return ResponseEntity.noContent().build();
     }
 
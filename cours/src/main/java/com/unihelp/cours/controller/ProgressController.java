@@ -0,0 +1,42 @@
+package com.unihelp.cours.controller;
+
+import com.unihelp.cours.dto.CourseProgressView;
+import com.unihelp.cours.dto.LessonProgressView;
+import com.unihelp.cours.dto.ProgressHeartbeat;
+import com.unihelp.cours.service.LessonProgressService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/courses/{courseId}")
+@RequiredArgsConstructor
+public class ProgressController {
+
+    private final LessonProgressService lessonProgressService;
+
+    // Heartbeat from the player; accepted immediately, persisted by the next flush
+    @PostMapping("/modules/{moduleId}/lessons/{lessonId}/progress")
+    public ResponseEntity<Void> heartbeat(
+            @PathVariable Long courseId,
+            @PathVariable Long moduleId,
+            @PathVariable Long lessonId,
+            @RequestBody ProgressHeartbeat heartbeat) {
+        lessonProgressService.heartbeat(courseId, lessonId, heartbeat);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/modules/{moduleId}/lessons/{lessonId}/progress")
+    public ResponseEntity<LessonProgressView> getLessonProgress(
+            @PathVariable Long courseId,
+            @PathVariable Long moduleId,
+            @PathVariable Long lessonId,
+            @RequestParam Long userId) {
+        return ResponseEntity.ok(lessonProgressService.getLessonProgress(lessonId, userId));
+    }
+
+    @GetMapping("/progress")
+    public ResponseEntity<CourseProgressView> getCourseProgress(@PathVariable Long courseId, @RequestParam Long userId) {
+        return ResponseEntity.ok(lessonProgressService.getCourseProgress(courseId, userId));
+    }
+}
@@ -0,0 +1,41 @@
+package com.unihelp.cours.controller;
+
+import com.unihelp.cours.dto.QuizResult;
+import com.unihelp.cours.dto.QuizSubmission;
+import com.unihelp.cours.dto.QuizView;
+import com.unihelp.cours.entities.Quiz;
+import com.unihelp.cours.service.QuizService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/quizzes")
+@RequiredArgsConstructor
+public class QuizController {
+
+    private final QuizService quizService;
+
+    @PostMapping
+    public ResponseEntity<QuizView> createQuiz(@RequestParam Long lessonId, @RequestBody Quiz quiz) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(quizService.createQuiz(lessonId, quiz));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<QuizView>> getQuizzesByLesson(@RequestParam Long lessonId) {
+        return ResponseEntity.ok(quizService.getQuizzesByLesson(lessonId));
+    }
+
+    @GetMapping("/{quizId}")
+    public ResponseEntity<QuizView> getQuiz(@PathVariable Long quizId) {
+        return ResponseEntity.ok(quizService.getQuiz(quizId));
+    }
+
+    @PostMapping("/{quizId}/attempts")
+    public ResponseEntity<QuizResult> submitAttempt(@PathVariable Long quizId, @RequestBody QuizSubmission submission) {
+        return ResponseEntity.ok(quizService.submitAttempt(quizId, submission));
+    }
+}
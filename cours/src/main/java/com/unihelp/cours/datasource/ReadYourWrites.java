@@ -0,0 +1,69 @@
+package com.unihelp.cours.datasource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+// Read-your-writes on top of replica routing: a request that opens a read-write transaction gets
+// a cookie, and reads carrying an unexpired one (or made later in that same request) go to the
+// primary until the replicas have surely caught up
+public class ReadYourWrites {
+
+    static final String COOKIE = "cours-primary-until";
+    private static final String WROTE_ATTRIBUTE = ReadYourWrites.class.getName() + ".wrote";
+
+    private final long windowMs;
+
+    public ReadYourWrites(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    void markWrite() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null || attributes.getAttribute(WROTE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return;
+        }
+        attributes.setAttribute(WROTE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + windowMs));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, windowMs / 1000));
+            response.addCookie(cookie);
+        }
+    }
+
+    boolean primaryRequired() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return false;
+        }
+        if (attributes.getAttribute(WROTE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return true;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getCookies() == null) {
+            return false;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes
+                : null;
+    }
+}
@@ -0,0 +1,94 @@
+package com.unihelp.cours.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Heartbeat-based replica lag: the primary's replication_heartbeat row is stamped on every check
+// and read back from each replica, so the lag is measured end to end with plain SQL that works on
+// MySQL replicas as well as on two unrelated in-memory databases. A replica that cannot be read,
+// or lags more than the threshold, is skipped until it catches up.
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final Map<String, DataSource> dataSources = new LinkedHashMap<>();
+    private final JdbcTemplate primary;
+    private final Map<String, JdbcTemplate> replicas = new LinkedHashMap<>();
+    private final Map<String, Long> lagMs = new ConcurrentHashMap<>();
+    private final long maxLagMs;
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas, long maxLagMs,
+                             MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.maxLagMs = maxLagMs;
+        dataSources.put(ReplicaRoutingDataSource.PRIMARY, primary);
+        dataSources.putAll(replicas);
+        replicas.forEach((name, dataSource) -> {
+            this.replicas.put(name, new JdbcTemplate(dataSource));
+            lagMs.put(name, Long.MAX_VALUE);
+            Gauge.builder("cours.datasource.replica.lag", lagMs, lags -> lags.getOrDefault(name, Long.MAX_VALUE))
+                    .tag("replica", name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        });
+        this.primary.execute("create table if not exists replication_heartbeat "
+                + "(id int not null primary key, beat_millis bigint not null)");
+    }
+
+    public boolean isUsable(String replica) {
+        return lagMs.getOrDefault(replica, Long.MAX_VALUE) <= maxLagMs;
+    }
+
+    public List<String> replicaNames() {
+        return List.copyOf(replicas.keySet());
+    }
+
+    // Routing targets: the primary under ReplicaRoutingDataSource.PRIMARY and every replica by name
+    public Map<String, DataSource> dataSources() {
+        return dataSources;
+    }
+
+    // Inferred destroy method of the bean: the pools are not beans themselves
+    public void close() throws IOException {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cours.datasource.routing.lag-check-ms:1000}")
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("update replication_heartbeat set beat_millis = ? where id = 1", now) == 0) {
+                primary.update("insert into replication_heartbeat (id, beat_millis) values (1, ?)", now);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Replication heartbeat failed: {}", e.getMessage());
+        }
+
+        replicas.forEach((name, replica) -> {
+            try {
+                Long beat = replica.queryForObject("select beat_millis from replication_heartbeat where id = 1", Long.class);
+                long lag = beat == null ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - beat);
+                Long previous = lagMs.put(name, lag);
+                if (previous != null && (previous <= maxLagMs) != (lag <= maxLagMs)) {
+                    log.info("Replica {} {}, lag {} ms", name, lag <= maxLagMs ? "back in rotation" : "out of rotation", lag);
+                }
+            } catch (RuntimeException e) {
+                lagMs.put(name, Long.MAX_VALUE);
+            }
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package com.unihelp.cours.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Read-only transactions go round-robin to the replicas within the lag threshold, everything else
+// (and reads that must see the caller's own writes) to the primary. The target is chosen once per
+// transaction by RoutingJpaTransactionManager and held here for the thread until it completes;
+// without one (no transaction) connections come from the primary. Only correct behind a
+// LazyConnectionDataSourceProxy, so that the connection is fetched once the target is bound.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicas;
+    private final ReplicaLagMonitor replicaLagMonitor;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<String> current = new ThreadLocal<>();
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor replicaLagMonitor, ReadYourWrites readYourWrites) {
+        this.replicas = replicaLagMonitor.replicaNames();
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.readYourWrites = readYourWrites;
+    }
+
+    // Target for a transaction that is about to begin
+    String route(boolean readOnly) {
+        if (!readOnly) {
+            readYourWrites.markWrite();
+            return PRIMARY;
+        }
+        if (readYourWrites.primaryRequired()) {
+            return PRIMARY;
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            String replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (replicaLagMonitor.isUsable(replica)) {
+                return replica;
+            }
+        }
+        return PRIMARY;
+    }
+
+    void bind(String target) {
+        current.set(target);
+    }
+
+    // Returns the target that was bound, null if none
+    String unbind() {
+        String target = current.get();
+        current.remove();
+        return target;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = current.get();
+        return target != null ? target : PRIMARY;
+    }
+}
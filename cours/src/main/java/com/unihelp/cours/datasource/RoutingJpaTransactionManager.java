@@ -0,0 +1,63 @@
+package com.unihelp.cours.datasource;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Binds the routing target when a transaction begins, so that the whole transaction uses one
+// database, and keeps replica reads out of the second-level cache: a lagging replica's rows would
+// otherwise be cached and then served to every reader, primary ones included. Such a transaction
+// still reads the cache (CacheMode.GET), it just never puts into it
+public class RoutingJpaTransactionManager extends JpaTransactionManager {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public RoutingJpaTransactionManager(EntityManagerFactory entityManagerFactory,
+                                        ReplicaRoutingDataSource routingDataSource) {
+        super(entityManagerFactory);
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        String target = routingDataSource.route(definition.isReadOnly());
+        routingDataSource.bind(target);
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            routingDataSource.unbind();
+            throw e;
+        }
+        if (!ReplicaRoutingDataSource.PRIMARY.equals(target)) {
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager
+                    .getResource(obtainEntityManagerFactory());
+            holder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+        }
+    }
+
+    // REQUIRES_NEW and NOT_SUPPORTED suspend the outer transaction, whose target comes back with it
+    @Override
+    protected Object doSuspend(Object transaction) {
+        return new SuspendedTarget(super.doSuspend(transaction), routingDataSource.unbind());
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        SuspendedTarget suspended = (SuspendedTarget) suspendedResources;
+        super.doResume(transaction, suspended.resources());
+        routingDataSource.bind(suspended.target());
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        super.doCleanupAfterCompletion(transaction);
+        routingDataSource.unbind();
+    }
+
+    private record SuspendedTarget(Object resources, String target) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.unihelp.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class AssignmentStatsView {
+    private final Long assignmentId;
+    private final long submissionCount;
+    private final long gradedCount;
+    private final Double mean;
+    private final long[] histogram;
+}
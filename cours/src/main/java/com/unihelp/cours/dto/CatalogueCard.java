@@ -0,0 +1,23 @@
+package com.unihelp.cours.dto;
+
+import com.unihelp.cours.enums.Category;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CatalogueCard {
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final Category category;
+    private final String level;
+    private final double price;
+    private final String thumbnailUrl;
+    private final Long userId;
+    private final long moduleCount;
+    private final long lessonCount;
+    private final long videoCount;
+    private final long pdfCount;
+    private final long mediaBytes;
+}
@@ -0,0 +1,17 @@
+package com.unihelp.cours.dto;
+
+import com.unihelp.cours.enums.Category;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class CategoryFacets {
+    private final long total;
+    // Every Category, in declaration order, including empty ones
+    private final Map<Category, Long> categories;
+    private final Map<String, Long> levels;
+    private final Map<Category, Map<String, Long>> levelsByCategory;
+}
@@ -0,0 +1,14 @@
+package com.unihelp.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CourseProgressView {
+    private final Long courseId;
+    private final Long userId;
+    private final long completedLessons;
+    private final long totalLessons;
+    private final double percentage;
+}
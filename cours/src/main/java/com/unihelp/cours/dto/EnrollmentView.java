@@ -0,0 +1,16 @@
+package com.unihelp.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class EnrollmentView {
+    private final Long courseId;
+    private final Long userId;
+    private final LocalDateTime enrolledAt;
+    // false when the user was already enrolled
+    private final boolean created;
+}
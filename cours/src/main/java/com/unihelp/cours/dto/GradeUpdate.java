@@ -0,0 +1,11 @@
+package com.unihelp.cours.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class GradeUpdate {
+    private Long submissionId;
+    private Double grade;
+}
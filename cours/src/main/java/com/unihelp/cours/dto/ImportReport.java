@@ -0,0 +1,16 @@
+package com.unihelp.cours.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class ImportReport {
+    private int courses;
+    private int modules;
+    private int lessons;
+    private List<String> rejected = new ArrayList<>();
+}
@@ -0,0 +1,14 @@
+package com.unihelp.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LessonProgressView {
+    private final Long lessonId;
+    private final Long userId;
+    private final double positionSeconds;
+    private final double durationSeconds;
+    private final boolean completed;
+}
@@ -0,0 +1,14 @@
+package com.unihelp.cours.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ProgressHeartbeat {
+    private Long userId;
+    private double positionSeconds;
+    private double durationSeconds;
+    // Set by players that know the lesson is finished (e.g. a PDF read to the end)
+    private boolean completed;
+}
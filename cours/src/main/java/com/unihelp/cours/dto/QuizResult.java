@@ -0,0 +1,16 @@
+package com.unihelp.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class QuizResult {
+    private final Long quizId;
+    private final Long userId;
+    private final int score;
+    private final int maxScore;
+    private final List<Long> correctQuestionIds;
+}
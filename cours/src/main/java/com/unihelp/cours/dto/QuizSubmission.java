@@ -0,0 +1,16 @@
+package com.unihelp.cours.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class QuizSubmission {
+    private Long userId;
+    // questionId -> selected option ids
+    private Map<Long, List<Long>> answers = new HashMap<>();
+}
@@ -0,0 +1,32 @@
+package com.unihelp.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Quiz as served to students: same structure as the entity, without the isCorrect flags
+@Getter
+@AllArgsConstructor
+public class QuizView {
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final List<QuestionView> questions;
+
+    @Getter
+    @AllArgsConstructor
+    public static class QuestionView {
+        private final Long id;
+        private final String text;
+        private final String type;
+        private final List<OptionView> options;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class OptionView {
+        private final Long id;
+        private final String text;
+    }
+}
@@ -0,0 +1,13 @@
+package com.unihelp.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SeatCount {
+    private final Long courseId;
+    private final int enrolled;
+    // null for unlimited
+    private final Integer capacity;
+}
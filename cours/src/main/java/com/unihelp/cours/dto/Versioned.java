@@ -0,0 +1,13 @@
+package com.unihelp.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// A read of a course tree together with the tree_version it was read at, so that the ETag sent with
+// it describes that very body
+@Getter
+@AllArgsConstructor
+public class Versioned<T> {
+    private final T body;
+    private final long treeVersion;
+}
@@ -0,0 +1,39 @@
+package com.unihelp.cours.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Per-assignment aggregates maintained incrementally by AssignmentStatsService
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentStats {
+
+    public static final int HISTOGRAM_BUCKETS = 10;
+
+    @Id
+    private Long assignmentId;
+
+    // Bumped by every rebuild; deltas recorded against an older generation are already in the recount
+    private long generation;
+
+    private long submissionCount;
+    private long gradedCount;
+    private double gradeSum;
+
+    // Graded submissions per 10-point bucket of a 0-100 scale
+    @Convert(converter = HistogramConverter.class)
+    @Column(length = 255)
+    private long[] histogram = new long[HISTOGRAM_BUCKETS];
+
+    public AssignmentStats(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    public static int bucket(double grade) {
+        int bucket = (int) Math.floor(grade / (100.0 / HISTOGRAM_BUCKETS));
+        return Math.max(0, Math.min(HISTOGRAM_BUCKETS - 1, bucket));
+    }
+}
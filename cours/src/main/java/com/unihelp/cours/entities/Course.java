@@ -6,6 +6,8 @@ import com.unihelp.cours.enums.Category;
 import com.unihelp.cours.model.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,11 +19,24 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// One course per title and instructor; existing databases get the key from data-mysql.sql
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_course_title_user", columnNames = {"title", "user_id"}))
 public class Course {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_seq")
+    @SequenceGenerator(name = "course_seq", sequenceName = "course_seq", allocationSize = 50)
     private Long id;
+
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Bumped whenever the course, one of its modules or one of their lessons changes; see CourseVersionService
+    @Column(name = "tree_version", nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long treeVersion;
+
     private String title;
     private String description;
     @Enumerated(EnumType.STRING)
@@ -33,12 +48,22 @@ public class Course {
     private String thumbnailUrl;
     private Long userId;
 
+    // Maximum number of enrolments, null for unlimited
+    private Integer capacity;
+
+    // Enrolments counted before seats moved to course_seat_bucket; only read to seed a course's buckets,
+    // so the copy cached with the course is never shown
+    @JsonIgnore
+    @Column(name = "enrolled_count", nullable = false, updatable = false)
+    private int enrolledCount;
+
     @Transient
     private User user;
 
 
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Module> modules = new ArrayList<>();
 
 
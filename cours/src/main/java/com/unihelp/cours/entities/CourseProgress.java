@@ -0,0 +1,32 @@
+package com.unihelp.cours.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Number of completed lessons per student and course, incremented as lessons get completed
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "course_progress",
+        uniqueConstraints = @UniqueConstraint(name = "uk_course_progress_user_course", columnNames = {"user_id", "course_id"}))
+public class CourseProgress {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "completed_lessons")
+    private long completedLessons;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
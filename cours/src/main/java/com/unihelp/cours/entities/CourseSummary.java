@@ -0,0 +1,29 @@
+package com.unihelp.cours.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Catalogue card statistics of one course, maintained incrementally by CourseSummaryService so that
+// listing courses never walks their modules and lessons
+@Entity
+@Table(name = "course_summary")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseSummary {
+
+    @Id
+    private Long courseId;
+
+    private long moduleCount;
+    private long lessonCount;
+    private long videoCount;
+    private long pdfCount;
+    // Sum of the lessons' upload sizes, lessons without a known size count as 0
+    private long mediaBytes;
+
+    public CourseSummary(Long courseId) {
+        this.courseId = courseId;
+    }
+}
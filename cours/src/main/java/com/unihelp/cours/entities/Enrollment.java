@@ -0,0 +1,29 @@
+package com.unihelp.cours.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// One row per student and course; the unique key makes enrolment requests idempotent
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_enrollment_course_user", columnNames = {"course_id", "user_id"}),
+        indexes = @Index(name = "idx_enrollment_user", columnList = "user_id"))
+public class Enrollment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "enrollment_seq")
+    @SequenceGenerator(name = "enrollment_seq", sequenceName = "enrollment_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private LocalDateTime enrolledAt;
+}
@@ -0,0 +1,33 @@
+package com.unihelp.cours.entities;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+// Stores a histogram as "n0,n1,...,n9"
+@Converter
+public class HistogramConverter implements AttributeConverter<long[], String> {
+
+    @Override
+    public String convertToDatabaseColumn(long[] histogram) {
+        if (histogram == null) {
+            return null;
+        }
+        return Arrays.stream(histogram).mapToObj(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    @Override
+    public long[] convertToEntityAttribute(String value) {
+        long[] histogram = new long[AssignmentStats.HISTOGRAM_BUCKETS];
+        if (value == null || value.isBlank()) {
+            return histogram;
+        }
+        String[] parts = value.split(",");
+        for (int i = 0; i < parts.length && i < histogram.length; i++) {
+            histogram[i] = Long.parseLong(parts[i].trim());
+        }
+        return histogram;
+    }
+}
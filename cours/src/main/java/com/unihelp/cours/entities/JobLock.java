@@ -0,0 +1,24 @@
+package com.unihelp.cours.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Lease on a job that must run on one instance at a time (JobLockService): the owner holds it until
+// lockedUntil, after which any instance may take it over
+@Entity
+@Table(name = "job_lock")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLock {
+
+    @Id
+    private String name;
+
+    private String owner;
+
+    private LocalDateTime lockedUntil;
+}
@@ -3,22 +3,32 @@ package com.unihelp.cours.entities;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Lesson {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lesson_seq")
+    @SequenceGenerator(name = "lesson_seq", sequenceName = "lesson_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+
     private String title;
     private String description;
     private String contentUrl; // Matches TypeScript
     private String contentType; // 'pdf' or 'video', matches TypeScript
     private String thumbnailUrl; // Matches TypeScript
+    private Long sizeBytes; // Size of the uploaded file, null when unknown
 
     @ManyToOne
     @JoinColumn(name = "module_id", nullable = false)
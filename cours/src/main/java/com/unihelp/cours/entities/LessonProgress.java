@@ -0,0 +1,41 @@
+package com.unihelp.cours.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Latest known position of a student in a lesson; written by LessonProgressService with batched upserts
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "lesson_progress",
+        indexes = @Index(name = "idx_lesson_progress_course", columnList = "course_id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_lesson_progress_user_lesson", columnNames = {"user_id", "lesson_id"}))
+public class LessonProgress {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "lesson_id", nullable = false)
+    private Long lessonId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "position_seconds")
+    private double positionSeconds;
+
+    @Column(name = "duration_seconds")
+    private double durationSeconds;
+
+    private boolean completed;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -9,18 +9,27 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Module {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "module_seq")
+    @SequenceGenerator(name = "module_seq", sequenceName = "module_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+
     private String title;
     private String description;
 
@@ -33,6 +42,7 @@ public class Module {
 
     @OneToMany(mappedBy = "module", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Lesson> lessons;
 
     // Ensure there is a getter for lessons
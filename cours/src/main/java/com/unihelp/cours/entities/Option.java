@@ -3,6 +3,7 @@ package com.unihelp.cours.entities;
 import jakarta.persistence.*;
 
 @Entity
+@Table(name = "quiz_option") // OPTION is a reserved word in MySQL
 public class Option {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,35 @@
+package com.unihelp.cours.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(indexes = @Index(name = "idx_quiz_attempt_quiz_user", columnList = "quiz_id, user_id"))
+public class QuizAttempt {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quiz_attempt_seq")
+    @SequenceGenerator(name = "quiz_attempt_seq", sequenceName = "quiz_attempt_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "quiz_id", nullable = false)
+    private Long quizId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private int score;
+    private int maxScore;
+
+    // Compact "questionId=optionId,optionId;..." form of the submitted answers
+    @Column(length = 4000)
+    private String answers;
+
+    private LocalDateTime submittedAt;
+}
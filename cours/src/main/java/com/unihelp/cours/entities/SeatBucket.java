@@ -0,0 +1,32 @@
+package com.unihelp.cours.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// One of the rows a course's seats are spread over, so that concurrent enrolments lock different rows.
+// Each bucket has its own share of the capacity; the course is full once every bucket is
+@Entity
+@Table(name = "course_seat_bucket",
+        uniqueConstraints = @UniqueConstraint(name = "uk_seat_bucket_course_bucket", columnNames = {"course_id", "bucket"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(nullable = false)
+    private int bucket;
+
+    // Share of the course capacity, null for unlimited
+    private Integer seats;
+
+    @Column(nullable = false)
+    private int taken;
+}
@@ -0,0 +1,25 @@
+package com.unihelp.cours.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// One row per seed source: written when its import starts, completed once every course of the source
+// is in, after which CourseSeeder never imports it again (even if its courses are deleted later)
+@Entity
+@Table(name = "seed_run")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeedRun {
+
+    @Id
+    private String source;
+
+    private LocalDateTime startedAt;
+
+    // null while the import is partial
+    private LocalDateTime completedAt;
+}
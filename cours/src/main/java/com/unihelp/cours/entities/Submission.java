@@ -1,11 +1,13 @@
 package com.unihelp.cours.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.unihelp.cours.model.User;
 import jakarta.persistence.*;
 
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = @Index(name = "idx_submission_assignment", columnList = "assignment_id"))
 public class Submission {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -14,8 +16,12 @@ public class Submission {
 
     @ManyToOne
     @JoinColumn(name = "assignment_id", nullable = false)
+    @JsonIgnore
     private Assignment assignment; // The assignment being submitted
 
+    private Long userId; // The student who submitted
+    private String fileUrl; // Uploaded file, if any
+
     private String content; // Submission content (text, file URL, etc.)
     private LocalDate submissionDate; // Date of submission
     private Double grade; // Grade for the submission (nullable)
@@ -31,6 +37,22 @@ public class Submission {
 
 
 
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getFileUrl() {
+        return fileUrl;
+    }
+
+    public void setFileUrl(String fileUrl) {
+        this.fileUrl = fileUrl;
+    }
+
     public Assignment getAssignment() {
         return assignment;
     }
@@ -0,0 +1,29 @@
+package com.unihelp.cours.entities;
+
+import com.unihelp.cours.model.Role;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Last known good profile of a user, served when the user service is unavailable
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "user_snapshot")
+public class UserSnapshot {
+    @Id
+    private Long userId;
+
+    private String email;
+    private String firstName;
+    private String lastName;
+    @Column(length = 1024)
+    private String profileImage;
+    @Enumerated(EnumType.STRING)
+    private Role role;
+
+    private LocalDateTime fetchedAt;
+}
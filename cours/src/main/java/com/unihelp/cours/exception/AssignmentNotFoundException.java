@@ -0,0 +1,7 @@
+package com.unihelp.cours.exception;
+
+public class AssignmentNotFoundException extends RuntimeException {
+    public AssignmentNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.unihelp.cours.exception;
+
+public class CourseFullException extends RuntimeException {
+    public CourseFullException(String message) {
+        super(message);
+    }
+}
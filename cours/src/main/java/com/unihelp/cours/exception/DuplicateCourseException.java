@@ -0,0 +1,7 @@
+package com.unihelp.cours.exception;
+
+public class DuplicateCourseException extends RuntimeException {
+    public DuplicateCourseException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,7 @@
 package com.unihelp.cours.exception;
 
 import feign.FeignException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,6 +22,47 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
     }
 
+    @ExceptionHandler(LessonNotFoundException.class)
+    public ResponseEntity<?> handleLessonNotFound(LessonNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(QuizNotFoundException.class)
+    public ResponseEntity<?> handleQuizNotFound(QuizNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(AssignmentNotFoundException.class)
+    public ResponseEntity<?> handleAssignmentNotFound(AssignmentNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(CourseFullException.class)
+    public ResponseEntity<?> handleCourseFull(CourseFullException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(DuplicateCourseException.class)
+    public ResponseEntity<?> handleDuplicateCourse(DuplicateCourseException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<?> handlePreconditionFailed(PreconditionFailedException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(PreconditionRequiredException.class)
+    public ResponseEntity<?> handlePreconditionRequired(PreconditionRequiredException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                Map.of("error", "The resource was modified concurrently, reload it and retry"));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleGenericException(Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
@@ -0,0 +1,7 @@
+package com.unihelp.cours.exception;
+
+public class PreconditionRequiredException extends RuntimeException {
+    public PreconditionRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.unihelp.cours.exception;
+
+public class QuizNotFoundException extends RuntimeException {
+    public QuizNotFoundException(String message) {
+        super(message);
+    }
+}
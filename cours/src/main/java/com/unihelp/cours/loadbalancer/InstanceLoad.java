@@ -0,0 +1,65 @@
+package com.unihelp.cours.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Load of one service instance as seen from this client
+public class InstanceLoad {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long ewmaNanos;
+    private volatile long upSinceMillis;
+    private volatile long drainedUntilMillis;
+    private volatile long lastSeenMillis;
+
+    InstanceLoad(long upSinceMillis) {
+        this.upSinceMillis = upSinceMillis;
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void finished() {
+        inFlight.updateAndGet(current -> Math.max(0, current - 1));
+    }
+
+    synchronized void recordLatency(long nanos, double alpha) {
+        ewmaNanos = ewmaNanos == 0 ? nanos : (long) (ewmaNanos + alpha * (nanos - ewmaNanos));
+    }
+
+    void drainFor(long millis) {
+        drainedUntilMillis = System.currentTimeMillis() + millis;
+    }
+
+    // A restarted instance keeps its address, so the warm-up restarts when it reports a newer start
+    void upSince(long millis) {
+        if (millis > upSinceMillis) {
+            upSinceMillis = millis;
+            ewmaNanos = 0;
+        }
+    }
+
+    void seen(long millis) {
+        lastSeenMillis = millis;
+    }
+
+    long getLastSeenMillis() {
+        return lastSeenMillis;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getEwmaNanos() {
+        return ewmaNanos;
+    }
+
+    public long getUpSinceMillis() {
+        return upSinceMillis;
+    }
+
+    public boolean isDraining() {
+        return System.currentTimeMillis() < drainedUntilMillis;
+    }
+}
@@ -0,0 +1,4 @@
+package com.unihelp.cours.loadbalancer;
+
+public record RegistryChange(long seq, String action, RegistryInstance instance) {
+}
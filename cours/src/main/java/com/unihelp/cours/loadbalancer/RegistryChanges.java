@@ -0,0 +1,6 @@
+package com.unihelp.cours.loadbalancer;
+
+import java.util.List;
+
+public record RegistryChanges(String epoch, long seq, boolean reset, List<RegistryChange> changes) {
+}
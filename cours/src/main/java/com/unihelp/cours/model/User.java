@@ -4,6 +4,8 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.time.LocalDateTime;
+
 @Getter @Setter @ToString
 public class User {
 
@@ -14,6 +16,11 @@ public class User {
     private String profileImage;
     private Role role;
 
+    // Staleness metadata: stale is true when the profile was served from the local snapshot
+    // because the user service was unavailable, fetchedAt is when it was last read from it
+    private boolean stale;
+    private LocalDateTime fetchedAt;
+
     public Object getRole() {
         return role;
     }
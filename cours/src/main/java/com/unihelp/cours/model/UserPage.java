@@ -0,0 +1,22 @@
+package com.unihelp.cours.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter @Setter
+public class UserPage {
+
+    private List<User> content = new ArrayList<>();
+    private PageMetadata page;
+
+    @Getter @Setter
+    public static class PageMetadata {
+        private long size;
+        private long number;
+        private long totalElements;
+        private long totalPages;
+    }
+}
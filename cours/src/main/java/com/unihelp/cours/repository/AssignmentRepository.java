@@ -0,0 +1,18 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.Assignment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
+    List<Assignment> findByLessonId(Long lessonId);
+
+    @Query("select a.id from Assignment a where a.lesson.id in :lessonIds")
+    List<Long> findIdsByLessonIds(@Param("lessonIds") Collection<Long> lessonIds);
+}
@@ -0,0 +1,22 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.AssignmentStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AssignmentStatsRepository extends JpaRepository<AssignmentStats, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AssignmentStats s where s.assignmentId = :assignmentId")
+    Optional<AssignmentStats> findForUpdate(@Param("assignmentId") Long assignmentId);
+
+    @Query("select s.generation from AssignmentStats s where s.assignmentId = :assignmentId")
+    Optional<Long> findGeneration(@Param("assignmentId") Long assignmentId);
+}
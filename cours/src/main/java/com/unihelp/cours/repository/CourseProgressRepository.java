@@ -0,0 +1,26 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.CourseProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CourseProgressRepository extends JpaRepository<CourseProgress, Long> {
+    Optional<CourseProgress> findByUserIdAndCourseId(Long userId, Long courseId);
+
+    @Modifying
+    @Query("delete from CourseProgress p where p.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+
+    // completed_lessons from the lesson_progress rows that are left, e.g. after lessons were deleted
+    @Modifying
+    @Query(value = "UPDATE course_progress cp SET cp.completed_lessons = (SELECT COUNT(*) FROM lesson_progress lp " +
+            "WHERE lp.user_id = cp.user_id AND lp.course_id = cp.course_id AND lp.completed = TRUE) " +
+            "WHERE cp.course_id = :courseId", nativeQuery = true)
+    int recountByCourseId(@Param("courseId") Long courseId);
+}
@@ -1,13 +1,84 @@
 package com.unihelp.cours.repository;
 
 import com.unihelp.cours.entities.Course;
+import com.unihelp.cours.enums.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Transactional(readOnly = true)
     List<Course> findByUserId(Long UserId);
 
+    boolean existsByTitleAndUserId(String title, Long userId);
+
+    boolean existsByTitleAndUserIdAndIdNot(String title, Long userId, Long id);
+
+    // Titles of these instructors that are taken, compared the way uk_course_title_user compares them
+    @Query("select c.userId as userId, c.title as title from Course c where c.userId in :userIds and c.title in :titles")
+    List<CourseTitle> findTitles(@Param("userIds") Collection<Long> userIds, @Param("titles") Collection<String> titles);
+
+    // Keyset page used by the catalogue export, ordered by id
+    List<Course> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select c.id from Course c where c.id > :id order by c.id")
+    List<Long> findIdsGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @Query("select c.id as id, c.capacity as capacity, c.enrolledCount as enrolledCount from Course c where c.id = :courseId")
+    Optional<CourseSeats> findSeats(@Param("courseId") Long courseId);
+
+    // Just the faceted columns of every course, for CategoryIndex
+    @Query("select c.id as id, c.category as category, c.level as level from Course c")
+    List<CourseFacet> findFacets();
+
+    // Locks the course rows in id order, the lock every writer of a course takes with its tree_version
+    // bump. Runs in the caller's transaction
+    @Query(value = "SELECT id FROM course WHERE id IN (:courseIds) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockByIds(@Param("courseIds") Collection<Long> courseIds);
+
+    @Query("select c.treeVersion from Course c where c.id = :courseId")
+    Optional<Long> findTreeVersion(@Param("courseId") Long courseId);
+
+    // Both run in the caller's transaction, next to the change they version
+    @Modifying
+    @Query(value = "UPDATE course SET tree_version = tree_version + 1 WHERE id = :courseId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "course_tree_version"))
+    int bumpTreeVersion(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query(value = "UPDATE course SET tree_version = tree_version + 1 WHERE id = :courseId AND tree_version = :expected",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "course_tree_version"))
+    int bumpTreeVersionIfMatches(@Param("courseId") Long courseId, @Param("expected") long expected);
+
+    interface CourseSeats {
+        Long getId();
+        Integer getCapacity();
+        int getEnrolledCount();
+    }
+
+    interface CourseTitle {
+        Long getUserId();
+        String getTitle();
+    }
+
+    interface CourseFacet {
+        Long getId();
+        Category getCategory();
+        String getLevel();
+    }
+
 }
@@ -0,0 +1,63 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.dto.CatalogueCard;
+import com.unihelp.cours.entities.CourseSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CourseSummaryRepository extends JpaRepository<CourseSummary, Long> {
+
+    // Both return 0 when the course has no summary row yet
+    @Modifying
+    @Query("update CourseSummary s set s.moduleCount = s.moduleCount + 1 where s.courseId = :courseId")
+    int addModule(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("update CourseSummary s set s.lessonCount = s.lessonCount + 1, s.videoCount = s.videoCount + :videos, " +
+            "s.pdfCount = s.pdfCount + :pdfs, s.mediaBytes = s.mediaBytes + :bytes where s.courseId = :courseId")
+    int addLesson(@Param("courseId") Long courseId, @Param("videos") long videos, @Param("pdfs") long pdfs,
+                  @Param("bytes") long bytes);
+
+    // Courses without modules have no row here
+    @Query("select m.course.id as courseId, count(distinct m.id) as moduleCount, count(l.id) as lessonCount, " +
+            "sum(case when l.contentType = 'video' then 1 else 0 end) as videoCount, " +
+            "sum(case when l.contentType = 'pdf' then 1 else 0 end) as pdfCount, " +
+            "coalesce(sum(l.sizeBytes), 0) as mediaBytes " +
+            "from Module m left join m.lessons l where m.course.id in :courseIds group by m.course.id")
+    List<CourseTotals> computeTotals(@Param("courseIds") Collection<Long> courseIds);
+
+    // One query per page of cards, courses not summarised yet show zeros
+    @Query(value = "select new com.unihelp.cours.dto.CatalogueCard(c.id, c.title, c.description, c.category, " +
+            "c.level, c.price, c.thumbnailUrl, c.userId, coalesce(s.moduleCount, 0L), coalesce(s.lessonCount, 0L), " +
+            "coalesce(s.videoCount, 0L), coalesce(s.pdfCount, 0L), coalesce(s.mediaBytes, 0L)) " +
+            "from Course c left join CourseSummary s on s.courseId = c.id",
+            countQuery = "select count(c) from Course c")
+    @Transactional(readOnly = true)
+    Page<CatalogueCard> findCatalogue(Pageable pageable);
+
+    @Query("select new com.unihelp.cours.dto.CatalogueCard(c.id, c.title, c.description, c.category, " +
+            "c.level, c.price, c.thumbnailUrl, c.userId, coalesce(s.moduleCount, 0L), coalesce(s.lessonCount, 0L), " +
+            "coalesce(s.videoCount, 0L), coalesce(s.pdfCount, 0L), coalesce(s.mediaBytes, 0L)) " +
+            "from Course c left join CourseSummary s on s.courseId = c.id where c.id in :ids order by c.id")
+    @Transactional(readOnly = true)
+    List<CatalogueCard> findCatalogueByIds(@Param("ids") Collection<Long> ids);
+
+    interface CourseTotals {
+        Long getCourseId();
+        Long getModuleCount();
+        Long getLessonCount();
+        Long getVideoCount();
+        Long getPdfCount();
+        Long getMediaBytes();
+    }
+}
@@ -0,0 +1,32 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.Enrollment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
+    Optional<Enrollment> findByCourseIdAndUserId(Long courseId, Long userId);
+
+    @Query("select e.courseId from Enrollment e where e.userId = :userId")
+    List<Long> findCourseIdsByUserId(@Param("userId") Long userId);
+
+    @Query("select e.userId from Enrollment e where e.courseId = :courseId")
+    List<Long> findUserIdsByCourseId(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("delete from Enrollment e where e.courseId = :courseId and e.userId = :userId")
+    int deleteByCourseIdAndUserId(@Param("courseId") Long courseId, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Enrollment e where e.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+}
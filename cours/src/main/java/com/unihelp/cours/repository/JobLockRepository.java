@@ -0,0 +1,25 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    // Takes an expired lease or extends our own; 0 when another instance holds it (or there is no row yet)
+    @Modifying
+    @Query("update JobLock j set j.owner = :owner, j.lockedUntil = :until " +
+            "where j.name = :name and (j.owner = :owner or j.lockedUntil < :now)")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until,
+                @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update JobLock j set j.lockedUntil = :now where j.name = :name and j.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
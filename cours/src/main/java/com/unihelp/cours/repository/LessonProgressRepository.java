@@ -0,0 +1,26 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.LessonProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LessonProgressRepository extends JpaRepository<LessonProgress, Long> {
+    Optional<LessonProgress> findByUserIdAndLessonId(Long userId, Long lessonId);
+
+    // Share-locks the completions of a course, so that a recount is not raced by a flush completing a lesson
+    @Query(value = "SELECT COUNT(*) FROM lesson_progress WHERE course_id = :courseId AND completed = TRUE FOR SHARE",
+            nativeQuery = true)
+    long lockCompletedByCourseId(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("delete from LessonProgress p where p.lessonId in :lessonIds")
+    int deleteByLessonIds(@Param("lessonIds") Collection<Long> lessonIds);
+}
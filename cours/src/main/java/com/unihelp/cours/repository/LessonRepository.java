@@ -1,12 +1,49 @@
 package com.unihelp.cours.repository;
 
 import com.unihelp.cours.entities.Lesson;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Transactional(readOnly = true)
     List<Lesson> findByModuleId(Long moduleId);
+
+    @Query("select l.module.course.id from Lesson l where l.id = :lessonId")
+    Optional<Long> findCourseIdById(@Param("lessonId") Long lessonId);
+
+    long countByModuleCourseId(Long courseId);
+
+    // Ids and media of a whole subtree in one query, ahead of a bulk delete
+    @Query("select l.id as id, l.module.id as moduleId, l.contentUrl as contentUrl, l.thumbnailUrl as thumbnailUrl " +
+            "from Lesson l where l.module.course.id = :courseId")
+    List<LessonMedia> findMediaByCourseId(@Param("courseId") Long courseId);
+
+    @Query("select l.id as id, l.module.id as moduleId, l.contentUrl as contentUrl, l.thumbnailUrl as thumbnailUrl " +
+            "from Lesson l where l.module.id = :moduleId")
+    List<LessonMedia> findMediaByModuleId(@Param("moduleId") Long moduleId);
+
+    // Keyset page of every lesson's media, ordered by id, for the upload sweep
+    @Query("select l.id as id, l.module.id as moduleId, l.contentUrl as contentUrl, l.thumbnailUrl as thumbnailUrl " +
+            "from Lesson l where l.id > :id order by l.id")
+    List<LessonMedia> findMediaAfter(@Param("id") Long id, Pageable pageable);
+
+    interface LessonMedia {
+        Long getId();
+        Long getModuleId();
+        String getContentUrl();
+        String getThumbnailUrl();
+    }
 }
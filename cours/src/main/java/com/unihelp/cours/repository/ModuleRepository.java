@@ -2,8 +2,16 @@ package com.unihelp.cours.repository;
 
 import com.unihelp.cours.entities.Module;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ModuleRepository extends JpaRepository<Module, Long> {
+    @Query("select m.id from Module m where m.course.id = :courseId")
+    List<Long> findIdsByCourseId(@Param("courseId") Long courseId);
+
+    boolean existsByIdAndCourseId(Long id, Long courseId);
 }
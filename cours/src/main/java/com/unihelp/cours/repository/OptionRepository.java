@@ -0,0 +1,20 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.Option;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OptionRepository extends JpaRepository<Option, Long> {
+    List<Option> findByQuestionQuizIdOrderByIdAsc(Long quizId);
+
+    @Modifying
+    @Query("delete from Option o where o.question.id in (select q.id from Question q where q.quiz.id in :quizIds)")
+    int deleteByQuizIds(@Param("quizIds") Collection<Long> quizIds);
+}
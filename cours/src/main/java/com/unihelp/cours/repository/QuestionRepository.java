@@ -0,0 +1,20 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.Question;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface QuestionRepository extends JpaRepository<Question, Long> {
+    List<Question> findByQuizIdOrderByIdAsc(Long quizId);
+
+    @Modifying
+    @Query("delete from Question q where q.quiz.id in :quizIds")
+    int deleteByQuizIds(@Param("quizIds") Collection<Long> quizIds);
+}
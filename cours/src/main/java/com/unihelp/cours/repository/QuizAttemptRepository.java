@@ -0,0 +1,20 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.QuizAttempt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long> {
+    List<QuizAttempt> findByQuizIdAndUserId(Long quizId, Long userId);
+
+    @Modifying
+    @Query("delete from QuizAttempt a where a.quizId in :quizIds")
+    int deleteByQuizIds(@Param("quizIds") Collection<Long> quizIds);
+}
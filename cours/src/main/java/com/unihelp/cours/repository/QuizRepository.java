@@ -0,0 +1,18 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.Quiz;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface QuizRepository extends JpaRepository<Quiz, Long> {
+    List<Quiz> findByLessonId(Long lessonId);
+
+    @Query("select q.id from Quiz q where q.lesson.id in :lessonIds")
+    List<Long> findIdsByLessonIds(@Param("lessonIds") Collection<Long> lessonIds);
+}
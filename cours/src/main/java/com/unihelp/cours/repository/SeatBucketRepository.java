@@ -0,0 +1,57 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.SeatBucket;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// The native updates name their table as query space, so that they leave the course caches alone.
+// All run in the caller's transaction
+@Repository
+public interface SeatBucketRepository extends JpaRepository<SeatBucket, Long> {
+
+    // Claims a seat of one bucket if it has one left
+    @Modifying
+    @Query(value = "UPDATE course_seat_bucket SET taken = taken + 1 WHERE course_id = :courseId AND bucket = :bucket "
+            + "AND (seats IS NULL OR taken < seats)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "course_seat_bucket"))
+    int takeSeat(@Param("courseId") Long courseId, @Param("bucket") int bucket);
+
+    @Modifying
+    @Query(value = "UPDATE course_seat_bucket SET taken = taken - 1 WHERE course_id = :courseId AND bucket = :bucket "
+            + "AND taken > 0", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "course_seat_bucket"))
+    int releaseSeat(@Param("courseId") Long courseId, @Param("bucket") int bucket);
+
+    // Concurrent first enrolments both create the buckets; the unique key keeps the first of each
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO course_seat_bucket (course_id, bucket, seats, taken) "
+            + "VALUES (:courseId, :bucket, :seats, :taken)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "course_seat_bucket"))
+    int insertIfAbsent(@Param("courseId") Long courseId, @Param("bucket") int bucket,
+                       @Param("seats") Integer seats, @Param("taken") int taken);
+
+    long countByCourseId(Long courseId);
+
+    // null when the course has no buckets yet
+    @Query("select sum(b.taken) from SeatBucket b where b.courseId = :courseId")
+    Long sumTaken(@Param("courseId") Long courseId);
+
+    // Takes every bucket of the course, in a fixed order, to redistribute the capacity
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from SeatBucket b where b.courseId = :courseId order by b.bucket")
+    List<SeatBucket> findForUpdate(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("delete from SeatBucket b where b.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+}
@@ -0,0 +1,9 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.SeedRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SeedRunRepository extends JpaRepository<SeedRun, String> {
+}
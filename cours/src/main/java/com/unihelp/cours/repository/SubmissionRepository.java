@@ -0,0 +1,47 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.Submission;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SubmissionRepository extends JpaRepository<Submission, Long> {
+    Page<Submission> findByAssignmentId(Long assignmentId, Pageable pageable);
+
+    // Locks the rows in id order, so concurrent grading requests queue on them instead of computing
+    // their deltas from the same old grades
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Submission s where s.assignment.id = :assignmentId and s.id in :ids order by s.id")
+    List<Submission> findForUpdate(@Param("assignmentId") Long assignmentId, @Param("ids") Collection<Long> ids);
+
+    // The grade of every submission, null when ungraded. A locking read: it waits for uncommitted
+    // submissions and grades, and blocks new ones until the caller's transaction ends
+    @Query(value = "SELECT grade FROM submission WHERE assignment_id = :assignmentId FOR SHARE", nativeQuery = true)
+    List<Double> findGradesForShare(@Param("assignmentId") Long assignmentId);
+
+    // Keyset page of uploaded submission files, ordered by id, for the upload sweep
+    @Query("select s.id as id, s.fileUrl as fileUrl from Submission s where s.id > :id and s.fileUrl is not null order by s.id")
+    List<SubmissionFile> findFilesAfter(@Param("id") Long id, Pageable pageable);
+
+    @Query("select s.fileUrl from Submission s where s.assignment.id in :assignmentIds and s.fileUrl is not null")
+    List<String> findFileUrls(@Param("assignmentIds") Collection<Long> assignmentIds);
+
+    @Modifying
+    @Query("delete from Submission s where s.assignment.id in :assignmentIds")
+    int deleteByAssignmentIds(@Param("assignmentIds") Collection<Long> assignmentIds);
+
+    interface SubmissionFile {
+        Long getId();
+        String getFileUrl();
+    }
+}
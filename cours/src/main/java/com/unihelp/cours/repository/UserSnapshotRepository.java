@@ -0,0 +1,14 @@
+package com.unihelp.cours.repository;
+
+import com.unihelp.cours.entities.UserSnapshot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserSnapshotRepository extends JpaRepository<UserSnapshot, Long> {
+    // Keyset page used by the background refresh
+    List<UserSnapshot> findByUserIdGreaterThanOrderByUserIdAsc(Long userId, Pageable pageable);
+}
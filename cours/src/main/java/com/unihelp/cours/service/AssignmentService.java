@@ -0,0 +1,183 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.dto.GradeUpdate;
+import com.unihelp.cours.entities.Assignment;
+import com.unihelp.cours.entities.Lesson;
+import com.unihelp.cours.entities.Submission;
+import com.unihelp.cours.exception.AssignmentNotFoundException;
+import com.unihelp.cours.exception.LessonNotFoundException;
+import com.unihelp.cours.repository.AssignmentRepository;
+import com.unihelp.cours.repository.LessonRepository;
+import com.unihelp.cours.repository.SubmissionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class AssignmentService {
+
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionRepository submissionRepository;
+    private final LessonRepository lessonRepository;
+    private final AssignmentStatsService assignmentStatsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${cours.uploads.dir:src/main/resources/uploads/}")
+    private String uploadDir;
+
+    @Value("${cours.assignments.grade-batch-size:200}")
+    private int gradeBatchSize;
+
+    // CREATE: Add an assignment to a lesson
+    public Assignment createAssignment(Long lessonId, Assignment assignment) {
+        Lesson lesson = lessonRepository.findById(lessonId)
+                .orElseThrow(() -> new LessonNotFoundException("Lesson not found"));
+        assignment.setId(null);
+        assignment.setLesson(lesson);
+        return assignmentRepository.save(assignment);
+    }
+
+    public List<Assignment> getAssignmentsByLesson(Long lessonId) {
+        return assignmentRepository.findByLessonId(lessonId);
+    }
+
+    public Assignment getAssignment(Long assignmentId) {
+        return assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new AssignmentNotFoundException("Assignment not found"));
+    }
+
+    // SUBMIT: The file is streamed to disk before any transaction is opened, and the insert
+    // touches only the submission row, so concurrent submissions never wait on each other.
+    // The statistics delta is published once the insert has committed
+    public Submission submit(Long assignmentId, Long userId, String content, MultipartFile file) throws IOException {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId is required");
+        }
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new AssignmentNotFoundException("Assignment not found"));
+
+        String fileUrl = null;
+        Path stored = null;
+        if (file != null && !file.isEmpty()) {
+            String originalName = file.getOriginalFilename();
+            String fileExtension = originalName != null && originalName.contains(".")
+                    ? originalName.substring(originalName.lastIndexOf("."))
+                    : "";
+            String fileName = UUID.randomUUID() + fileExtension;
+            stored = Paths.get(uploadDir, "submissions", fileName);
+            Files.createDirectories(stored.getParent());
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, stored);
+            }
+            fileUrl = "/COURS/uploads/submissions/" + fileName;
+        }
+
+        Submission submission = new Submission();
+        submission.setAssignment(assignment);
+        submission.setUserId(userId);
+        submission.setContent(content);
+        submission.setFileUrl(fileUrl);
+        submission.setSubmissionDate(LocalDate.now());
+        try {
+            return transactionTemplate.execute(status -> {
+                Submission saved = submissionRepository.save(submission);
+                long generation = assignmentStatsService.currentGeneration(assignmentId);
+                afterCommit(() -> assignmentStatsService.submissionAdded(assignmentId, generation));
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            if (stored != null) {
+                Files.deleteIfExists(stored);
+            }
+            throw e;
+        }
+    }
+
+    public Page<Submission> getSubmissions(Long assignmentId, Pageable pageable) {
+        if (!assignmentRepository.existsById(assignmentId)) {
+            throw new AssignmentNotFoundException("Assignment not found");
+        }
+        return submissionRepository.findByAssignmentId(assignmentId, pageable);
+    }
+
+    // GRADE: One transaction, one batched UPDATE statement per gradeBatchSize rows; statistics
+    // deltas are only published once the transaction has committed
+    public int gradeSubmissions(Long assignmentId, List<GradeUpdate> updates) {
+        if (!assignmentRepository.existsById(assignmentId)) {
+            throw new AssignmentNotFoundException("Assignment not found");
+        }
+        Map<Long, Double> grades = new LinkedHashMap<>();
+        for (GradeUpdate update : updates) {
+            if (update.getSubmissionId() == null) {
+                throw new IllegalArgumentException("submissionId is required");
+            }
+            Double grade = update.getGrade();
+            if (grade != null && (grade < 0 || grade > 100)) {
+                throw new IllegalArgumentException("Grade must be between 0 and 100");
+            }
+            grades.put(update.getSubmissionId(), grade);
+        }
+        if (grades.isEmpty()) {
+            return 0;
+        }
+
+        Integer updated = transactionTemplate.execute(status -> {
+            // Previous grades are read under the row locks, so a concurrent request that graded the same
+            // submissions has either committed (and its grade is the one replaced here) or waits for us
+            Map<Long, Double> previous = new HashMap<>();
+            submissionRepository.findForUpdate(assignmentId, grades.keySet())
+                    .forEach(submission -> previous.put(submission.getId(), submission.getGrade()));
+            List<Long> unknown = grades.keySet().stream().filter(id -> !previous.containsKey(id)).toList();
+            if (!unknown.isEmpty()) {
+                throw new IllegalArgumentException("Submissions not found for assignment " + assignmentId + ": " + unknown);
+            }
+
+            List<Map.Entry<Long, Double>> rows = new ArrayList<>(grades.entrySet());
+            rows.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+            jdbcTemplate.batchUpdate("UPDATE submission SET grade = ? WHERE id = ? AND assignment_id = ?",
+                    rows, gradeBatchSize, (ps, row) -> {
+                        ps.setObject(1, row.getValue());
+                        ps.setLong(2, row.getKey());
+                        ps.setLong(3, assignmentId);
+                    });
+
+            long generation = assignmentStatsService.currentGeneration(assignmentId);
+            afterCommit(() -> rows.forEach(row -> assignmentStatsService.gradeChanged(
+                    assignmentId, generation, previous.get(row.getKey()), row.getValue())));
+            return rows.size();
+        });
+        return updated != null ? updated : 0;
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,208 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.dto.AssignmentStatsView;
+import com.unihelp.cours.entities.AssignmentStats;
+import com.unihelp.cours.repository.AssignmentStatsRepository;
+import com.unihelp.cours.repository.SubmissionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Keeps count/mean/histogram per assignment up to date from deltas: writers only touch memory,
+// a single scheduled flusher folds the deltas into assignment_stats.
+// Every delta carries the assignment_stats generation its write saw. A rebuild bumps the generation,
+// and a delta of an older generation, on this instance or any other, is already part of the recount
+// and is dropped instead of being applied on top of it
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AssignmentStatsService {
+
+    private final AssignmentStatsRepository assignmentStatsRepository;
+    private final SubmissionRepository submissionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Deltas are only mutated inside ConcurrentHashMap.compute, so flush never loses an update
+    private final ConcurrentHashMap<Long, Delta> pending = new ConcurrentHashMap<>();
+
+    // Must be called in the writer's transaction after its write. A rebuild reads the submissions with
+    // locks, so the write is either waited for and counted by the rebuild (and this read still sees the
+    // old generation), or it waits for the rebuild to commit and sees the new one
+    public long currentGeneration(Long assignmentId) {
+        return assignmentStatsRepository.findGeneration(assignmentId).orElse(0L);
+    }
+
+    public void submissionAdded(Long assignmentId, long generation) {
+        record(assignmentId, generation, d -> d.submissions++);
+    }
+
+    public void gradeChanged(Long assignmentId, long generation, Double oldGrade, Double newGrade) {
+        if (oldGrade == null && newGrade == null) {
+            return;
+        }
+        record(assignmentId, generation, d -> {
+            if (oldGrade != null) {
+                d.graded--;
+                d.gradeSum -= oldGrade;
+                d.histogram[AssignmentStats.bucket(oldGrade)]--;
+            }
+            if (newGrade != null) {
+                d.graded++;
+                d.gradeSum += newGrade;
+                d.histogram[AssignmentStats.bucket(newGrade)]++;
+            }
+        });
+    }
+
+    private void record(Long assignmentId, long generation, Consumer<Delta> change) {
+        pending.compute(assignmentId, (id, delta) -> {
+            if (delta != null && delta.generation > generation) {
+                // Published late by a write the last rebuild has already counted
+                return delta;
+            }
+            Delta d = delta != null && delta.generation == generation ? delta : new Delta(generation);
+            change.accept(d);
+            return d;
+        });
+    }
+
+    public AssignmentStatsView getStats(Long assignmentId) {
+        AssignmentStats stats = assignmentStatsRepository.findById(assignmentId)
+                .orElseGet(() -> new AssignmentStats(assignmentId));
+        Delta unflushed = new Delta(stats.getGeneration());
+        pending.computeIfPresent(assignmentId, (id, delta) -> {
+            if (delta.generation == stats.getGeneration()) {
+                unflushed.add(delta);
+            }
+            return delta;
+        });
+        long submissions = stats.getSubmissionCount() + unflushed.submissions;
+        long graded = stats.getGradedCount() + unflushed.graded;
+        double sum = stats.getGradeSum() + unflushed.gradeSum;
+        long[] histogram = stats.getHistogram().clone();
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] += unflushed.histogram[i];
+        }
+        return new AssignmentStatsView(assignmentId, submissions, graded, graded > 0 ? sum / graded : null, histogram);
+    }
+
+    @Scheduled(fixedDelayString = "${cours.assignments.stats-flush-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Delta> batch = new HashMap<>();
+        for (Long assignmentId : new ArrayList<>(pending.keySet())) {
+            Delta delta = pending.remove(assignmentId);
+            if (delta != null) {
+                batch.put(assignmentId, delta);
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Long> ids = new ArrayList<>(batch.keySet());
+                ids.sort(null); // stable lock order
+                for (Long assignmentId : ids) {
+                    AssignmentStats stats = assignmentStatsRepository.findForUpdate(assignmentId)
+                            .orElseGet(() -> new AssignmentStats(assignmentId));
+                    Delta delta = batch.get(assignmentId);
+                    if (delta.generation != stats.getGeneration()) {
+                        continue;
+                    }
+                    delta.applyTo(stats);
+                    assignmentStatsRepository.save(stats);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush assignment statistics, keeping the deltas for the next run: {}", e.getMessage());
+            batch.forEach((assignmentId, delta) -> pending.merge(assignmentId, delta, (current, failed) -> {
+                if (current.generation != failed.generation) {
+                    return current.generation > failed.generation ? current : failed;
+                }
+                current.add(failed);
+                return current;
+            }));
+        }
+    }
+
+    // Recomputes one assignment from its submissions, e.g. after data was changed outside this service
+    public AssignmentStatsView rebuild(Long assignmentId) {
+        Long generation = transactionTemplate.execute(status -> {
+            AssignmentStats stats = assignmentStatsRepository.findForUpdate(assignmentId)
+                    .orElseGet(() -> new AssignmentStats(assignmentId));
+            List<Double> grades = submissionRepository.findGradesForShare(assignmentId);
+            long[] histogram = new long[AssignmentStats.HISTOGRAM_BUCKETS];
+            long graded = 0;
+            double sum = 0;
+            for (Double grade : grades) {
+                if (grade != null) {
+                    graded++;
+                    sum += grade;
+                    histogram[AssignmentStats.bucket(grade)]++;
+                }
+            }
+            stats.setGeneration(stats.getGeneration() + 1);
+            stats.setSubmissionCount(grades.size());
+            stats.setGradedCount(graded);
+            stats.setGradeSum(sum);
+            stats.setHistogram(histogram);
+            assignmentStatsRepository.save(stats);
+            return stats.getGeneration();
+        });
+        pending.computeIfPresent(assignmentId, (id, delta) -> delta.generation < generation ? null : delta);
+        return getStats(assignmentId);
+    }
+
+    // Unflushed deltas of deleted assignments would otherwise recreate their rows
+    public void assignmentsDeleted(Collection<Long> assignmentIds) {
+        pending.keySet().removeAll(assignmentIds);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private static class Delta {
+        final long generation;
+        long submissions;
+        long graded;
+        double gradeSum;
+        final long[] histogram = new long[AssignmentStats.HISTOGRAM_BUCKETS];
+
+        Delta(long generation) {
+            this.generation = generation;
+        }
+
+        void add(Delta other) {
+            submissions += other.submissions;
+            graded += other.graded;
+            gradeSum += other.gradeSum;
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += other.histogram[i];
+            }
+        }
+
+        void applyTo(AssignmentStats stats) {
+            stats.setSubmissionCount(stats.getSubmissionCount() + submissions);
+            stats.setGradedCount(stats.getGradedCount() + graded);
+            stats.setGradeSum(stats.getGradeSum() + gradeSum);
+            long[] histogram = stats.getHistogram().clone();
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += this.histogram[i];
+            }
+            stats.setHistogram(histogram);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.dto.CategoryFacets;
+import com.unihelp.cours.entities.Course;
+import com.unihelp.cours.enums.Category;
+import com.unihelp.cours.repository.CourseRepository;
+import com.unihelp.cours.repository.CourseRepository.CourseFacet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// In-memory facets over the catalogue: course counts per category and level, and the ids of each
+// category in ascending order. Kept up to date by CourseService and CourseBulkService on this instance;
+// the periodic resync picks up courses changed through other instances
+@Slf4j
+@Service
+public class CategoryIndex {
+
+    private static final NavigableSet<Long> EMPTY = Collections.emptyNavigableSet();
+
+    private final CourseRepository courseRepository;
+
+    // Written under the instance lock only. Listings read the id sets without it, which is why
+    // a rebuild swaps in new instances instead of clearing them
+    private volatile Map<Long, CourseFacetKey> courses = new ConcurrentHashMap<>();
+    private volatile Map<Category, ConcurrentSkipListSet<Long>> idsByCategory = emptyIds();
+    private volatile Map<Category, Map<String, NavigableSet<Long>>> idsByCategoryLevel = emptyLevelIds();
+    private Map<Category, Map<String, Long>> counts = new EnumMap<>(Category.class);
+
+    // Rebuilt on every write, so reading the facets costs O(categories x levels) at most
+    private volatile CategoryFacets facets;
+
+    public CategoryIndex(CourseRepository courseRepository) {
+        this.courseRepository = courseRepository;
+        this.facets = snapshot();
+    }
+
+    public CategoryFacets getFacets() {
+        return facets;
+    }
+
+    // Keyset page of a category: ids after afterId, ascending, optionally of one level only
+    public List<Long> getCourseIds(Category category, String level, Long afterId, int size) {
+        String wanted = normaliseLevel(level);
+        NavigableSet<Long> ids = wanted == null
+                ? idsByCategory.get(category)
+                : idsByCategoryLevel.get(category).getOrDefault(wanted, EMPTY);
+        if (afterId != null) {
+            ids = ids.tailSet(afterId, false);
+        }
+        List<Long> page = new ArrayList<>(size);
+        for (Long id : ids) {
+            if (page.size() >= size) {
+                break;
+            }
+            page.add(id);
+        }
+        return page;
+    }
+
+    public synchronized void courseSaved(Course course) {
+        remove(course.getId());
+        add(course.getId(), course.getCategory(), course.getLevel());
+        facets = snapshot();
+    }
+
+    public synchronized void courseDeleted(Long courseId) {
+        remove(courseId);
+        facets = snapshot();
+    }
+
+    // One projection query over all courses, run at startup and then as a periodic resync. The query
+    // runs under the instance lock: a save or delete reported while it runs waits and is applied on
+    // top of the new index, instead of being applied to the old one and then lost in the swap
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${cours.category-index.resync-ms:300000}",
+            fixedDelayString = "${cours.category-index.resync-ms:300000}")
+    public synchronized void rebuild() {
+        List<CourseFacet> rows;
+        try {
+            rows = courseRepository.findFacets();
+        } catch (RuntimeException e) {
+            log.warn("Failed to build the category index: {}", e.getMessage());
+            return;
+        }
+        courses = new ConcurrentHashMap<>();
+        idsByCategory = emptyIds();
+        idsByCategoryLevel = emptyLevelIds();
+        counts = new EnumMap<>(Category.class);
+        for (CourseFacet row : rows) {
+            add(row.getId(), row.getCategory(), row.getLevel());
+        }
+        facets = snapshot();
+    }
+
+    private void add(Long courseId, Category category, String level) {
+        CourseFacetKey key = new CourseFacetKey(category, normaliseLevel(level));
+        courses.put(courseId, key);
+        if (category != null) {
+            idsByCategory.get(category).add(courseId);
+            if (key.level() != null) {
+                idsByCategoryLevel.get(category)
+                        .computeIfAbsent(key.level(), l -> new ConcurrentSkipListSet<>()).add(courseId);
+            }
+            counts.computeIfAbsent(category, c -> new HashMap<>()).merge(levelKey(key.level()), 1L, Long::sum);
+        }
+    }
+
+    private void remove(Long courseId) {
+        CourseFacetKey key = courses.remove(courseId);
+        if (key == null || key.category() == null) {
+            return;
+        }
+        idsByCategory.get(key.category()).remove(courseId);
+        if (key.level() != null) {
+            // Emptied sets stay until the next rebuild: a listing may still be walking them
+            NavigableSet<Long> levelIds = idsByCategoryLevel.get(key.category()).get(key.level());
+            if (levelIds != null) {
+                levelIds.remove(courseId);
+            }
+        }
+        Map<String, Long> levels = counts.get(key.category());
+        levels.computeIfPresent(levelKey(key.level()), (level, count) -> count > 1 ? count - 1 : null);
+        if (levels.isEmpty()) {
+            counts.remove(key.category());
+        }
+    }
+
+    private CategoryFacets snapshot() {
+        Map<Category, Long> categories = new EnumMap<>(Category.class);
+        Map<String, Long> levels = new TreeMap<>();
+        Map<Category, Map<String, Long>> levelsByCategory = new EnumMap<>(Category.class);
+        long total = courses.size();
+        for (Category category : Category.values()) {
+            Map<String, Long> categoryLevels = new TreeMap<>();
+            long count = 0;
+            for (Map.Entry<String, Long> entry : counts.getOrDefault(category, Map.of()).entrySet()) {
+                count += entry.getValue();
+                if (!entry.getKey().isEmpty()) {
+                    categoryLevels.put(entry.getKey(), entry.getValue());
+                    levels.merge(entry.getKey(), entry.getValue(), Long::sum);
+                }
+            }
+            categories.put(category, count);
+            levelsByCategory.put(category, Collections.unmodifiableMap(categoryLevels));
+        }
+        return new CategoryFacets(total, Collections.unmodifiableMap(categories),
+                Collections.unmodifiableMap(levels), Collections.unmodifiableMap(levelsByCategory));
+    }
+
+    private static Map<Category, ConcurrentSkipListSet<Long>> emptyIds() {
+        Map<Category, ConcurrentSkipListSet<Long>> ids = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            ids.put(category, new ConcurrentSkipListSet<>());
+        }
+        return ids;
+    }
+
+    private static Map<Category, Map<String, NavigableSet<Long>>> emptyLevelIds() {
+        Map<Category, Map<String, NavigableSet<Long>>> ids = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            ids.put(category, new ConcurrentHashMap<>());
+        }
+        return ids;
+    }
+
+    private static String normaliseLevel(String level) {
+        return level == null || level.isBlank() ? null : level.trim();
+    }
+
+    // Courses without a level count towards their category but no level
+    private static String levelKey(String level) {
+        return level != null ? level : "";
+    }
+
+    private record CourseFacetKey(Category category, String level) {
+    }
+}
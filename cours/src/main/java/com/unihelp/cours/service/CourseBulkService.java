@@ -0,0 +1,262 @@
+package com.unihelp.cours.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.unihelp.cours.clients.UserRestClient;
+import com.unihelp.cours.dto.ImportReport;
+import com.unihelp.cours.entities.Course;
+import com.unihelp.cours.entities.Lesson;
+import com.unihelp.cours.entities.Module;
+import com.unihelp.cours.model.Role;
+import com.unihelp.cours.model.User;
+import com.unihelp.cours.repository.CourseRepository;
+import com.unihelp.cours.repository.CourseRepository.CourseTitle;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class CourseBulkService {
+
+    private final CourseRepository courseRepository;
+    private final UserRestClient userRestClient;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CourseSummaryService courseSummaryService;
+    private final CategoryIndex categoryIndex;
+
+    @Value("${cours.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    // IMPORT: Read courses (JSON array or NDJSON) one by one and persist them chunk by chunk
+    public ImportReport importCourses(InputStream in) throws IOException {
+        try (MappingIterator<Course> courses = objectMapper.readerFor(Course.class).readValues(in)) {
+            return importCourses(() -> courses.hasNextValue() ? courses.nextValue() : null);
+        }
+    }
+
+    // Same chunked import for courses already in memory (seed data)
+    public ImportReport importCourses(List<Course> courses) {
+        Iterator<Course> iterator = courses.iterator();
+        try {
+            return importCourses(() -> iterator.hasNext() ? iterator.next() : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ImportReport importCourses(CourseReader courses) throws IOException {
+        ImportReport report = new ImportReport();
+        Set<Long> instructors = new HashSet<>();
+        Set<Long> rejectedInstructors = new HashSet<>();
+        Set<String> titles = new HashSet<>();
+        List<Course> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+
+        for (Course course = courses.next(); course != null; course = courses.next()) {
+            course.setId(null);
+            course.setUser(null);
+            if (course.getUserId() == null) {
+                report.getRejected().add("#" + index + ": User ID is required to create a course");
+            } else {
+                chunk.add(course);
+            }
+            index++;
+            if (chunk.size() >= chunkSize) {
+                persistChunk(chunk, instructors, rejectedInstructors, titles, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            persistChunk(chunk, instructors, rejectedInstructors, titles, report);
+        }
+        return report;
+    }
+
+    // Next course to import, null once the input is exhausted
+    private interface CourseReader {
+        Course next() throws IOException;
+    }
+
+    // Courses whose title their instructor already uses (uk_course_title_user) are rejected rather than
+    // failing the chunk, as the chunks before it are committed already
+    private void persistChunk(List<Course> chunk, Set<Long> instructors, Set<Long> rejectedInstructors,
+                              Set<String> titles, ImportReport report) {
+        validateInstructors(chunk, instructors, rejectedInstructors);
+
+        List<Course> accepted = new ArrayList<>(chunk.size());
+        for (Course course : chunk) {
+            if (!instructors.contains(course.getUserId())) {
+                report.getRejected().add("\"" + course.getTitle() + "\": instructor " + course.getUserId()
+                        + " not found or not allowed to create courses");
+            } else if (course.getTitle() != null && !titles.add(titleKey(course.getUserId(), course.getTitle()))) {
+                report.getRejected().add(duplicateTitle(course));
+            } else {
+                accepted.add(course);
+            }
+        }
+        rejectExistingTitles(accepted, report);
+
+        List<Course> persisted = accepted;
+        try {
+            persist(accepted);
+        } catch (DataIntegrityViolationException e) {
+            // One of the titles was taken meanwhile: the chunk was rolled back, retry it course by course
+            persisted = new ArrayList<>(accepted.size());
+            for (Course course : accepted) {
+                try {
+                    persist(List.of(course));
+                    persisted.add(course);
+                } catch (DataIntegrityViolationException duplicate) {
+                    report.getRejected().add(duplicateTitle(course));
+                }
+            }
+        }
+
+        for (Course course : persisted) {
+            categoryIndex.courseSaved(course);
+            report.setCourses(report.getCourses() + 1);
+            for (Module module : course.getModules()) {
+                report.setModules(report.getModules() + 1);
+                if (module.getLessons() != null) {
+                    report.setLessons(report.getLessons() + module.getLessons().size());
+                }
+            }
+        }
+    }
+
+    private void persist(List<Course> courses) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Course course : courses) {
+                prepareTree(course);
+                entityManager.persist(course);
+            }
+            entityManager.flush();
+            courseSummaryService.recount(courses.stream().map(Course::getId).toList());
+            entityManager.clear();
+        });
+    }
+
+    // One title lookup per chunk
+    private void rejectExistingTitles(List<Course> accepted, ImportReport report) {
+        Set<Long> userIds = new HashSet<>();
+        Set<String> titles = new HashSet<>();
+        for (Course course : accepted) {
+            if (course.getTitle() != null) {
+                userIds.add(course.getUserId());
+                titles.add(course.getTitle());
+            }
+        }
+        if (titles.isEmpty()) {
+            return;
+        }
+        Set<String> taken = new HashSet<>();
+        for (CourseTitle title : courseRepository.findTitles(userIds, titles)) {
+            taken.add(titleKey(title.getUserId(), title.getTitle()));
+        }
+        accepted.removeIf(course -> {
+            if (course.getTitle() == null || !taken.contains(titleKey(course.getUserId(), course.getTitle()))) {
+                return false;
+            }
+            report.getRejected().add(duplicateTitle(course));
+            return true;
+        });
+    }
+
+    // Approximates the column's case-insensitive collation; the unique key has the last word
+    private static String titleKey(Long userId, String title) {
+        return userId + ":" + title.toLowerCase(Locale.ROOT);
+    }
+
+    private static String duplicateTitle(Course course) {
+        return "\"" + course.getTitle() + "\": instructor " + course.getUserId() + " already has a course with this title";
+    }
+
+    // One user lookup per chunk, only for instructors not seen yet
+    private void validateInstructors(List<Course> chunk, Set<Long> instructors, Set<Long> rejectedInstructors) {
+        Set<Long> unknown = new HashSet<>();
+        for (Course course : chunk) {
+            Long userId = course.getUserId();
+            if (!instructors.contains(userId) && !rejectedInstructors.contains(userId)) {
+                unknown.add(userId);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+        for (User user : userRestClient.findUsersByIds(unknown)) {
+            if (user.getRole() == Role.ADMIN || user.getRole() == Role.MENTOR) {
+                instructors.add(user.getId());
+            }
+        }
+        unknown.removeAll(instructors);
+        rejectedInstructors.addAll(unknown);
+    }
+
+    // Also resets ids assigned by a rolled back attempt
+    private void prepareTree(Course course) {
+        course.setId(null);
+        if (course.getModules() == null) {
+            course.setModules(new ArrayList<>());
+        }
+        for (Module module : course.getModules()) {
+            module.setId(null);
+            module.setCourse(course);
+            if (module.getLessons() != null) {
+                for (Lesson lesson : module.getLessons()) {
+                    lesson.setId(null);
+                    lesson.setModule(module);
+                }
+            }
+        }
+    }
+
+    // EXPORT: Write the whole catalogue as NDJSON, one keyset page of courses at a time
+    public void exportCourses(OutputStream out) throws IOException {
+        SequenceWriter writer = objectMapper.writerFor(Course.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+        long lastId = 0L;
+        while (true) {
+            long from = lastId;
+            Long last = transactionTemplate.execute(status -> {
+                List<Course> page = courseRepository.findByIdGreaterThanOrderByIdAsc(from, PageRequest.of(0, chunkSize));
+                try {
+                    for (Course course : page) {
+                        writer.write(course);
+                    }
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to write course export", e);
+                }
+                entityManager.clear();
+                return page.isEmpty() ? null : page.get(page.size() - 1).getId();
+            });
+            if (last == null) {
+                break;
+            }
+            lastId = last;
+        }
+        writer.close();
+    }
+}
@@ -0,0 +1,15 @@
+package com.unihelp.cours.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+// Courses to seed the catalogue with, in the bulk import format (NDJSON or a JSON array);
+// every CourseSeedSource bean is applied by CourseSeeder
+public interface CourseSeedSource {
+
+    String name();
+
+    // Empty when the source has nothing to offer, e.g. its file does not exist
+    Optional<InputStream> open() throws IOException;
+}
@@ -0,0 +1,154 @@
+package com.unihelp.cours.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unihelp.cours.clients.UserRestClient;
+import com.unihelp.cours.dto.ImportReport;
+import com.unihelp.cours.entities.Course;
+import com.unihelp.cours.entities.SeedRun;
+import com.unihelp.cours.model.User;
+import com.unihelp.cours.repository.CourseRepository;
+import com.unihelp.cours.repository.SeedRunRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Seeds the catalogue in the background once the service is ready, so startup never waits on the
+// user service. Each source is imported once, recorded in seed_run; courses already present (same
+// title and instructor, uk_course_title_user) are skipped, which makes a retry after a partial import
+// harmless. Failures are retried with exponential backoff.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseSeeder {
+
+    private final List<CourseSeedSource> sources;
+    private final CourseBulkService courseBulkService;
+    private final CourseRepository courseRepository;
+    private final SeedRunRepository seedRunRepository;
+    private final UserRestClient userRestClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cours.seed.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cours.seed.max-attempts:20}")
+    private int maxAttempts;
+
+    @Value("${cours.seed.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+
+    @Value("${cours.seed.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-seeder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            executor.execute(() -> attempt(1));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    private void attempt(int attempt) {
+        try {
+            seed();
+        } catch (IOException | RuntimeException e) {
+            if (attempt >= maxAttempts) {
+                log.error("Course seeding abandoned after {} attempts: {}", attempt, e.getMessage());
+                return;
+            }
+            long delay = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+            log.warn("Course seeding attempt {} failed ({}), retrying in {} ms", attempt, e.getMessage(), delay);
+            executor.schedule(() -> attempt(attempt + 1), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void seed() throws IOException {
+        if (seedRunRepository.count() == 0 && courseRepository.count() > 0) {
+            // Catalogue filled before seed runs were recorded (the former startup runner only seeded
+            // an empty table): take every source as done rather than re-adding deleted courses
+            sources.forEach(source -> seedRunRepository.save(
+                    new SeedRun(source.name(), LocalDateTime.now(), LocalDateTime.now())));
+            return;
+        }
+        for (CourseSeedSource source : sources) {
+            SeedRun run = seedRunRepository.findById(source.name()).orElse(null);
+            if (run != null && run.getCompletedAt() != null) {
+                continue;
+            }
+            Optional<InputStream> in = source.open();
+            if (in.isEmpty()) {
+                continue;
+            }
+            List<Course> courses;
+            try (InputStream stream = in.get();
+                 MappingIterator<Course> iterator = objectMapper.readerFor(Course.class).readValues(stream)) {
+                courses = iterator.readAll();
+            }
+            if (run == null) {
+                run = seedRunRepository.save(new SeedRun(source.name(), LocalDateTime.now(), null));
+            }
+            importMissing(source, courses);
+            run.setCompletedAt(LocalDateTime.now());
+            seedRunRepository.save(run);
+        }
+    }
+
+    private void importMissing(CourseSeedSource source, List<Course> courses) {
+        List<Course> missing = courses.stream()
+                .filter(course -> course.getUserId() != null)
+                .filter(course -> !courseRepository.existsByTitleAndUserId(course.getTitle(), course.getUserId()))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        requireInstructors(missing);
+
+        ImportReport report = courseBulkService.importCourses(missing);
+        log.info("Seeded {} courses from {}{}", report.getCourses(), source.name(),
+                report.getRejected().isEmpty() ? "" : ", rejected: " + report.getRejected());
+    }
+
+    // Seeds only against live profiles: stale snapshots mean the user service is down, and missing
+    // instructors may simply not be registered yet, so both are retried rather than seeded around
+    private void requireInstructors(List<Course> courses) {
+        Set<Long> ids = courses.stream().map(Course::getUserId).collect(Collectors.toSet());
+        Set<Long> found = new HashSet<>();
+        for (User user : userRestClient.findUsersByIds(ids)) {
+            if (user.isStale()) {
+                throw new IllegalStateException("user service unavailable");
+            }
+            found.add(user.getId());
+        }
+        ids.removeAll(found);
+        if (!ids.isEmpty()) {
+            throw new IllegalStateException("instructors " + ids + " not found");
+        }
+    }
+}
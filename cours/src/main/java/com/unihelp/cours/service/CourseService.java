@@ -3,13 +3,24 @@ package com.unihelp.cours.service;
 import com.unihelp.cours.clients.UserRestClient;
 import com.unihelp.cours.entities.Course;
 import com.unihelp.cours.exception.CourseNotFoundException;
+import com.unihelp.cours.exception.DuplicateCourseException;
 import com.unihelp.cours.model.Role;
 import com.unihelp.cours.model.User;
 import com.unihelp.cours.repository.CourseRepository;
+import feign.FeignException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -17,47 +28,79 @@ public class CourseService {
 
     private final CourseRepository courseRepository;
     private final UserRestClient userRestClient;
+    private final EnrollmentService enrollmentService;
+    private final CourseVersionService courseVersionService;
+    private final RequestCoalescer requestCoalescer;
+    private final PlatformTransactionManager transactionManager;
+    private final CourseTreeDeleter courseTreeDeleter;
+    private final CourseSummaryService courseSummaryService;
+    private final CategoryIndex categoryIndex;
 
     public Course createCourse(Course course) {
         if (course.getUserId() == null) {
             throw new IllegalArgumentException("User ID is required to create a course");
         }
-        User instructor = userRestClient.findUserById(course.getUserId());
+        User instructor = findInstructor(course.getUserId());
         if (instructor == null) {
             throw new IllegalArgumentException("User not found with ID: " + course.getUserId());
         }
         if (instructor.getRole() != Role.ADMIN && instructor.getRole() != Role.MENTOR) {
             throw new IllegalArgumentException("Only instructors with the role 'ADMIN' or 'MENTOR' can create courses");
         }
+        if (courseRepository.existsByTitleAndUserId(course.getTitle(), course.getUserId())) {
+            throw duplicateTitle(course.getTitle());
+        }
 
         course.setUser(instructor);
-        return courseRepository.save(course);
+        Course saved;
+        try {
+            saved = courseRepository.save(course);
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently; uk_course_title_user decided
+            throw duplicateTitle(course.getTitle());
+        }
+        // The request body may already carry modules and lessons
+        courseSummaryService.recount(List.of(saved.getId()));
+        categoryIndex.courseSaved(saved);
+        return saved;
     }
 
 
+    // Concurrent reads of the same course share one load and one instructor lookup
     public Course getCourseWithInstructor(Long courseId) {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new CourseNotFoundException("Course not found"));
+        return requestCoalescer.execute("course", courseId, () -> loadCourseWithInstructor(courseId));
+    }
+
+    private Course loadCourseWithInstructor(Long courseId) {
+        // The instance is serialised by other request threads too, so nothing may be left lazy
+        Course course = readOnlyTransaction().execute(status -> {
+            Course loaded = courseRepository.findById(courseId)
+                    .orElseThrow(() -> new CourseNotFoundException("Course not found"));
+            loaded.getModules().forEach(module -> Hibernate.initialize(module.getLessons()));
+            return loaded;
+        });
 
-        User instructor = userRestClient.findUserById(course.getUserId());
+        User instructor = findInstructor(course.getUserId());
         course.setUser(instructor);
         return course;
     }
 
 
+    // open-in-view is off, so the modules and lessons that get serialised are loaded here (in batches,
+    // default_batch_fetch_size) rather than lazily by Jackson
     public List<Course> getAllCourses() {
-        List<Course> courses = courseRepository.findAll();
+        List<Course> courses = readOnlyTransaction().execute(status -> initializeTrees(courseRepository.findAll()));
         courses.forEach(course -> {
-            User instructor = userRestClient.findUserById(course.getUserId());
+            User instructor = findInstructor(course.getUserId());
             course.setUser(instructor);
         });
         return courses;
     }
 
     public List<Course> getCoursesByInstructor(Long UserId) {
-        List<Course> courses = courseRepository.findByUserId(UserId);
+        List<Course> courses = readOnlyTransaction().execute(status -> initializeTrees(courseRepository.findByUserId(UserId)));
         courses.forEach(course -> {
-            User instructor = userRestClient.findUserById(course.getUserId());
+            User instructor = findInstructor(course.getUserId());
             course.setUser(instructor);
         });
         return courses;
@@ -65,21 +108,79 @@ public class CourseService {
 
 
 
-    public Course updateCourse(Long courseId, Course updatedCourse) {
+    @Transactional
+    public Course updateCourse(Long courseId, Course updatedCourse, String ifMatch) {
         Course existing = courseRepository.findById(courseId)
                 .orElseThrow(() -> new CourseNotFoundException("Course not found"));
+        if (updatedCourse.getVersion() != null && !updatedCourse.getVersion().equals(existing.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Course.class, courseId);
+        }
+        courseVersionService.bump(courseId, ifMatch);
 
+        if (!Objects.equals(existing.getTitle(), updatedCourse.getTitle()) && courseRepository
+                .existsByTitleAndUserIdAndIdNot(updatedCourse.getTitle(), existing.getUserId(), courseId)) {
+            throw duplicateTitle(updatedCourse.getTitle());
+        }
         existing.setTitle(updatedCourse.getTitle());
         existing.setDescription(updatedCourse.getDescription());
         existing.setPrice(updatedCourse.getPrice());
-        return courseRepository.save(existing);
+        // Clients that do not manage seats leave capacity out; that keeps the current one
+        if (updatedCourse.getCapacity() != null) {
+            enrollmentService.changeCapacity(courseId, updatedCourse.getCapacity());
+            existing.setCapacity(updatedCourse.getCapacity());
+        }
+        Course saved;
+        try {
+            saved = courseRepository.saveAndFlush(existing);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateTitle(updatedCourse.getTitle());
+        }
+        initializeTrees(List.of(saved));
+        afterCommit(() -> categoryIndex.courseSaved(saved));
+        return saved;
     }
 
 
-    public void deleteCourse(Long courseId) {
-        courseRepository.deleteById(courseId);
+    @Transactional
+    public void deleteCourse(Long courseId, String ifMatch) {
+        courseVersionService.bump(courseId, ifMatch);
+        courseTreeDeleter.deleteCourse(courseId);
+        enrollmentService.courseDeleted(courseId);
+        courseSummaryService.courseDeleted(courseId);
+        afterCommit(() -> categoryIndex.courseDeleted(courseId));
     }
 
+    // null when USER answers that the instructor does not exist
+    private User findInstructor(Long userId) {
+        try {
+            return userRestClient.findUserById(userId);
+        } catch (FeignException.NotFound e) {
+            return null;
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
+    private static List<Course> initializeTrees(List<Course> courses) {
+        courses.forEach(course -> course.getModules().forEach(module -> Hibernate.initialize(module.getLessons())));
+        return courses;
+    }
 
-}
\ No newline at end of file
+    // Read-only, so that it can be served by a replica when routing is enabled (DataSourceRoutingConfig)
+    private static DuplicateCourseException duplicateTitle(String title) {
+        return new DuplicateCourseException("This instructor already has a course titled '" + title + "'");
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+}
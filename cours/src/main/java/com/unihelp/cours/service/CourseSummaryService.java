@@ -0,0 +1,185 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.dto.CatalogueCard;
+import com.unihelp.cours.entities.CourseSummary;
+import com.unihelp.cours.entities.Lesson;
+import com.unihelp.cours.repository.CourseRepository;
+import com.unihelp.cours.repository.CourseSummaryRepository;
+import com.unihelp.cours.repository.CourseSummaryRepository.CourseTotals;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Keeps course_summary in step with module and lesson writes. Additions are applied as increments;
+// bulk deletions (CourseTreeDeleter) recount the course instead. Writers of one course are serialised
+// by the tree_version bump on its row, and a recount locks that row too, so that the rebuild, which
+// bumps nothing, cannot overwrite an increment committed while it counted
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseSummaryService {
+
+    private static final String REBUILD_JOB = "course-summary-rebuild";
+
+    private final CourseSummaryRepository courseSummaryRepository;
+    private final CourseRepository courseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLockService jobLockService;
+
+    @Value("${cours.summary.rebuild-chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${cours.summary.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Value("${cours.summary.rebuild-lease:PT5M}")
+    private Duration rebuildLease;
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-summary-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public Page<CatalogueCard> getCatalogue(Pageable pageable) {
+        return courseSummaryRepository.findCatalogue(pageable);
+    }
+
+    public List<CatalogueCard> getCards(List<Long> courseIds) {
+        return courseIds.isEmpty() ? List.of() : courseSummaryRepository.findCatalogueByIds(courseIds);
+    }
+
+    @Transactional
+    public void moduleAdded(Long courseId) {
+        if (courseSummaryRepository.addModule(courseId) == 0) {
+            recount(List.of(courseId));
+        }
+    }
+
+    @Transactional
+    public void lessonAdded(Long courseId, Lesson lesson) {
+        long videos = "video".equals(lesson.getContentType()) ? 1 : 0;
+        long pdfs = "pdf".equals(lesson.getContentType()) ? 1 : 0;
+        long bytes = lesson.getSizeBytes() != null ? lesson.getSizeBytes() : 0;
+        if (courseSummaryRepository.addLesson(courseId, videos, pdfs, bytes) == 0) {
+            recount(List.of(courseId));
+        }
+    }
+
+    @Transactional
+    public void courseDeleted(Long courseId) {
+        courseSummaryRepository.deleteAllByIdInBatch(List.of(courseId));
+    }
+
+    // Recomputes the given courses from their modules and lessons, one grouped query for all of them
+    @Transactional
+    public void recount(Collection<Long> courseIds) {
+        if (courseIds.isEmpty()) {
+            return;
+        }
+        courseRepository.lockByIds(courseIds);
+        Map<Long, CourseTotals> totals = courseSummaryRepository.computeTotals(courseIds).stream()
+                .collect(Collectors.toMap(CourseTotals::getCourseId, Function.identity()));
+        Map<Long, CourseSummary> existing = courseSummaryRepository.findAllById(courseIds).stream()
+                .collect(Collectors.toMap(CourseSummary::getCourseId, Function.identity()));
+        for (Long courseId : courseIds) {
+            CourseSummary summary = existing.getOrDefault(courseId, new CourseSummary(courseId));
+            CourseTotals total = totals.get(courseId);
+            summary.setModuleCount(total != null ? total.getModuleCount() : 0);
+            summary.setLessonCount(total != null ? total.getLessonCount() : 0);
+            summary.setVideoCount(total != null ? total.getVideoCount() : 0);
+            summary.setPdfCount(total != null ? total.getPdfCount() : 0);
+            summary.setMediaBytes(total != null ? total.getMediaBytes() : 0);
+            courseSummaryRepository.save(summary);
+        }
+    }
+
+    // Starts a rebuild in the background, unless one is already waiting or running on this instance
+    public void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    rebuildExclusively();
+                } finally {
+                    rebuildQueued.set(false);
+                }
+            });
+        }
+    }
+
+    // Batch job: recounts every course, one keyset page of ids per transaction. Runs on one instance
+    // at a time, the others skip it while the lease is held; the lease is renewed after every page
+    @Scheduled(cron = "${cours.summary.rebuild-cron:-}")
+    public void rebuildExclusively() {
+        if (!jobLockService.tryAcquire(REBUILD_JOB, rebuildLease)) {
+            log.info("Course summary rebuild skipped, another instance is running it");
+            return;
+        }
+        try {
+            long courses = 0;
+            long lastId = 0L;
+            while (true) {
+                List<Long> ids = courseRepository.findIdsGreaterThan(lastId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> recount(ids));
+                courses += ids.size();
+                lastId = ids.get(ids.size() - 1);
+                if (!jobLockService.tryAcquire(REBUILD_JOB, rebuildLease)) {
+                    log.warn("Course summary rebuild stopped after {} courses, its lease was taken over", courses);
+                    return;
+                }
+            }
+            log.info("Rebuilt course summaries for {} courses", courses);
+        } catch (RuntimeException e) {
+            log.warn("Course summary rebuild failed: {}", e.getMessage());
+        } finally {
+            jobLockService.release(REBUILD_JOB);
+        }
+    }
+
+    // Fills the table for courses created before summaries existed; with several instances starting
+    // together, one of them does it
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (rebuildOnStartup) {
+            executor.execute(() -> {
+                try {
+                    if (courseSummaryRepository.count() < courseRepository.count()) {
+                        rebuildExclusively();
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Course summary rebuild failed: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+}
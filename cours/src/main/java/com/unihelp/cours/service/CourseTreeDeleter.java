@@ -0,0 +1,152 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.cache.CourseCacheInvalidator;
+import com.unihelp.cours.entities.Lesson;
+import com.unihelp.cours.entities.Module;
+import com.unihelp.cours.repository.AssignmentRepository;
+import com.unihelp.cours.repository.AssignmentStatsRepository;
+import com.unihelp.cours.repository.CourseProgressRepository;
+import com.unihelp.cours.repository.CourseRepository;
+import com.unihelp.cours.repository.LessonProgressRepository;
+import com.unihelp.cours.repository.LessonRepository;
+import com.unihelp.cours.repository.LessonRepository.LessonMedia;
+import com.unihelp.cours.repository.ModuleRepository;
+import com.unihelp.cours.repository.OptionRepository;
+import com.unihelp.cours.repository.QuestionRepository;
+import com.unihelp.cours.repository.QuizAttemptRepository;
+import com.unihelp.cours.repository.QuizRepository;
+import com.unihelp.cours.repository.SubmissionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Deletes a course, module or lesson with everything below it as one set-based statement per table,
+// children first, instead of letting the cascades load and remove the tree row by row. Files are
+// only handed to MediaGarbageCollector, and caches only told, once the transaction commits
+@Service
+@RequiredArgsConstructor
+public class CourseTreeDeleter {
+
+    private final CourseRepository courseRepository;
+    private final ModuleRepository moduleRepository;
+    private final LessonRepository lessonRepository;
+    private final QuizRepository quizRepository;
+    private final QuestionRepository questionRepository;
+    private final OptionRepository optionRepository;
+    private final QuizAttemptRepository quizAttemptRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionRepository submissionRepository;
+    private final AssignmentStatsRepository assignmentStatsRepository;
+    private final LessonProgressRepository lessonProgressRepository;
+    private final CourseProgressRepository courseProgressRepository;
+    private final AssignmentStatsService assignmentStatsService;
+    private final QuizService quizService;
+    private final LessonProgressService lessonProgressService;
+    private final MediaGarbageCollector mediaGarbageCollector;
+    private final CourseCacheInvalidator courseCacheInvalidator;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteCourse(Long courseId) {
+        List<Long> moduleIds = moduleRepository.findIdsByCourseId(courseId);
+        deleteLessons(lessonRepository.findMediaByCourseId(courseId));
+        deleteModules(courseId, moduleIds);
+        courseProgressRepository.deleteByCourseId(courseId);
+        courseRepository.deleteAllByIdInBatch(List.of(courseId));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteModule(Long courseId, Long moduleId) {
+        deleteLessons(lessonRepository.findMediaByModuleId(moduleId));
+        deleteModules(courseId, List.of(moduleId));
+        recountProgress(courseId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteLesson(Lesson lesson) {
+        List<String> files = new ArrayList<>();
+        files.add(lesson.getContentUrl());
+        files.add(lesson.getThumbnailUrl());
+        deleteLessons(Map.of(lesson.getId(), lesson.getModule().getId()), files);
+        recountProgress(lesson.getModule().getCourse().getId());
+    }
+
+    // The deleted lessons' completions no longer count towards course_progress. Completions are locked
+    // first, in the order a flush takes them (lesson_progress, then course_progress), so a concurrent
+    // flush either is counted here or increments on top of the recount
+    private void recountProgress(Long courseId) {
+        lessonProgressRepository.lockCompletedByCourseId(courseId);
+        courseProgressRepository.recountByCourseId(courseId);
+    }
+
+    private void deleteLessons(List<LessonMedia> lessons) {
+        Map<Long, Long> lessonModules = new LinkedHashMap<>();
+        List<String> files = new ArrayList<>();
+        for (LessonMedia lesson : lessons) {
+            lessonModules.put(lesson.getId(), lesson.getModuleId());
+            files.add(lesson.getContentUrl());
+            files.add(lesson.getThumbnailUrl());
+        }
+        if (!lessonModules.isEmpty()) {
+            deleteLessons(lessonModules, files);
+        }
+    }
+
+    // lessonModules: id of every lesson to delete -> id of its module
+    private void deleteLessons(Map<Long, Long> lessonModules, List<String> files) {
+        List<Long> lessonIds = new ArrayList<>(lessonModules.keySet());
+        List<Long> quizIds = quizRepository.findIdsByLessonIds(lessonIds);
+        if (!quizIds.isEmpty()) {
+            optionRepository.deleteByQuizIds(quizIds);
+            questionRepository.deleteByQuizIds(quizIds);
+            quizAttemptRepository.deleteByQuizIds(quizIds);
+            quizRepository.deleteAllByIdInBatch(quizIds);
+        }
+
+        List<Long> assignmentIds = assignmentRepository.findIdsByLessonIds(lessonIds);
+        if (!assignmentIds.isEmpty()) {
+            files.addAll(submissionRepository.findFileUrls(assignmentIds));
+            submissionRepository.deleteByAssignmentIds(assignmentIds);
+            assignmentStatsRepository.deleteAllByIdInBatch(assignmentIds);
+            assignmentRepository.deleteAllByIdInBatch(assignmentIds);
+        }
+
+        lessonProgressRepository.deleteByLessonIds(lessonIds);
+        lessonRepository.deleteAllByIdInBatch(lessonIds);
+
+        mediaGarbageCollector.deleteAfterCommit(files.stream().filter(Objects::nonNull).toList());
+        afterCommit(() -> {
+            assignmentStatsService.assignmentsDeleted(assignmentIds);
+            quizService.evict(quizIds);
+            lessonProgressService.lessonsDeleted(lessonIds);
+            courseCacheInvalidator.evictDeleted(Lesson.class, lessonModules);
+        });
+    }
+
+    private void deleteModules(Long courseId, List<Long> moduleIds) {
+        if (moduleIds.isEmpty()) {
+            return;
+        }
+        moduleRepository.deleteAllByIdInBatch(moduleIds);
+        Map<Long, Long> moduleCourses = new LinkedHashMap<>();
+        moduleIds.forEach(moduleId -> moduleCourses.put(moduleId, courseId));
+        afterCommit(() -> courseCacheInvalidator.evictDeleted(Module.class, moduleCourses));
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
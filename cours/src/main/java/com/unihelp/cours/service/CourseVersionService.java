@@ -0,0 +1,117 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.cache.CourseCacheInvalidator;
+import com.unihelp.cours.exception.CourseNotFoundException;
+import com.unihelp.cours.exception.PreconditionFailedException;
+import com.unihelp.cours.exception.PreconditionRequiredException;
+import com.unihelp.cours.repository.CourseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// ETags of a course tree: "<courseId>.<treeVersion>", where course.tree_version is bumped in the same
+// transaction as any change to the course, its modules or their lessons
+@Service
+@RequiredArgsConstructor
+public class CourseVersionService {
+
+    private final CourseRepository courseRepository;
+    private final CourseCacheInvalidator courseCacheInvalidator;
+    private final RequestCoalescer requestCoalescer;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${cours.etag.require-if-match:false}")
+    private boolean requireIfMatch;
+
+    // One indexed single-column read, cheap enough to run before every conditional GET
+    public String etag(Long courseId) {
+        long treeVersion = courseRepository.findTreeVersion(courseId)
+                .orElseThrow(() -> new CourseNotFoundException("Course not found"));
+        return etag(courseId, treeVersion);
+    }
+
+    // For bodies read together with their tree version
+    public String etag(Long courseId, long treeVersion) {
+        return "\"" + courseId + "." + treeVersion + "\"";
+    }
+
+    // For conditional GETs: concurrent revalidations of the same course share one lookup. It only
+    // decides whether to answer 304; a body goes out with the version it was read at. The lookup is
+    // read-only like the body loads, so both are routed to the same database (a replica, unless the
+    // client has just written). Responses to writes use etag() instead, on the primary, as a shared
+    // lookup may have started before their commit
+    public String sharedEtag(Long courseId) {
+        return requestCoalescer.execute("tree-version", courseId, () -> readOnlyTransaction().execute(status -> etag(courseId)));
+    }
+
+    // Checks If-Match and bumps the tree version atomically, so two writers holding the same
+    // ETag cannot both succeed
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bump(Long courseId, String ifMatch) {
+        bumpTo(courseId, expectedVersion(courseId, ifMatch));
+    }
+
+    // For creations, which carry no If-Match
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void touch(Long courseId) {
+        bumpTo(courseId, null);
+    }
+
+    private void bumpTo(Long courseId, Long expected) {
+        int updated = expected == null
+                ? courseRepository.bumpTreeVersion(courseId)
+                : courseRepository.bumpTreeVersionIfMatches(courseId, expected);
+        if (updated == 0) {
+            if (expected == null) {
+                throw new CourseNotFoundException("Course not found");
+            }
+            throw new PreconditionFailedException("Course " + courseId + " was modified, current ETag is " + etag(courseId));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                courseCacheInvalidator.evictCourse(courseId);
+            }
+        });
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private Long expectedVersion(Long courseId, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            if (requireIfMatch) {
+                throw new PreconditionRequiredException("If-Match header is required");
+            }
+            return null;
+        }
+        String prefix = courseId + ".";
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            tag = tag.replace("\"", "");
+            if (tag.startsWith(prefix)) {
+                try {
+                    return Long.parseLong(tag.substring(prefix.length()));
+                } catch (NumberFormatException e) {
+                    break;
+                }
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not match course " + courseId + ", current ETag is " + etag(courseId));
+    }
+}
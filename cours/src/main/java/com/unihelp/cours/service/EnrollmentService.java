@@ -0,0 +1,229 @@
+package com.unihelp.cours.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unihelp.cours.dto.EnrollmentView;
+import com.unihelp.cours.dto.SeatCount;
+import com.unihelp.cours.entities.Enrollment;
+import com.unihelp.cours.entities.SeatBucket;
+import com.unihelp.cours.exception.CourseFullException;
+import com.unihelp.cours.exception.CourseNotFoundException;
+import com.unihelp.cours.repository.CourseRepository;
+import com.unihelp.cours.repository.CourseRepository.CourseSeats;
+import com.unihelp.cours.repository.EnrollmentRepository;
+import com.unihelp.cours.repository.SeatBucketRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// A seat is claimed by a conditional update of one of the course's seat buckets in the same transaction
+// as the student's enrollment row, so capacity holds across every replica and a failed insert gives the
+// seat back. Each enrolment starts at a random bucket, so a popular course spreads its enrolments over
+// SEAT_BUCKETS rows instead of queueing them all on the course row. Counts are only read from the
+// buckets, never from the cached Course, so no cache needs evicting when they change
+@Service
+@RequiredArgsConstructor
+public class EnrollmentService {
+
+    static final int SEAT_BUCKETS = 16;
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final CourseRepository courseRepository;
+    private final SeatBucketRepository seatBucketRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${cours.enrollment.user-cache-size:100000}")
+    private long userCacheSize;
+
+    // userId -> sorted ids of the courses the user is enrolled in, replaced on every change
+    private Cache<Long, long[]> enrolledCourses;
+
+    @PostConstruct
+    void createCache() {
+        enrolledCourses = Caffeine.newBuilder()
+                .maximumSize(userCacheSize)
+                .build();
+    }
+
+    public EnrollmentView enroll(Long courseId, Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId is required");
+        }
+        if (isEnrolled(courseId, userId)) {
+            return existing(courseId, userId);
+        }
+
+        Enrollment enrollment;
+        try {
+            enrollment = transactionTemplate.execute(status -> {
+                if (!reserveSeat(courseId)) {
+                    throw new CourseFullException("Course " + courseId + " is full");
+                }
+                return enrollmentRepository.saveAndFlush(new Enrollment(null, courseId, userId, LocalDateTime.now()));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Enrolled concurrently, possibly through another request: the unique key decided and the
+            // rollback returned the seat
+            addEnrolled(userId, courseId);
+            return existing(courseId, userId);
+        }
+        addEnrolled(userId, courseId);
+        return new EnrollmentView(courseId, userId, enrollment.getEnrolledAt(), true);
+    }
+
+    public void unenroll(Long courseId, Long userId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (enrollmentRepository.deleteByCourseIdAndUserId(courseId, userId) > 0) {
+                releaseSeat(courseId);
+            }
+        });
+        enrolledCourses.asMap().computeIfPresent(userId, (id, courses) -> without(courses, courseId));
+    }
+
+    public boolean isEnrolled(Long courseId, Long userId) {
+        return Arrays.binarySearch(coursesOf(userId), courseId) >= 0;
+    }
+
+    public long[] getEnrolledCourseIds(Long userId) {
+        return coursesOf(userId).clone();
+    }
+
+    public SeatCount getSeatCount(Long courseId) {
+        CourseSeats seats = courseRepository.findSeats(courseId)
+                .orElseThrow(() -> new CourseNotFoundException("Course not found"));
+        Long taken = seatBucketRepository.sumTaken(courseId);
+        return new SeatCount(courseId, taken != null ? taken.intValue() : seats.getEnrolledCount(), seats.getCapacity());
+    }
+
+    // Runs in the caller's transaction, before the course itself is updated. Spreads the new capacity
+    // over the buckets so that each keeps the seats it has given out
+    public void changeCapacity(Long courseId, Integer capacity) {
+        createBuckets(courseId);
+        List<SeatBucket> buckets = seatBucketRepository.findForUpdate(courseId);
+        int taken = buckets.stream().mapToInt(SeatBucket::getTaken).sum();
+        if (capacity != null && capacity < taken) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is below the " + taken + " students already enrolled");
+        }
+        for (int i = 0; i < buckets.size(); i++) {
+            SeatBucket bucket = buckets.get(i);
+            bucket.setSeats(capacity == null ? null : bucket.getTaken() + share(capacity - taken, i, buckets.size()));
+        }
+        seatBucketRepository.saveAll(buckets);
+    }
+
+    // Runs in the caller's transaction; only the enrolled users are forgotten, once it commits
+    public void courseDeleted(Long courseId) {
+        List<Long> userIds = enrollmentRepository.findUserIdsByCourseId(courseId);
+        enrollmentRepository.deleteByCourseId(courseId);
+        seatBucketRepository.deleteByCourseId(courseId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enrolledCourses.invalidateAll(userIds);
+                }
+            });
+        } else {
+            enrolledCourses.invalidateAll(userIds);
+        }
+    }
+
+    // Walks the buckets from a random one; false once every bucket is full
+    private boolean reserveSeat(Long courseId) {
+        if (walkBuckets(courseId, seatBucketRepository::takeSeat)) {
+            return true;
+        }
+        // Courses get their buckets on their first enrolment or capacity change
+        return createBuckets(courseId) && walkBuckets(courseId, seatBucketRepository::takeSeat);
+    }
+
+    private void releaseSeat(Long courseId) {
+        walkBuckets(courseId, seatBucketRepository::releaseSeat);
+    }
+
+    private boolean walkBuckets(Long courseId, BucketUpdate update) {
+        int start = ThreadLocalRandom.current().nextInt(SEAT_BUCKETS);
+        for (int i = 0; i < SEAT_BUCKETS; i++) {
+            if (update.apply(courseId, (start + i) % SEAT_BUCKETS) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // True when buckets were missing and have been created. The capacity and the count enrolled before
+    // the buckets existed are split evenly, the same way on every instance that races to create them
+    private boolean createBuckets(Long courseId) {
+        if (seatBucketRepository.countByCourseId(courseId) > 0) {
+            return false;
+        }
+        CourseSeats seats = courseRepository.findSeats(courseId)
+                .orElseThrow(() -> new CourseNotFoundException("Course not found"));
+        for (int bucket = 0; bucket < SEAT_BUCKETS; bucket++) {
+            Integer bucketSeats = seats.getCapacity() == null ? null : share(seats.getCapacity(), bucket, SEAT_BUCKETS);
+            seatBucketRepository.insertIfAbsent(courseId, bucket, bucketSeats,
+                    share(seats.getEnrolledCount(), bucket, SEAT_BUCKETS));
+        }
+        return true;
+    }
+
+    // Bucket index's part of total when split over count buckets, the remainder going to the first ones
+    private static int share(int total, int index, int count) {
+        return total / count + (index < total % count ? 1 : 0);
+    }
+
+    @FunctionalInterface
+    private interface BucketUpdate {
+        int apply(Long courseId, int bucket);
+    }
+
+    private EnrollmentView existing(Long courseId, Long userId) {
+        LocalDateTime enrolledAt = enrollmentRepository.findByCourseIdAndUserId(courseId, userId)
+                .map(Enrollment::getEnrolledAt)
+                .orElse(null);
+        return new EnrollmentView(courseId, userId, enrolledAt, false);
+    }
+
+    private long[] coursesOf(Long userId) {
+        return enrolledCourses.get(userId, id ->
+                enrollmentRepository.findCourseIdsByUserId(id).stream().mapToLong(Long::longValue).sorted().toArray());
+    }
+
+    private void addEnrolled(Long userId, Long courseId) {
+        enrolledCourses.asMap().computeIfPresent(userId, (id, courses) -> with(courses, courseId));
+    }
+
+    private static long[] with(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index >= 0) {
+            return sorted;
+        }
+        int insertAt = -index - 1;
+        long[] copy = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, copy, 0, insertAt);
+        copy[insertAt] = value;
+        System.arraycopy(sorted, insertAt, copy, insertAt + 1, sorted.length - insertAt);
+        return copy;
+    }
+
+    private static long[] without(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return sorted;
+        }
+        long[] copy = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, copy, 0, index);
+        System.arraycopy(sorted, index + 1, copy, index, sorted.length - index - 1);
+        return copy;
+    }
+}
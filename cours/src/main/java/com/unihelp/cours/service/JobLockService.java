@@ -0,0 +1,50 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.entities.JobLock;
+import com.unihelp.cours.repository.JobLockRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Cluster-wide mutual exclusion for batch jobs through a conditional update on job_lock: whoever's
+// update matches holds the lease. Calling tryAcquire again while holding it renews the lease, so long
+// jobs renew as they go and a crashed instance's lease simply runs out
+@Service
+@RequiredArgsConstructor
+public class JobLockService {
+
+    private final JobLockRepository jobLockRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    public boolean tryAcquire(String job, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Boolean acquired = transactionTemplate.execute(status ->
+                jobLockRepository.acquire(job, owner, now.plus(lease), now) == 1);
+        if (Boolean.TRUE.equals(acquired)) {
+            return true;
+        }
+        // First run of this job anywhere: the row is created by whichever instance inserts it first
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!jobLockRepository.existsById(job)) {
+                    jobLockRepository.saveAndFlush(new JobLock(job, owner, now.plus(lease)));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                owner.equals(jobLockRepository.findById(job).map(JobLock::getOwner).orElse(null))));
+    }
+
+    public void release(String job) {
+        transactionTemplate.executeWithoutResult(status -> jobLockRepository.release(job, owner, LocalDateTime.now()));
+    }
+}
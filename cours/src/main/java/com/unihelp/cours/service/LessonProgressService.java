@@ -0,0 +1,236 @@
+package com.unihelp.cours.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unihelp.cours.dto.CourseProgressView;
+import com.unihelp.cours.dto.LessonProgressView;
+import com.unihelp.cours.dto.ProgressHeartbeat;
+import com.unihelp.cours.entities.LessonProgress;
+import com.unihelp.cours.exception.LessonNotFoundException;
+import com.unihelp.cours.repository.CourseProgressRepository;
+import com.unihelp.cours.repository.LessonProgressRepository;
+import com.unihelp.cours.repository.LessonRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Heartbeats only overwrite an in-memory entry per (user, lesson); a scheduled flusher turns
+// whatever accumulated into one batched upsert, however many viewers sent heartbeats meanwhile
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LessonProgressService {
+
+    // Positions only: completion is set by COMPLETE_LESSON, whose update count tells whether it is new
+    private static final String UPSERT_LESSON_PROGRESS =
+            "INSERT INTO lesson_progress (user_id, lesson_id, course_id, position_seconds, duration_seconds, completed, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, FALSE, ?) " +
+            "ON DUPLICATE KEY UPDATE position_seconds = VALUES(position_seconds), duration_seconds = VALUES(duration_seconds), " +
+            "updated_at = VALUES(updated_at)";
+
+    // Matches only while the lesson is not completed yet, under the row lock: of two instances flushing
+    // the same completion, exactly one gets an update count of 1
+    private static final String COMPLETE_LESSON =
+            "UPDATE lesson_progress SET completed = TRUE WHERE user_id = ? AND lesson_id = ? AND completed = FALSE";
+
+    private static final String INCREMENT_COURSE_PROGRESS =
+            "INSERT INTO course_progress (user_id, course_id, completed_lessons, updated_at) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE completed_lessons = completed_lessons + VALUES(completed_lessons), updated_at = VALUES(updated_at)";
+
+    private final LessonRepository lessonRepository;
+    private final LessonProgressRepository lessonProgressRepository;
+    private final CourseProgressRepository courseProgressRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${cours.progress.batch-size:500}")
+    private int batchSize;
+
+    // Share of the lesson duration after which a video counts as completed
+    @Value("${cours.progress.completion-ratio:0.9}")
+    private double completionRatio;
+
+    @Value("${cours.progress.lesson-cache-size:100000}")
+    private long lessonCacheSize;
+
+    private final ConcurrentHashMap<Key, Pending> pending = new ConcurrentHashMap<>();
+
+    // lessonId -> courseId, lessons never move between courses. Dropped on deletion by lessonsDeleted
+    private Cache<Long, Long> lessonCourses;
+
+    @PostConstruct
+    void createCache() {
+        lessonCourses = Caffeine.newBuilder().maximumSize(lessonCacheSize).build();
+    }
+
+    public void heartbeat(Long courseId, Long lessonId, ProgressHeartbeat heartbeat) {
+        if (heartbeat.getUserId() == null) {
+            throw new IllegalArgumentException("userId is required");
+        }
+        if (heartbeat.getPositionSeconds() < 0 || heartbeat.getDurationSeconds() < 0) {
+            throw new IllegalArgumentException("Position and duration must be positive");
+        }
+        Long lessonCourseId = courseIdOf(lessonId);
+        if (!lessonCourseId.equals(courseId)) {
+            throw new LessonNotFoundException("Lesson " + lessonId + " not found in course " + courseId);
+        }
+        boolean completed = heartbeat.isCompleted()
+                || (heartbeat.getDurationSeconds() > 0
+                    && heartbeat.getPositionSeconds() >= heartbeat.getDurationSeconds() * completionRatio);
+        Pending latest = new Pending(courseId, heartbeat.getPositionSeconds(), heartbeat.getDurationSeconds(),
+                completed, LocalDateTime.now());
+        pending.merge(new Key(heartbeat.getUserId(), lessonId), latest, Pending::followedBy);
+    }
+
+    public LessonProgressView getLessonProgress(Long lessonId, Long userId) {
+        Pending unflushed = pending.get(new Key(userId, lessonId));
+        LessonProgress stored = lessonProgressRepository.findByUserIdAndLessonId(userId, lessonId).orElse(null);
+        if (unflushed != null) {
+            boolean completed = unflushed.completed || (stored != null && stored.isCompleted());
+            return new LessonProgressView(lessonId, userId, unflushed.position, unflushed.duration, completed);
+        }
+        if (stored == null) {
+            return new LessonProgressView(lessonId, userId, 0, 0, false);
+        }
+        return new LessonProgressView(lessonId, userId, stored.getPositionSeconds(), stored.getDurationSeconds(), stored.isCompleted());
+    }
+
+    public CourseProgressView getCourseProgress(Long courseId, Long userId) {
+        long total = lessonRepository.countByModuleCourseId(courseId);
+        long completed = courseProgressRepository.findByUserIdAndCourseId(userId, courseId)
+                .map(progress -> progress.getCompletedLessons())
+                .orElse(0L);
+        completed = Math.min(completed, total);
+        double percentage = total > 0 ? Math.round(completed * 10000.0 / total) / 100.0 : 0;
+        return new CourseProgressView(courseId, userId, completed, total, percentage);
+    }
+
+    @Scheduled(fixedDelayString = "${cours.progress.flush-ms:5000}")
+    public synchronized void flush() {
+        // Only what is pending now; heartbeats arriving meanwhile wait for the next run
+        List<Key> keys = new ArrayList<>(pending.keySet());
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            Map<Key, Pending> batch = new HashMap<>();
+            for (Key key : keys.subList(from, Math.min(from + batchSize, keys.size()))) {
+                Pending entry = pending.remove(key);
+                if (entry != null) {
+                    batch.put(key, entry);
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush {} lesson progress entries: {}", batch.size(), e.getMessage());
+                // Newer heartbeats win, but a completion must not be lost
+                batch.forEach((key, failed) -> pending.merge(key, failed, (current, old) -> old.followedBy(current)));
+                return;
+            }
+        }
+    }
+
+    private void write(Map<Key, Pending> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<Key, Pending>> rows = new ArrayList<>(batch.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_LESSON_PROGRESS, rows, batchSize, (ps, row) -> {
+            Pending entry = row.getValue();
+            ps.setLong(1, row.getKey().userId);
+            ps.setLong(2, row.getKey().lessonId);
+            ps.setLong(3, entry.courseId);
+            ps.setDouble(4, entry.position);
+            ps.setDouble(5, entry.duration);
+            ps.setTimestamp(6, Timestamp.valueOf(entry.at));
+        });
+
+        // Only the completions this transaction actually made increment course_progress
+        List<Map.Entry<Key, Pending>> completions = rows.stream().filter(row -> row.getValue().completed).toList();
+        Map<CourseKey, Long> newlyCompleted = new HashMap<>();
+        int[][] counts = jdbcTemplate.batchUpdate(COMPLETE_LESSON, completions, batchSize, (ps, row) -> {
+            ps.setLong(1, row.getKey().userId);
+            ps.setLong(2, row.getKey().lessonId);
+        });
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                Map.Entry<Key, Pending> row = completions.get(index++);
+                if (count > 0) {
+                    newlyCompleted.merge(new CourseKey(row.getKey().userId, row.getValue().courseId), 1L, Long::sum);
+                }
+            }
+        }
+        if (!newlyCompleted.isEmpty()) {
+            jdbcTemplate.batchUpdate(INCREMENT_COURSE_PROGRESS, new ArrayList<>(newlyCompleted.entrySet()), batchSize,
+                    (ps, row) -> {
+                        ps.setLong(1, row.getKey().userId);
+                        ps.setLong(2, row.getKey().courseId);
+                        ps.setLong(3, row.getValue());
+                        ps.setTimestamp(4, now);
+                    });
+        }
+    }
+
+    // Unflushed heartbeats of deleted lessons would otherwise recreate their progress rows
+    public void lessonsDeleted(Collection<Long> lessonIds) {
+        lessonCourses.invalidateAll(lessonIds);
+        Set<Long> deleted = new HashSet<>(lessonIds);
+        pending.keySet().removeIf(key -> deleted.contains(key.lessonId));
+    }
+
+    private Long courseIdOf(Long lessonId) {
+        return lessonCourses.get(lessonId, id -> lessonRepository.findCourseIdById(id)
+                .orElseThrow(() -> new LessonNotFoundException("Lesson not found")));
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private record Key(long userId, long lessonId) {
+    }
+
+    private record CourseKey(long userId, long courseId) {
+    }
+
+    private static final class Pending {
+        final Long courseId;
+        final double position;
+        final double duration;
+        final boolean completed;
+        final LocalDateTime at;
+
+        Pending(Long courseId, double position, double duration, boolean completed, LocalDateTime at) {
+            this.courseId = courseId;
+            this.position = position;
+            this.duration = duration;
+            this.completed = completed;
+            this.at = at;
+        }
+
+        // Latest position wins, completion is sticky
+        Pending followedBy(Pending next) {
+            return completed && !next.completed
+                    ? new Pending(next.courseId, next.position, next.duration, true, next.at)
+                    : next;
+        }
+    }
+}
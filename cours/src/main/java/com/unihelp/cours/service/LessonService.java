@@ -1,15 +1,23 @@
 package com.unihelp.cours.service;
 
+import com.unihelp.cours.dto.Versioned;
 import com.unihelp.cours.entities.Lesson;
 import com.unihelp.cours.entities.Module;
+import com.unihelp.cours.exception.CourseNotFoundException;
 import com.unihelp.cours.exception.LessonNotFoundException;
 import com.unihelp.cours.exception.ModuleNotFoundException;
+import com.unihelp.cours.repository.CourseRepository;
 import com.unihelp.cours.repository.LessonRepository;
 import com.unihelp.cours.repository.ModuleRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -17,20 +25,46 @@ public class LessonService {
 
     private final ModuleRepository moduleRepository;
     private final LessonRepository lessonRepository;
+    private final CourseVersionService courseVersionService;
+    private final RequestCoalescer requestCoalescer;
+    private final CourseTreeDeleter courseTreeDeleter;
+    private final CourseSummaryService courseSummaryService;
+    private final MediaGarbageCollector mediaGarbageCollector;
+    private final CourseRepository courseRepository;
+    private final PlatformTransactionManager transactionManager;
 
     // CREATE: Add a lesson to a module
+    @Transactional
     public Lesson addLessonToModule(Long moduleId, Lesson lesson) {
         Module module = moduleRepository.findById(moduleId)
                 .orElseThrow(() -> new ModuleNotFoundException("Module not found"));
+        Long courseId = module.getCourse().getId();
+        courseVersionService.touch(courseId);
 
         lesson.setModule(module);
-        return lessonRepository.save(lesson);
+        Lesson saved = lessonRepository.save(lesson);
+        courseSummaryService.lessonAdded(courseId, saved);
+        return saved;
     }
-    public List<Lesson> getLessonsByModule(Long moduleId) {
-        System.out.println("Service: Fetching lessons for module " + moduleId);
-        List<Lesson> lessons = lessonRepository.findByModuleId(moduleId);
-        System.out.println("Service: Found " + lessons.size() + " lessons");
-        return lessons;
+    // The caller has checked that the module belongs to the course; its version is read alongside
+    public Versioned<List<Lesson>> getLessonsByModule(Long courseId, Long moduleId) {
+        return requestCoalescer.execute("lessons", moduleId, () -> readOnlyTransaction().execute(status -> {
+            System.out.println("Service: Fetching lessons for module " + moduleId);
+            long treeVersion = courseRepository.findTreeVersion(courseId)
+                    .orElseThrow(() -> new CourseNotFoundException("Course not found"));
+            List<Lesson> lessons = lessonRepository.findByModuleId(moduleId);
+            System.out.println("Service: Found " + lessons.size() + " lessons");
+            // Rewritten once here: the instances are shared with concurrent requests
+            lessons.forEach(lesson -> {
+                if (lesson.getContentUrl() != null && !lesson.getContentUrl().startsWith("/COURS/uploads/")) {
+                    lesson.setContentUrl("/COURS/uploads/" + lesson.getContentUrl().replace("/uploads/", ""));
+                }
+                if (lesson.getThumbnailUrl() != null && !lesson.getThumbnailUrl().startsWith("/COURS/uploads/")) {
+                    lesson.setThumbnailUrl("/COURS/uploads/" + lesson.getThumbnailUrl().replace("/uploads/", ""));
+                }
+            });
+            return new Versioned<>(lessons, treeVersion);
+        }));
     }
 
 
@@ -43,22 +77,48 @@ public class LessonService {
     }
 
     // UPDATE: Update an existing lesson
-    public Lesson updateLesson(Long moduleId, Long lessonId, Lesson updatedLesson) {
-        Lesson lesson = lessonRepository.findById(lessonId)
-                .filter(l -> l.getModule().getId().equals(moduleId))
-                .orElseThrow(() -> new LessonNotFoundException("Lesson not found"));
+    @Transactional
+    public Lesson updateLesson(Long courseId, Long moduleId, Long lessonId, Lesson updatedLesson, String ifMatch) {
+        Lesson lesson = findInCourse(courseId, moduleId, lessonId);
+        if (updatedLesson.getVersion() != null && !updatedLesson.getVersion().equals(lesson.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Lesson.class, lessonId);
+        }
+        courseVersionService.bump(courseId, ifMatch);
 
         lesson.setTitle(updatedLesson.getTitle());
+        if (Objects.equals(lesson.getContentUrl(), updatedLesson.getContentUrl())) {
+            return lessonRepository.save(lesson);
+        }
+        // The size belonged to the old file, and the course summary's media bytes with it
         lesson.setContentUrl(updatedLesson.getContentUrl());
-        return lessonRepository.save(lesson);
+        lesson.setSizeBytes(mediaGarbageCollector.sizeOf(updatedLesson.getContentUrl()));
+        Lesson saved = lessonRepository.save(lesson);
+        courseSummaryService.recount(List.of(courseId));
+        return saved;
     }
 
     // DELETE: Delete a lesson by ID
-    public void deleteLesson(Long moduleId, Long lessonId) {
-        Lesson lesson = lessonRepository.findById(lessonId)
+    @Transactional
+    public void deleteLesson(Long courseId, Long moduleId, Long lessonId, String ifMatch) {
+        Lesson lesson = findInCourse(courseId, moduleId, lessonId);
+        courseVersionService.bump(courseId, ifMatch);
+
+        // Also removes its quizzes, assignments and uploaded files
+        courseTreeDeleter.deleteLesson(lesson);
+        courseSummaryService.recount(List.of(courseId));
+    }
+
+    // The path's course is the one whose version is checked and bumped, so the lesson must be in it
+    private Lesson findInCourse(Long courseId, Long moduleId, Long lessonId) {
+        return lessonRepository.findById(lessonId)
                 .filter(l -> l.getModule().getId().equals(moduleId))
+                .filter(l -> l.getModule().getCourse().getId().equals(courseId))
                 .orElseThrow(() -> new LessonNotFoundException("Lesson not found"));
+    }
 
-        lessonRepository.delete(lesson);
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
     }
 }
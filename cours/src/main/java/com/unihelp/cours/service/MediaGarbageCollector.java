@@ -0,0 +1,229 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.repository.LessonRepository;
+import com.unihelp.cours.repository.LessonRepository.LessonMedia;
+import com.unihelp.cours.repository.SubmissionRepository;
+import com.unihelp.cours.repository.SubmissionRepository.SubmissionFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+// Removes uploaded lesson and submission files off the request path: deletions hand over their URLs,
+// which are queued once the transaction commits and unlinked in batches by a scheduled worker. A
+// slower sweep catches whatever no row references any more (failed uploads, crashes before a batch).
+// cours.uploads.dir is shared by the replicas, as it is served by all of them, so the sweep runs on
+// one instance per period: it keeps the job_lock lease for the whole period instead of releasing it
+@Slf4j
+@Service
+public class MediaGarbageCollector {
+
+    private static final String UPLOADS_SEGMENT = "/uploads/";
+    private static final String SWEEP_JOB = "media-sweep";
+
+    private final LessonRepository lessonRepository;
+    private final SubmissionRepository submissionRepository;
+    private final JobLockService jobLockService;
+    private final ConcurrentLinkedQueue<Path> pending = new ConcurrentLinkedQueue<>();
+    private final Counter deletedFiles;
+    private final Counter reclaimedBytes;
+
+    @Value("${cours.uploads.dir:src/main/resources/uploads/}")
+    private String uploadDir;
+
+    @Value("${cours.media-gc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cours.media-gc.sweep-enabled:true}")
+    private boolean sweepEnabled;
+
+    @Value("${cours.media-gc.sweep-ms:3600000}")
+    private long sweepMs;
+
+    @Value("${cours.media-gc.sweep-page-size:1000}")
+    private int sweepPageSize;
+
+    // Uploads are written before their lesson or submission row, younger files are never orphans
+    @Value("${cours.media-gc.orphan-min-age:PT1H}")
+    private Duration orphanMinAge;
+
+    public MediaGarbageCollector(LessonRepository lessonRepository, SubmissionRepository submissionRepository,
+                                 JobLockService jobLockService, MeterRegistry meterRegistry) {
+        this.lessonRepository = lessonRepository;
+        this.submissionRepository = submissionRepository;
+        this.jobLockService = jobLockService;
+        this.deletedFiles = meterRegistry.counter("cours.media.gc.deleted");
+        this.reclaimedBytes = meterRegistry.counter("cours.media.gc.reclaimed.bytes");
+        Gauge.builder("cours.media.gc.pending", pending, ConcurrentLinkedQueue::size).register(meterRegistry);
+    }
+
+    // Nothing is queued if the surrounding transaction rolls back
+    public void deleteAfterCommit(Collection<String> urls) {
+        List<Path> paths = new ArrayList<>();
+        for (String url : urls) {
+            Path path = resolve(url);
+            if (path != null) {
+                paths.add(path);
+            }
+        }
+        if (paths.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.addAll(paths);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pending.addAll(paths);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${cours.media-gc.delete-ms:5000}")
+    public void collect() {
+        Path path;
+        int deleted = 0;
+        while (deleted < batchSize && (path = pending.poll()) != null) {
+            try {
+                long size = Files.exists(path) ? Files.size(path) : 0;
+                if (Files.deleteIfExists(path)) {
+                    deletedFiles.increment();
+                    reclaimedBytes.increment(size);
+                }
+            } catch (IOException e) {
+                // Left on disk, the next sweep retries it
+                log.warn("Failed to delete {}: {}", path, e.getMessage());
+            }
+            deleted++;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${cours.media-gc.sweep-initial-delay-ms:600000}",
+            fixedDelayString = "${cours.media-gc.sweep-ms:3600000}")
+    public void sweep() {
+        Path root = uploadRoot();
+        if (!sweepEnabled || !Files.isDirectory(root)) {
+            return;
+        }
+        if (!jobLockService.tryAcquire(SWEEP_JOB, Duration.ofMillis(sweepMs))) {
+            log.debug("Upload sweep skipped, another instance ran it this period");
+            return;
+        }
+        // Read before the directory is listed, so that any file old enough to be considered
+        // was already referenced by then if it is referenced at all. Not read-only on purpose:
+        // a lagging replica could miss a fresh reference
+        Set<Path> referenced = referencedFiles();
+
+        Instant cutoff = Instant.now().minus(orphanMinAge);
+        int orphans = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attributes.isRegularFile()
+                        && attributes.lastModifiedTime().toInstant().isBefore(cutoff)
+                        && !referenced.contains(path.toAbsolutePath().normalize())) {
+                    pending.add(path);
+                    orphans++;
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Upload sweep failed: {}", e.getMessage());
+        }
+        if (orphans > 0) {
+            log.info("Upload sweep queued {} orphaned files", orphans);
+        }
+    }
+
+    @PreDestroy
+    void collectOnShutdown() {
+        while (!pending.isEmpty()) {
+            collect();
+        }
+    }
+
+    // Read a keyset page at a time, so no query returns every row at once
+    private Set<Path> referencedFiles() {
+        Set<Path> referenced = new HashSet<>();
+        long lastId = 0L;
+        List<LessonMedia> lessons;
+        do {
+            lessons = lessonRepository.findMediaAfter(lastId, PageRequest.of(0, sweepPageSize));
+            for (LessonMedia lesson : lessons) {
+                addReferenced(referenced, lesson.getContentUrl());
+                addReferenced(referenced, lesson.getThumbnailUrl());
+                lastId = lesson.getId();
+            }
+        } while (lessons.size() == sweepPageSize);
+        lastId = 0L;
+        List<SubmissionFile> submissions;
+        do {
+            submissions = submissionRepository.findFilesAfter(lastId, PageRequest.of(0, sweepPageSize));
+            for (SubmissionFile submission : submissions) {
+                addReferenced(referenced, submission.getFileUrl());
+                lastId = submission.getId();
+            }
+        } while (submissions.size() == sweepPageSize);
+        return referenced;
+    }
+
+    private void addReferenced(Set<Path> referenced, String url) {
+        Path path = resolve(url);
+        if (path != null) {
+            referenced.add(path);
+        }
+    }
+
+    // Size of the uploaded file behind url, null if it is not one of ours or is gone
+    Long sizeOf(String url) {
+        Path path = resolve(url);
+        try {
+            return path != null && Files.isRegularFile(path) ? Files.size(path) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // "/COURS/uploads/x.pdf", "/uploads/submissions/y.docx" -> file under the uploads directory;
+    // anything else (remote URLs, paths escaping the directory) is not ours to delete
+    Path resolve(String url) {
+        if (url == null || url.contains("://")) {
+            return null;
+        }
+        int at = url.indexOf(UPLOADS_SEGMENT);
+        if (at < 0) {
+            return null;
+        }
+        Path root = uploadRoot();
+        Path path = root.resolve(url.substring(at + UPLOADS_SEGMENT.length())).normalize();
+        return path.startsWith(root) && !path.equals(root) ? path : null;
+    }
+
+    private Path uploadRoot() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+}
@@ -1,5 +1,6 @@
 package com.unihelp.cours.service;
 
+import com.unihelp.cours.dto.Versioned;
 import com.unihelp.cours.entities.Course;
 import com.unihelp.cours.entities.Module;
 import com.unihelp.cours.exception.CourseNotFoundException;
@@ -7,7 +8,12 @@ import com.unihelp.cours.exception.ModuleNotFoundException;
 import com.unihelp.cours.repository.CourseRepository;
 import com.unihelp.cours.repository.ModuleRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
@@ -17,7 +23,13 @@ public class ModuleService {
 
     private final CourseRepository courseRepository;
     private final ModuleRepository moduleRepository;
+    private final CourseVersionService courseVersionService;
+    private final RequestCoalescer requestCoalescer;
+    private final PlatformTransactionManager transactionManager;
+    private final CourseTreeDeleter courseTreeDeleter;
+    private final CourseSummaryService courseSummaryService;
 
+    @Transactional
     public Module addModuleToCourse(Long courseId, Module module) {
         // Check if course exists
         Course course = courseRepository.findById(courseId)
@@ -28,40 +40,76 @@ public class ModuleService {
         System.out.println("Adding module: " + module.getTitle());
 
         // Set course and save the module
+        courseVersionService.touch(courseId);
         module.setCourse(course);
-        return moduleRepository.save(module);
+        Module saved = moduleRepository.save(module);
+        courseSummaryService.moduleAdded(courseId);
+        return saved;
     }
     // READ: Get all modules for a specific course
-    public List<Module> getModulesByCourse(Long courseId) {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new CourseNotFoundException("Course not found"));
-        return course.getModules();
+    public Versioned<List<Module>> getModulesByCourse(Long courseId) {
+        return requestCoalescer.execute("modules", courseId, () -> readOnlyTransaction().execute(status -> {
+            Course course = courseRepository.findById(courseId)
+                    .orElseThrow(() -> new CourseNotFoundException("Course not found"));
+            // Shared with concurrent requests, so initialised here rather than during serialisation
+            course.getModules().forEach(module -> Hibernate.initialize(module.getLessons()));
+            return new Versioned<>(course.getModules(), course.getTreeVersion());
+        }));
     }
 
     // READ: Get a specific module by ID
-    public Module getModuleById(Long courseId, Long moduleId) {
-        return moduleRepository.findById(moduleId)
-                .filter(module -> module.getCourse().getId().equals(courseId))
-                .orElseThrow(() -> new ModuleNotFoundException("Module not found"));
+    // Lets a conditional GET check ownership before deriving an ETag from the course in the path
+    public void checkModuleInCourse(Long courseId, Long moduleId) {
+        if (!moduleRepository.existsByIdAndCourseId(moduleId, courseId)) {
+            throw new ModuleNotFoundException("Module not found");
+        }
+    }
+
+    public Versioned<Module> getModuleById(Long courseId, Long moduleId) {
+        // open-in-view is off: the lessons are serialised with the module, so they are loaded here
+        return readOnlyTransaction().execute(status -> {
+            Module module = moduleRepository.findById(moduleId)
+                    .filter(m -> m.getCourse().getId().equals(courseId))
+                    .orElseThrow(() -> new ModuleNotFoundException("Module not found"));
+            Hibernate.initialize(module.getLessons());
+            return new Versioned<>(module, module.getCourse().getTreeVersion());
+        });
     }
 
     // UPDATE: Update an existing module
-    public Module updateModule(Long courseId, Long moduleId, Module updatedModule) {
+    @Transactional
+    public Module updateModule(Long courseId, Long moduleId, Module updatedModule, String ifMatch) {
         Module module = moduleRepository.findById(moduleId)
                 .filter(m -> m.getCourse().getId().equals(courseId))
                 .orElseThrow(() -> new ModuleNotFoundException("Module not found"));
+        if (updatedModule.getVersion() != null && !updatedModule.getVersion().equals(module.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Module.class, moduleId);
+        }
+        courseVersionService.bump(courseId, ifMatch);
 
         module.setTitle(updatedModule.getTitle());
         module.setDescription(updatedModule.getDescription());
-        return moduleRepository.save(module);
+        Module saved = moduleRepository.save(module);
+        Hibernate.initialize(saved.getLessons());
+        return saved;
     }
 
     // DELETE: Delete a module by ID
-    public void deleteModule(Long courseId, Long moduleId) {
+    @Transactional
+    public void deleteModule(Long courseId, Long moduleId, String ifMatch) {
         Module module = moduleRepository.findById(moduleId)
                 .filter(m -> m.getCourse().getId().equals(courseId))
                 .orElseThrow(() -> new ModuleNotFoundException("Module not found"));
+        courseVersionService.bump(courseId, ifMatch);
+
+        courseTreeDeleter.deleteModule(courseId, module.getId());
+        courseSummaryService.recount(List.of(courseId));
+    }
 
-        moduleRepository.delete(module);
+    // Read-only, so that it can be served by a replica when routing is enabled (DataSourceRoutingConfig)
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
     }
 }
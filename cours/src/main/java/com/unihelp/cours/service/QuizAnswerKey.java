@@ -0,0 +1,99 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.dto.QuizResult;
+import com.unihelp.cours.dto.QuizView;
+import com.unihelp.cours.entities.Option;
+import com.unihelp.cours.entities.Question;
+import com.unihelp.cours.entities.Quiz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable answer key of one quiz: sorted id arrays plus a bitset of correct options per question,
+// so grading is a few binary searches and word compares
+public final class QuizAnswerKey {
+
+    private final long quizId;
+    private final long[] questionIds;
+    private final long[][] optionIds;
+    private final long[][] correct;
+    private final QuizView view;
+
+    private QuizAnswerKey(long quizId, long[] questionIds, long[][] optionIds, long[][] correct, QuizView view) {
+        this.quizId = quizId;
+        this.questionIds = questionIds;
+        this.optionIds = optionIds;
+        this.correct = correct;
+        this.view = view;
+    }
+
+    // Questions and options must be ordered by id
+    static QuizAnswerKey build(Quiz quiz, List<Question> questions, List<Option> options) {
+        Map<Long, List<Option>> optionsByQuestion = new HashMap<>();
+        for (Option option : options) {
+            optionsByQuestion.computeIfAbsent(option.getQuestion().getId(), id -> new ArrayList<>()).add(option);
+        }
+
+        long[] questionIds = new long[questions.size()];
+        long[][] optionIds = new long[questions.size()][];
+        long[][] correct = new long[questions.size()][];
+        List<QuizView.QuestionView> questionViews = new ArrayList<>(questions.size());
+
+        for (int q = 0; q < questions.size(); q++) {
+            Question question = questions.get(q);
+            List<Option> questionOptions = optionsByQuestion.getOrDefault(question.getId(), List.of());
+            questionIds[q] = question.getId();
+            optionIds[q] = new long[questionOptions.size()];
+            correct[q] = new long[(questionOptions.size() + 63) / 64];
+            List<QuizView.OptionView> optionViews = new ArrayList<>(questionOptions.size());
+            for (int o = 0; o < questionOptions.size(); o++) {
+                Option option = questionOptions.get(o);
+                optionIds[q][o] = option.getId();
+                if (option.isCorrect()) {
+                    correct[q][o >>> 6] |= 1L << (o & 63);
+                }
+                optionViews.add(new QuizView.OptionView(option.getId(), option.getText()));
+            }
+            questionViews.add(new QuizView.QuestionView(question.getId(), question.getText(), question.getType(),
+                    List.copyOf(optionViews)));
+        }
+
+        QuizView view = new QuizView(quiz.getId(), quiz.getTitle(), quiz.getDescription(), List.copyOf(questionViews));
+        return new QuizAnswerKey(quiz.getId(), questionIds, optionIds, correct, view);
+    }
+
+    public QuizView view() {
+        return view;
+    }
+
+    // A question scores only when the selected options are exactly its correct options
+    public QuizResult grade(Long userId, Map<Long, List<Long>> answers) {
+        List<Long> correctQuestions = new ArrayList<>();
+        for (Map.Entry<Long, List<Long>> answer : answers.entrySet()) {
+            if (answer.getKey() == null || answer.getValue() == null) {
+                continue;
+            }
+            int q = Arrays.binarySearch(questionIds, answer.getKey());
+            if (q < 0) {
+                continue;
+            }
+            long[] selected = new long[correct[q].length];
+            boolean valid = true;
+            for (Long optionId : answer.getValue()) {
+                int o = optionId == null ? -1 : Arrays.binarySearch(optionIds[q], optionId);
+                if (o < 0) {
+                    valid = false;
+                    break;
+                }
+                selected[o >>> 6] |= 1L << (o & 63);
+            }
+            if (valid && Arrays.equals(selected, correct[q])) {
+                correctQuestions.add(questionIds[q]);
+            }
+        }
+        return new QuizResult(quizId, userId, correctQuestions.size(), questionIds.length, correctQuestions);
+    }
+}
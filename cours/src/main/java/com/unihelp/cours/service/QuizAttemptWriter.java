@@ -0,0 +1,93 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.entities.QuizAttempt;
+import com.unihelp.cours.repository.QuizAttemptRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Buffers graded attempts and writes them with batched inserts off the request path. Attempts of a
+// batch that failed are retried one at a time, and dropped (logged in full) after max-failures tries
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuizAttemptWriter {
+
+    private final QuizAttemptRepository quizAttemptRepository;
+    private final ConcurrentLinkedQueue<QuizAttempt> pending = new ConcurrentLinkedQueue<>();
+    // Only touched by flush, which never runs concurrently with itself
+    private final ConcurrentLinkedQueue<FailedAttempt> retries = new ConcurrentLinkedQueue<>();
+
+    @Value("${cours.quiz.attempt-batch-size:500}")
+    private int batchSize;
+
+    @Value("${cours.quiz.attempt-max-failures:5}")
+    private int maxFailures;
+
+    public void enqueue(QuizAttempt attempt) {
+        pending.add(attempt);
+    }
+
+    @Scheduled(fixedDelayString = "${cours.quiz.attempt-flush-ms:1000}")
+    public synchronized void flush() {
+        if (!retryFailed()) {
+            return;
+        }
+        while (!pending.isEmpty()) {
+            List<QuizAttempt> batch = new ArrayList<>(batchSize);
+            QuizAttempt attempt;
+            while (batch.size() < batchSize && (attempt = pending.poll()) != null) {
+                batch.add(attempt);
+            }
+            try {
+                quizAttemptRepository.saveAll(batch);
+            } catch (RuntimeException e) {
+                log.warn("Failed to persist {} quiz attempts, retrying them one by one: {}", batch.size(), e.getMessage());
+                for (QuizAttempt failed : batch) {
+                    // The id was taken in the rolled back transaction
+                    failed.setId(null);
+                    retries.add(new FailedAttempt(failed, 1));
+                }
+                return;
+            }
+        }
+    }
+
+    // One attempt per statement, so that a single bad row cannot hold back the others. Stops at the
+    // first failure: if the database is down, everything else waits for the next flush
+    private boolean retryFailed() {
+        FailedAttempt failed;
+        while ((failed = retries.poll()) != null) {
+            try {
+                quizAttemptRepository.save(failed.attempt());
+            } catch (RuntimeException e) {
+                failed.attempt().setId(null);
+                if (failed.failures() + 1 >= maxFailures) {
+                    QuizAttempt attempt = failed.attempt();
+                    log.error("Dropping quiz attempt after {} failed writes (quiz {}, user {}, score {}/{}, submitted {}, answers {}): {}",
+                            failed.failures() + 1, attempt.getQuizId(), attempt.getUserId(), attempt.getScore(),
+                            attempt.getMaxScore(), attempt.getSubmittedAt(), attempt.getAnswers(), e.getMessage());
+                } else {
+                    retries.add(new FailedAttempt(failed.attempt(), failed.failures() + 1));
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private record FailedAttempt(QuizAttempt attempt, int failures) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.dto.QuizResult;
+import com.unihelp.cours.dto.QuizSubmission;
+import com.unihelp.cours.dto.QuizView;
+import com.unihelp.cours.entities.Lesson;
+import com.unihelp.cours.entities.Option;
+import com.unihelp.cours.entities.Question;
+import com.unihelp.cours.entities.Quiz;
+import com.unihelp.cours.entities.QuizAttempt;
+import com.unihelp.cours.exception.LessonNotFoundException;
+import com.unihelp.cours.exception.QuizNotFoundException;
+import com.unihelp.cours.repository.LessonRepository;
+import com.unihelp.cours.repository.OptionRepository;
+import com.unihelp.cours.repository.QuestionRepository;
+import com.unihelp.cours.repository.QuizRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class QuizService {
+
+    private final QuizRepository quizRepository;
+    private final QuestionRepository questionRepository;
+    private final OptionRepository optionRepository;
+    private final LessonRepository lessonRepository;
+    private final QuizAttemptWriter quizAttemptWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${cours.quiz.answer-key-cache-size:10000}")
+    private long answerKeyCacheSize;
+
+    // Deletions on other instances are only seen once the key expires
+    @Value("${cours.quiz.answer-key-ttl:PT5M}")
+    private Duration answerKeyTtl;
+
+    // quizId -> answer key; each quiz is read from the database once per TTL
+    private Cache<Long, QuizAnswerKey> answerKeys;
+
+    @PostConstruct
+    void createCache() {
+        answerKeys = Caffeine.newBuilder()
+                .maximumSize(answerKeyCacheSize)
+                .expireAfterWrite(answerKeyTtl)
+                .build();
+    }
+
+    // CREATE: Add a quiz with its questions and options to a lesson
+    public QuizView createQuiz(Long lessonId, Quiz quiz) {
+        Lesson lesson = lessonRepository.findById(lessonId)
+                .orElseThrow(() -> new LessonNotFoundException("Lesson not found"));
+
+        quiz.setId(null);
+        quiz.setLesson(lesson);
+        for (Question question : quiz.getQuestions()) {
+            question.setId(null);
+            question.setQuiz(quiz);
+            for (Option option : question.getOptions()) {
+                option.setId(null);
+                option.setQuestion(question);
+            }
+        }
+        Quiz saved = quizRepository.save(quiz);
+        answerKeys.invalidate(saved.getId());
+        return getQuiz(saved.getId());
+    }
+
+    // READ: Questions without the correct answers
+    public QuizView getQuiz(Long quizId) {
+        return answerKey(quizId).view();
+    }
+
+    public List<QuizView> getQuizzesByLesson(Long lessonId) {
+        return quizRepository.findByLessonId(lessonId).stream()
+                .map(quiz -> getQuiz(quiz.getId()))
+                .collect(Collectors.toList());
+    }
+
+    // GRADE: Pure in-memory grading, the attempt is persisted later in a batch
+    public QuizResult submitAttempt(Long quizId, QuizSubmission submission) {
+        if (submission.getUserId() == null) {
+            throw new IllegalArgumentException("User ID is required to submit a quiz");
+        }
+        Map<Long, List<Long>> answers = submission.getAnswers() == null ? Map.of() : submission.getAnswers();
+        QuizResult result = answerKey(quizId).grade(submission.getUserId(), answers);
+        quizAttemptWriter.enqueue(QuizAttempt.builder()
+                .quizId(quizId)
+                .userId(submission.getUserId())
+                .score(result.getScore())
+                .maxScore(result.getMaxScore())
+                .answers(encodeAnswers(answers))
+                .submittedAt(LocalDateTime.now())
+                .build());
+        return result;
+    }
+
+    public void evict(Collection<Long> quizIds) {
+        answerKeys.invalidateAll(quizIds);
+    }
+
+    private QuizAnswerKey answerKey(Long quizId) {
+        return answerKeys.get(quizId, this::loadAnswerKey);
+    }
+
+    private QuizAnswerKey loadAnswerKey(Long quizId) {
+        return transactionTemplate.execute(status -> {
+            Quiz quiz = quizRepository.findById(quizId)
+                    .orElseThrow(() -> new QuizNotFoundException("Quiz not found"));
+            return QuizAnswerKey.build(quiz,
+                    questionRepository.findByQuizIdOrderByIdAsc(quizId),
+                    optionRepository.findByQuestionQuizIdOrderByIdAsc(quizId));
+        });
+    }
+
+    private String encodeAnswers(Map<Long, List<Long>> answers) {
+        String encoded = answers.entrySet().stream()
+                .map(answer -> answer.getKey() + "=" + (answer.getValue() == null ? "" : answer.getValue().stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.joining(","))))
+                .collect(Collectors.joining(";"));
+        return encoded.length() > 4000 ? encoded.substring(0, 4000) : encoded;
+    }
+}
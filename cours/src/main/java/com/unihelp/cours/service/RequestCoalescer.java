@@ -0,0 +1,72 @@
+package com.unihelp.cours.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Single-flight: concurrent calls for the same (name, key) wait for the first caller's result
+// instead of running the same load again. Nothing is kept once the load has finished.
+// Metrics: cours.singleflight.calls{flight, role=leader|follower}; followers / total is the collapse ratio
+@Component
+public class RequestCoalescer {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("cours.singleflight.inflight", inFlight, Map::size)
+                .description("Loads currently shared between concurrent identical requests")
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String flight, Object key, Supplier<V> loader) {
+        FlightKey flightKey = new FlightKey(flight, key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, mine);
+        Counter[] flightCounters = counters(flight);
+        if (existing != null) {
+            flightCounters[1].increment();
+            try {
+                return (V) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        flightCounters[0].increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    private Counter[] counters(String flight) {
+        return counters.computeIfAbsent(flight, name -> new Counter[]{
+                Counter.builder("cours.singleflight.calls").tag("flight", name).tag("role", "leader")
+                        .description("Requests that ran the load themselves").register(meterRegistry),
+                Counter.builder("cours.singleflight.calls").tag("flight", name).tag("role", "follower")
+                        .description("Requests served by another request's load").register(meterRegistry)
+        });
+    }
+
+    private record FlightKey(String flight, Object key) {
+    }
+}
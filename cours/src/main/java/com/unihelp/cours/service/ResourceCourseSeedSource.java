@@ -0,0 +1,33 @@
+package com.unihelp.cours.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+// Seed file given by cours.seed.location, on the classpath by default or anywhere with file:
+@Component
+@RequiredArgsConstructor
+public class ResourceCourseSeedSource implements CourseSeedSource {
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${cours.seed.location:classpath:seed/courses.ndjson}")
+    private String location;
+
+    @Override
+    public String name() {
+        return location;
+    }
+
+    @Override
+    public Optional<InputStream> open() throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        return resource.exists() ? Optional.of(resource.getInputStream()) : Optional.empty();
+    }
+}
@@ -0,0 +1,28 @@
+-- Runs on every start after Hibernate's schema update (spring.sql.init, platform mysql). Every
+-- statement must be safe to repeat.
+
+-- Course, module and lesson ids come from pooled sequences, which MySQL emulates with one-row tables.
+-- Databases created while the ids were IDENTITY columns already hold rows, so each table is moved past
+-- max(id) plus one allocation block (50) before the first id is handed out; it never moves backwards
+CREATE TABLE IF NOT EXISTS course_seq (next_val BIGINT);
+INSERT INTO course_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM course_seq);
+UPDATE course_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM course));
+
+CREATE TABLE IF NOT EXISTS module_seq (next_val BIGINT);
+INSERT INTO module_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM module_seq);
+UPDATE module_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM module));
+
+CREATE TABLE IF NOT EXISTS lesson_seq (next_val BIGINT);
+INSERT INTO lesson_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM lesson_seq);
+UPDATE lesson_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM lesson));
+
+-- One course per title and instructor (Course, uk_course_title_user). Hibernate cannot add the key while
+-- duplicates exist, and neither does this script: they are left for an administrator to merge, and the
+-- key is created on the first start after they are gone
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'course' AND index_name = 'uk_course_title_user') = 0
+              AND NOT EXISTS (SELECT 1 FROM course GROUP BY title, user_id HAVING COUNT(*) > 1),
+              'ALTER TABLE course ADD CONSTRAINT uk_course_title_user UNIQUE (title, user_id)', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
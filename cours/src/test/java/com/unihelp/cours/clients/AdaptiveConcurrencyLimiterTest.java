@@ -0,0 +1,104 @@
+package com.unihelp.cours.clients;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = 10_000_000L;
+    private static final long SLOW = 100_000_000L;
+
+    @Test
+    void rejectsOnceTheLimitIsReached() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 10);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(3);
+
+        limiter.release(FAST, false);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileLatencyHoldsSteadyUnderLoad() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200);
+
+        saturate(limiter, FAST, 5);
+
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+    }
+
+    @Test
+    void shrinksAsSoonAsLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200);
+        saturate(limiter, FAST, 5);
+        int steady = limiter.getLimit();
+
+        int held = acquireAll(limiter);
+        for (int i = 0; i < 10; i++) {
+            limiter.release(SLOW, false);
+        }
+
+        assertThat(held).isEqualTo(steady);
+        assertThat(limiter.getLimit()).isLessThan(steady);
+    }
+
+    @Test
+    void dropsShrinkEvenUnderLightLoadAndStopAtTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200);
+
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertThat(limiter.getLimit()).isLessThan(20);
+
+        saturate(limiter, FAST, 50, true);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void neverGrowsPastTheMaximum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 30);
+
+        saturate(limiter, FAST, 50);
+
+        assertThat(limiter.getLimit()).isEqualTo(30);
+    }
+
+    @Test
+    void lightLoadSaysNothingAboutCapacity() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.release(i == 0 ? FAST : 50 * SLOW, false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos, int rounds) {
+        saturate(limiter, rttNanos, rounds, false);
+    }
+
+    // Each round takes every permit, then completes all the calls with the same latency
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos, int rounds, boolean dropped) {
+        for (int round = 0; round < rounds; round++) {
+            int held = acquireAll(limiter);
+            for (int i = 0; i < held; i++) {
+                limiter.release(rttNanos, dropped);
+            }
+        }
+    }
+
+    private static int acquireAll(AdaptiveConcurrencyLimiter limiter) {
+        int held = 0;
+        while (limiter.tryAcquire()) {
+            held++;
+        }
+        return held;
+    }
+}
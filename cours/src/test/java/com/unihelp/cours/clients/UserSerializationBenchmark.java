@@ -0,0 +1,65 @@
+package com.unihelp.cours.clients;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.unihelp.cours.model.Role;
+import com.unihelp.cours.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Compares payload size and encode/decode cost of a batch of user summaries as JSON and as CBOR.
+// Not a unit test: run the main method, e.g. from the IDE or with exec:java on the test classpath.
+public class UserSerializationBenchmark {
+
+    private static final int USERS = 500;
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        List<User> users = sampleUsers();
+        report("JSON", new ObjectMapper(), users);
+        report("CBOR", new CBORMapper(), users);
+    }
+
+    private static void report(String format, ObjectMapper mapper, List<User> users) throws Exception {
+        TypeReference<List<User>> type = new TypeReference<>() { };
+        byte[] payload = mapper.writeValueAsBytes(users);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(users), type);
+        }
+
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            byte[] bytes = mapper.writeValueAsBytes(users);
+            long encoded = System.nanoTime();
+            mapper.readValue(bytes, type);
+            decodeNanos += System.nanoTime() - encoded;
+            encodeNanos += encoded - start;
+        }
+
+        System.out.printf("%s: %d bytes for %d users (%.1f bytes/user), encode %.1f us, decode %.1f us per batch%n",
+                format, payload.length, users.size(), (double) payload.length / users.size(),
+                encodeNanos / 1_000.0 / MEASURED_ROUNDS, decodeNanos / 1_000.0 / MEASURED_ROUNDS);
+    }
+
+    private static List<User> sampleUsers() {
+        Role[] roles = Role.values();
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setEmail("user" + i + "@unihelp.tn");
+            user.setprofileImage("http://localhost:8073/uploads/profile-" + i + ".png");
+            user.setRole(roles[i % roles.length]);
+            users.add(user);
+        }
+        return users;
+    }
+}
@@ -0,0 +1,171 @@
+package com.unihelp.cours.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two in-memory H2 databases stand for the primary and a replica; each holds one marker row
+// naming the database it lives in
+class RoutingJpaTransactionManagerTest {
+
+    private static final String REPLICA = "cours-replica-0";
+
+    private JdbcTemplate replica;
+    private ReplicaLagMonitor replicaLagMonitor;
+    private ReplicaRoutingDataSource routing;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private EntityManagerFactory entityManagerFactory;
+    private RoutingJpaTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primaryDataSource = database("primary");
+        DataSource replicaDataSource = database("replica");
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("create table replication_heartbeat (id int not null primary key, beat_millis bigint not null)");
+
+        replicaLagMonitor = new ReplicaLagMonitor(primaryDataSource, Map.of(REPLICA, replicaDataSource), 2000,
+                new SimpleMeterRegistry());
+        routing = new ReplicaRoutingDataSource(replicaLagMonitor, new ReadYourWrites(5000));
+        routing.setTargetDataSources(new HashMap<>(replicaLagMonitor.dataSources()));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(new LazyConnectionDataSourceProxy(routing));
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setManagedTypes(PersistenceManagedTypes.of(Marker.class.getName()));
+        entityManagerFactoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.cache.use_second_level_cache", "true",
+                "hibernate.cache.region.factory_class", "jcache",
+                "hibernate.javax.cache.provider", "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+                "hibernate.javax.cache.missing_cache_strategy", "create"));
+        entityManagerFactoryBean.afterPropertiesSet();
+        entityManagerFactory = entityManagerFactoryBean.getObject();
+        transactionManager = new RoutingJpaTransactionManager(entityManagerFactory, routing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManagerFactoryBean.destroy();
+    }
+
+    @Test
+    void readOnlyTransactionsReadTheReplicaWithoutFillingTheCache() {
+        replicaCaughtUp();
+
+        assertThat(readMarker(true)).isEqualTo("replica");
+        assertThat(cacheModeOf(true)).isEqualTo(CacheMode.GET);
+        assertThat(entityManagerFactory.getCache().contains(Marker.class, 1)).isFalse();
+    }
+
+    @Test
+    void writesGoToThePrimaryAndFillTheCache() {
+        replicaCaughtUp();
+
+        assertThat(readMarker(false)).isEqualTo("primary");
+        assertThat(cacheModeOf(false)).isEqualTo(CacheMode.NORMAL);
+        assertThat(entityManagerFactory.getCache().contains(Marker.class, 1)).isTrue();
+    }
+
+    @Test
+    void laggingReplicaLeavesReadsOnThePrimary() {
+        replica.update("insert into replication_heartbeat (id, beat_millis) values (1, ?)", System.currentTimeMillis() - 60_000);
+        replicaLagMonitor.check();
+
+        assertThat(readMarker(true)).isEqualTo("primary");
+        assertThat(cacheModeOf(true)).isEqualTo(CacheMode.NORMAL);
+    }
+
+    @Test
+    void suspendedTransactionGetsItsTargetBack() {
+        replicaCaughtUp();
+        TransactionTemplate outer = template(true);
+        TransactionTemplate inner = template(false);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        String targets = outer.execute(status -> {
+            Object before = routing.determineCurrentLookupKey();
+            String innerMarker = inner.execute(innerStatus -> entityManager().find(Marker.class, 1).getOrigin());
+            return before + "," + innerMarker + "," + routing.determineCurrentLookupKey();
+        });
+
+        assertThat(targets).isEqualTo(REPLICA + ",primary," + REPLICA);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    private void replicaCaughtUp() {
+        replica.update("insert into replication_heartbeat (id, beat_millis) values (1, ?)", System.currentTimeMillis());
+        replicaLagMonitor.check();
+    }
+
+    private String readMarker(boolean readOnly) {
+        return template(readOnly).execute(status -> entityManager().find(Marker.class, 1).getOrigin());
+    }
+
+    private CacheMode cacheModeOf(boolean readOnly) {
+        return template(readOnly).execute(status -> entityManager().unwrap(Session.class).getCacheMode());
+    }
+
+    private EntityManager entityManager() {
+        return EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+    }
+
+    private TransactionTemplate template(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table marker (id int not null primary key, origin varchar(16))");
+        jdbc.update("insert into marker (id, origin) values (1, ?)", name);
+        return dataSource;
+    }
+
+    @Entity
+    @Table(name = "marker")
+    @Cacheable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    public static class Marker {
+
+        @Id
+        private Integer id;
+
+        private String origin;
+
+        public String getOrigin() {
+            return origin;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.dto.AssignmentStatsView;
+import com.unihelp.cours.entities.AssignmentStats;
+import com.unihelp.cours.repository.AssignmentStatsRepository;
+import com.unihelp.cours.repository.SubmissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AssignmentStatsServiceTest {
+
+    private final Map<Long, AssignmentStats> table = new HashMap<>();
+    private AssignmentStatsRepository statsRepository;
+    private SubmissionRepository submissionRepository;
+    private AssignmentStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        statsRepository = mock(AssignmentStatsRepository.class);
+        when(statsRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<Long>getArgument(0))));
+        when(statsRepository.findForUpdate(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<Long>getArgument(0))));
+        when(statsRepository.save(any())).thenAnswer(invocation -> {
+            AssignmentStats stats = invocation.getArgument(0);
+            table.put(stats.getAssignmentId(), stats);
+            return stats;
+        });
+        when(statsRepository.findGeneration(anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(table.get(invocation.<Long>getArgument(0))).map(AssignmentStats::getGeneration));
+        submissionRepository = mock(SubmissionRepository.class);
+        service = new AssignmentStatsService(statsRepository, submissionRepository,
+                new TransactionTemplate(new NoOpTransactionManager()));
+    }
+
+    private AssignmentStatsService otherInstance() {
+        return new AssignmentStatsService(statsRepository, submissionRepository,
+                new TransactionTemplate(new NoOpTransactionManager()));
+    }
+
+    @Test
+    void regradingMovesTheGradeInsteadOfCountingItTwice() {
+        service.submissionAdded(1L, 0);
+        service.submissionAdded(1L, 0);
+        service.gradeChanged(1L, 0, null, 42.0);
+        service.gradeChanged(1L, 0, 42.0, 95.0);
+        service.gradeChanged(1L, 0, null, 60.0);
+
+        AssignmentStatsView stats = service.getStats(1L);
+
+        assertThat(stats.getSubmissionCount()).isEqualTo(2);
+        assertThat(stats.getGradedCount()).isEqualTo(2);
+        assertThat(stats.getMean()).isEqualTo(77.5);
+        assertThat(stats.getHistogram()[4]).isZero();
+        assertThat(stats.getHistogram()[6]).isEqualTo(1);
+        assertThat(stats.getHistogram()[9]).isEqualTo(1);
+    }
+
+    @Test
+    void removingAGradeUncountsIt() {
+        service.gradeChanged(1L, 0, null, 80.0);
+        service.gradeChanged(1L, 0, 80.0, null);
+
+        AssignmentStatsView stats = service.getStats(1L);
+
+        assertThat(stats.getGradedCount()).isZero();
+        assertThat(stats.getMean()).isNull();
+        assertThat(stats.getHistogram()[8]).isZero();
+    }
+
+    @Test
+    void flushFoldsDeltasIntoTheStoredRow() {
+        AssignmentStats stored = new AssignmentStats(1L);
+        stored.setSubmissionCount(3);
+        stored.setGradedCount(1);
+        stored.setGradeSum(50.0);
+        stored.getHistogram()[5] = 1;
+        table.put(1L, stored);
+
+        service.submissionAdded(1L, 0);
+        service.gradeChanged(1L, 0, 50.0, 100.0);
+        service.flush();
+
+        AssignmentStats flushed = table.get(1L);
+        assertThat(flushed.getSubmissionCount()).isEqualTo(4);
+        assertThat(flushed.getGradedCount()).isEqualTo(1);
+        assertThat(flushed.getGradeSum()).isEqualTo(100.0);
+        assertThat(flushed.getHistogram()[5]).isZero();
+        assertThat(flushed.getHistogram()[9]).isEqualTo(1);
+        // Nothing left to add on top of the stored row
+        assertThat(service.getStats(1L).getSubmissionCount()).isEqualTo(4);
+    }
+
+    @Test
+    void failedFlushKeepsTheDeltas() {
+        when(statsRepository.findForUpdate(anyLong())).thenThrow(new DataAccessResourceFailureException("down"));
+        service.submissionAdded(1L, 0);
+        service.gradeChanged(1L, 0, null, 70.0);
+
+        service.flush();
+        service.submissionAdded(1L, 0);
+
+        AssignmentStatsView stats = service.getStats(1L);
+        assertThat(stats.getSubmissionCount()).isEqualTo(2);
+        assertThat(stats.getGradedCount()).isEqualTo(1);
+        assertThat(stats.getMean()).isEqualTo(70.0);
+    }
+
+    @Test
+    void deletedAssignmentsDropTheirPendingDeltas() {
+        service.submissionAdded(1L, 0);
+        service.submissionAdded(2L, 0);
+
+        service.assignmentsDeleted(List.of(1L));
+        service.flush();
+
+        assertThat(table).containsOnlyKeys(2L);
+        verify(statsRepository, never()).findForUpdate(1L);
+    }
+
+    @Test
+    void rebuildDropsDeltasItAlreadyCountedOnEveryInstance() {
+        AssignmentStatsService other = otherInstance();
+        // Both writes are in the database before the rebuild reads it, but their deltas are still pending
+        service.submissionAdded(1L, 0);
+        other.gradeChanged(1L, 0, null, 80.0);
+        when(submissionRepository.findGradesForShare(1L)).thenReturn(Arrays.asList(80.0, null));
+
+        service.rebuild(1L);
+        // A write the rebuild counted, whose delta is only published now
+        service.gradeChanged(1L, 0, null, 80.0);
+        other.flush();
+        service.flush();
+
+        AssignmentStats stored = table.get(1L);
+        assertThat(stored.getGeneration()).isEqualTo(1);
+        assertThat(stored.getSubmissionCount()).isEqualTo(2);
+        assertThat(stored.getGradedCount()).isEqualTo(1);
+        assertThat(service.getStats(1L).getMean()).isEqualTo(80.0);
+    }
+
+    @Test
+    void writesAfterARebuildAreAppliedOnTopOfIt() {
+        when(submissionRepository.findGradesForShare(1L)).thenReturn(List.of(50.0));
+        service.rebuild(1L);
+
+        long generation = service.currentGeneration(1L);
+        service.submissionAdded(1L, generation);
+        service.gradeChanged(1L, generation, null, 70.0);
+
+        assertThat(service.getStats(1L).getSubmissionCount()).isEqualTo(2);
+        service.flush();
+        assertThat(table.get(1L).getSubmissionCount()).isEqualTo(2);
+        assertThat(table.get(1L).getGradeSum()).isEqualTo(120.0);
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.entities.Course;
+import com.unihelp.cours.enums.Category;
+import com.unihelp.cours.repository.CourseRepository;
+import com.unihelp.cours.repository.CourseRepository.CourseFacet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CategoryIndexTest {
+
+    private CourseRepository courseRepository;
+    private CategoryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository = mock(CourseRepository.class);
+        index = new CategoryIndex(courseRepository);
+    }
+
+    @Test
+    void rebuildCountsEveryCategoryAndLevel() {
+        when(courseRepository.findFacets()).thenReturn(List.of(
+                facet(1L, Category.BIOLOGY, "Beginner"),
+                facet(2L, Category.BIOLOGY, "Advanced"),
+                facet(3L, Category.BIOLOGY, null),
+                facet(4L, Category.ART, "Beginner")));
+
+        index.rebuild();
+
+        assertThat(index.getFacets().getTotal()).isEqualTo(4);
+        assertThat(index.getFacets().getCategories()).containsEntry(Category.BIOLOGY, 3L).containsEntry(Category.HISTORY, 0L);
+        assertThat(index.getFacets().getLevels()).containsEntry("Beginner", 2L).containsEntry("Advanced", 1L);
+        assertThat(index.getCourseIds(Category.BIOLOGY, null, null, 10)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void levelListingsPageThroughThatLevelOnly() {
+        when(courseRepository.findFacets()).thenReturn(List.of(
+                facet(1L, Category.BIOLOGY, "Beginner"),
+                facet(2L, Category.BIOLOGY, "Advanced"),
+                facet(3L, Category.BIOLOGY, "Beginner"),
+                facet(4L, Category.BIOLOGY, "Beginner")));
+        index.rebuild();
+
+        assertThat(index.getCourseIds(Category.BIOLOGY, " Beginner ", null, 2)).containsExactly(1L, 3L);
+        assertThat(index.getCourseIds(Category.BIOLOGY, "Beginner", 3L, 2)).containsExactly(4L);
+        assertThat(index.getCourseIds(Category.BIOLOGY, "Expert", null, 2)).isEmpty();
+    }
+
+    @Test
+    void savesMoveCoursesBetweenLevelsAndDeletesDropThem() {
+        when(courseRepository.findFacets()).thenReturn(List.of(facet(1L, Category.BIOLOGY, "Beginner")));
+        index.rebuild();
+
+        index.courseSaved(course(1L, Category.BIOLOGY, "Advanced"));
+        index.courseSaved(course(2L, Category.ART, "Beginner"));
+
+        assertThat(index.getCourseIds(Category.BIOLOGY, "Beginner", null, 10)).isEmpty();
+        assertThat(index.getCourseIds(Category.BIOLOGY, "Advanced", null, 10)).containsExactly(1L);
+        assertThat(index.getFacets().getLevelsByCategory().get(Category.BIOLOGY)).containsOnlyKeys("Advanced");
+
+        index.courseDeleted(2L);
+
+        assertThat(index.getCourseIds(Category.ART, null, null, 10)).isEmpty();
+        assertThat(index.getFacets().getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    void saveReportedWhileTheQueryRunsSurvivesTheRebuild() throws InterruptedException {
+        Thread saver = new Thread(() -> index.courseSaved(course(2L, Category.ART, "Beginner")));
+        when(courseRepository.findFacets()).thenAnswer(invocation -> {
+            // The rows were read before course 2 committed; its save arrives before the swap
+            saver.start();
+            while (saver.getState() != Thread.State.BLOCKED && saver.isAlive()) {
+                Thread.onSpinWait();
+            }
+            return List.of(facet(1L, Category.BIOLOGY, "Beginner"));
+        });
+
+        index.rebuild();
+        saver.join(5000);
+
+        assertThat(index.getCourseIds(Category.ART, "Beginner", null, 10)).containsExactly(2L);
+        assertThat(index.getFacets().getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    void failedQueryKeepsTheCurrentIndex() {
+        when(courseRepository.findFacets()).thenReturn(List.of(facet(1L, Category.BIOLOGY, null)));
+        index.rebuild();
+        when(courseRepository.findFacets()).thenThrow(new IllegalStateException("database down"));
+
+        index.rebuild();
+
+        assertThat(index.getCourseIds(Category.BIOLOGY, null, null, 10)).containsExactly(1L);
+    }
+
+    private static Course course(Long id, Category category, String level) {
+        return Course.builder().id(id).category(category).level(level).build();
+    }
+
+    private static CourseFacet facet(Long id, Category category, String level) {
+        return new CourseFacet() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Category getCategory() {
+                return category;
+            }
+
+            @Override
+            public String getLevel() {
+                return level;
+            }
+        };
+    }
+}
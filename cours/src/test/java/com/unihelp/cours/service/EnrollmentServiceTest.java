@@ -0,0 +1,250 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.dto.EnrollmentView;
+import com.unihelp.cours.entities.Enrollment;
+import com.unihelp.cours.entities.SeatBucket;
+import com.unihelp.cours.exception.CourseFullException;
+import com.unihelp.cours.exception.CourseNotFoundException;
+import com.unihelp.cours.repository.CourseRepository;
+import com.unihelp.cours.repository.CourseRepository.CourseSeats;
+import com.unihelp.cours.repository.EnrollmentRepository;
+import com.unihelp.cours.repository.SeatBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EnrollmentServiceTest {
+
+    private static final long COURSE = 1L;
+
+    // course_seat_bucket, updated the way the conditional UPDATEs do
+    private final List<SeatBucket> buckets = new ArrayList<>();
+    private Integer capacity = 2;
+    // course.enrolled_count from before the buckets
+    private int legacyEnrolled;
+
+    private EnrollmentRepository enrollmentRepository;
+    private CourseRepository courseRepository;
+    private SeatBucketRepository seatBucketRepository;
+    private NoOpTransactionManager transactionManager;
+    private EnrollmentService service;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository = mock(EnrollmentRepository.class);
+        courseRepository = mock(CourseRepository.class);
+        seatBucketRepository = mock(SeatBucketRepository.class);
+        when(seatBucketRepository.takeSeat(anyLong(), anyInt())).thenAnswer(invocation ->
+                bucket(invocation.getArgument(0), invocation.getArgument(1))
+                        .filter(bucket -> bucket.getSeats() == null || bucket.getTaken() < bucket.getSeats())
+                        .map(bucket -> {
+                            bucket.setTaken(bucket.getTaken() + 1);
+                            return 1;
+                        })
+                        .orElse(0));
+        when(seatBucketRepository.releaseSeat(anyLong(), anyInt())).thenAnswer(invocation ->
+                bucket(invocation.getArgument(0), invocation.getArgument(1))
+                        .filter(bucket -> bucket.getTaken() > 0)
+                        .map(bucket -> {
+                            bucket.setTaken(bucket.getTaken() - 1);
+                            return 1;
+                        })
+                        .orElse(0));
+        when(seatBucketRepository.insertIfAbsent(anyLong(), anyInt(), any(), anyInt())).thenAnswer(invocation -> {
+            if (bucket(invocation.getArgument(0), invocation.getArgument(1)).isPresent()) {
+                return 0;
+            }
+            buckets.add(new SeatBucket(null, invocation.getArgument(0), invocation.getArgument(1),
+                    invocation.getArgument(2), invocation.getArgument(3)));
+            return 1;
+        });
+        when(seatBucketRepository.countByCourseId(anyLong())).thenAnswer(invocation ->
+                bucketsOf(invocation.getArgument(0)).count());
+        when(seatBucketRepository.sumTaken(anyLong())).thenAnswer(invocation -> {
+            List<SeatBucket> course = bucketsOf(invocation.getArgument(0)).toList();
+            return course.isEmpty() ? null : course.stream().mapToLong(SeatBucket::getTaken).sum();
+        });
+        when(seatBucketRepository.findForUpdate(anyLong())).thenAnswer(invocation ->
+                bucketsOf(invocation.getArgument(0)).sorted(Comparator.comparingInt(SeatBucket::getBucket)).toList());
+        when(courseRepository.findSeats(COURSE)).thenAnswer(invocation -> Optional.of(seats()));
+        when(courseRepository.findSeats(2L)).thenReturn(Optional.empty());
+        when(enrollmentRepository.findCourseIdsByUserId(anyLong())).thenReturn(List.of());
+        when(enrollmentRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transactionManager = new NoOpTransactionManager();
+        service = new EnrollmentService(enrollmentRepository, courseRepository, seatBucketRepository,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "userCacheSize", 100L);
+        service.createCache();
+    }
+
+    @Test
+    void seatsRunOutAtCapacity() {
+        assertThat(service.enroll(COURSE, 10L).isCreated()).isTrue();
+        assertThat(service.enroll(COURSE, 11L).isCreated()).isTrue();
+
+        assertThatThrownBy(() -> service.enroll(COURSE, 12L)).isInstanceOf(CourseFullException.class);
+        assertThat(service.getSeatCount(COURSE).getEnrolled()).isEqualTo(2);
+        assertThat(service.isEnrolled(COURSE, 10L)).isTrue();
+        assertThat(service.isEnrolled(COURSE, 12L)).isFalse();
+    }
+
+    @Test
+    void unenrollingFreesTheSeat() {
+        service.enroll(COURSE, 10L);
+        service.enroll(COURSE, 11L);
+        when(enrollmentRepository.deleteByCourseIdAndUserId(COURSE, 10L)).thenReturn(1);
+
+        service.unenroll(COURSE, 10L);
+
+        assertThat(service.isEnrolled(COURSE, 10L)).isFalse();
+        assertThat(service.enroll(COURSE, 12L).isCreated()).isTrue();
+        assertThat(service.getSeatCount(COURSE).getEnrolled()).isEqualTo(2);
+    }
+
+    @Test
+    void unlimitedCoursesNeverFill() {
+        capacity = null;
+        for (long userId = 10; userId < 20; userId++) {
+            service.enroll(COURSE, userId);
+        }
+        assertThat(service.getSeatCount(COURSE).getEnrolled()).isEqualTo(10);
+        assertThat(bucketsOf(COURSE)).hasSize(EnrollmentService.SEAT_BUCKETS).allMatch(bucket -> bucket.getSeats() == null);
+    }
+
+    @Test
+    void bucketsStartFromTheCountEnrolledBeforeThem() {
+        legacyEnrolled = 1;
+        assertThat(service.getSeatCount(COURSE).getEnrolled()).isEqualTo(1);
+
+        assertThat(service.enroll(COURSE, 10L).isCreated()).isTrue();
+
+        assertThatThrownBy(() -> service.enroll(COURSE, 11L)).isInstanceOf(CourseFullException.class);
+        assertThat(service.getSeatCount(COURSE).getEnrolled()).isEqualTo(2);
+    }
+
+    @Test
+    void raisingTheCapacityKeepsTheSeatsAlreadyTaken() {
+        service.enroll(COURSE, 10L);
+        service.enroll(COURSE, 11L);
+
+        service.changeCapacity(COURSE, 20);
+        capacity = 20;
+
+        assertThat(bucketsOf(COURSE).mapToInt(SeatBucket::getSeats).sum()).isEqualTo(20);
+        for (long userId = 12; userId < 30; userId++) {
+            service.enroll(COURSE, userId);
+        }
+        assertThatThrownBy(() -> service.enroll(COURSE, 30L)).isInstanceOf(CourseFullException.class);
+        assertThat(service.getSeatCount(COURSE).getEnrolled()).isEqualTo(20);
+    }
+
+    @Test
+    void capacityBelowTheEnrolledCountIsRejected() {
+        service.enroll(COURSE, 10L);
+        service.enroll(COURSE, 11L);
+
+        assertThatThrownBy(() -> service.changeCapacity(COURSE, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(bucketsOf(COURSE).mapToInt(SeatBucket::getSeats).sum()).isEqualTo(2);
+    }
+
+    @Test
+    void unknownCourseIsNotFoundRatherThanFull() {
+        assertThatThrownBy(() -> service.enroll(2L, 10L)).isInstanceOf(CourseNotFoundException.class);
+        verify(enrollmentRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void concurrentDuplicateRollsBackAndReturnsTheExistingEnrolment() {
+        LocalDateTime enrolledAt = LocalDateTime.now().minusMinutes(1);
+        when(enrollmentRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uk_enrollment_course_user"));
+        when(enrollmentRepository.findByCourseIdAndUserId(COURSE, 10L))
+                .thenReturn(Optional.of(new Enrollment(5L, COURSE, 10L, enrolledAt)));
+
+        EnrollmentView view = service.enroll(COURSE, 10L);
+
+        assertThat(view.isCreated()).isFalse();
+        assertThat(view.getEnrolledAt()).isEqualTo(enrolledAt);
+        assertThat(transactionManager.rollbacks).isEqualTo(1);
+        assertThat(transactionManager.commits).isZero();
+    }
+
+    @Test
+    void alreadyEnrolledUsersDoNotTakeAnotherSeat() {
+        when(enrollmentRepository.findCourseIdsByUserId(10L)).thenReturn(List.of(COURSE));
+
+        assertThat(service.enroll(COURSE, 10L).isCreated()).isFalse();
+        verify(seatBucketRepository, never()).takeSeat(eq(COURSE), anyInt());
+    }
+
+    private Optional<SeatBucket> bucket(Long courseId, int bucket) {
+        return bucketsOf(courseId).filter(row -> row.getBucket() == bucket).findFirst();
+    }
+
+    private Stream<SeatBucket> bucketsOf(Long courseId) {
+        return buckets.stream().filter(bucket -> bucket.getCourseId().equals(courseId));
+    }
+
+    private CourseSeats seats() {
+        return new CourseSeats() {
+            @Override
+            public Long getId() {
+                return COURSE;
+            }
+
+            @Override
+            public Integer getCapacity() {
+                return capacity;
+            }
+
+            @Override
+            public int getEnrolledCount() {
+                return legacyEnrolled;
+            }
+        };
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        int commits;
+        int rollbacks;
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            rollbacks++;
+        }
+    }
+}
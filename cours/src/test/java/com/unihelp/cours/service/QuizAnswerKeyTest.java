@@ -0,0 +1,118 @@
+package com.unihelp.cours.service;
+
+import com.unihelp.cours.dto.QuizResult;
+import com.unihelp.cours.dto.QuizView;
+import com.unihelp.cours.entities.Option;
+import com.unihelp.cours.entities.Question;
+import com.unihelp.cours.entities.Quiz;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuizAnswerKeyTest {
+
+    private final List<Question> questions = new ArrayList<>();
+    private final List<Option> options = new ArrayList<>();
+    private QuizAnswerKey key;
+
+    // Question 10: single choice, 101 correct. Question 20: 201 and 203 correct.
+    // Question 30: 70 options, only the last (id 369) correct, so the bitset spans two words
+    @BeforeEach
+    void setUp() {
+        Quiz quiz = new Quiz();
+        quiz.setId(1L);
+        quiz.setTitle("Java basics");
+        question(10L, List.of(101L), 101L, 102L, 103L);
+        question(20L, List.of(201L, 203L), 201L, 202L, 203L);
+        long[] many = new long[70];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = 300L + i;
+        }
+        question(30L, List.of(369L), many);
+        key = QuizAnswerKey.build(quiz, questions, options);
+    }
+
+    @Test
+    void scoresOnlyExactlyCorrectSelections() {
+        QuizResult result = key.grade(7L, answers(
+                10L, List.of(101L),
+                20L, List.of(203L, 201L),
+                30L, List.of(369L)));
+
+        assertThat(result.getQuizId()).isEqualTo(1L);
+        assertThat(result.getUserId()).isEqualTo(7L);
+        assertThat(result.getScore()).isEqualTo(3);
+        assertThat(result.getMaxScore()).isEqualTo(3);
+        assertThat(result.getCorrectQuestionIds()).containsExactlyInAnyOrder(10L, 20L, 30L);
+    }
+
+    @Test
+    void partialOrExtraSelectionsDoNotScore() {
+        QuizResult result = key.grade(7L, answers(
+                10L, List.of(101L, 102L),
+                20L, List.of(201L),
+                30L, List.of(369L, 300L)));
+
+        assertThat(result.getScore()).isZero();
+        assertThat(result.getMaxScore()).isEqualTo(3);
+    }
+
+    @Test
+    void ignoresUnknownQuestionsAndRejectsOptionsOfOtherQuestions() {
+        QuizResult result = key.grade(7L, answers(
+                99L, List.of(101L),
+                10L, List.of(201L),
+                20L, Arrays.asList(201L, null)));
+
+        assertThat(result.getScore()).isZero();
+    }
+
+    @Test
+    void emptySelectionNeverMatches() {
+        QuizResult result = key.grade(7L, answers(10L, List.of()));
+
+        assertThat(result.getScore()).isZero();
+    }
+
+    @Test
+    void viewHidesAnswersAndKeepsIdOrder() {
+        QuizView view = key.view();
+
+        assertThat(view.getQuestions()).extracting(QuizView.QuestionView::getId).containsExactly(10L, 20L, 30L);
+        assertThat(view.getQuestions().get(0).getOptions())
+                .extracting(QuizView.OptionView::getId)
+                .containsExactly(101L, 102L, 103L);
+    }
+
+    private void question(long id, List<Long> correctOptions, long... optionIds) {
+        Question question = new Question();
+        question.setId(id);
+        question.setText("Question " + id);
+        questions.add(question);
+        for (long optionId : optionIds) {
+            Option option = new Option();
+            option.setId(optionId);
+            option.setText("Option " + optionId);
+            option.setCorrect(correctOptions.contains(optionId));
+            option.setQuestion(question);
+            options.add(option);
+        }
+    }
+
+    private static Map<Long, List<Long>> answers(Object... questionAndOptions) {
+        Map<Long, List<Long>> answers = new HashMap<>();
+        for (int i = 0; i < questionAndOptions.length; i += 2) {
+            @SuppressWarnings("unchecked")
+            List<Long> selected = (List<Long>) questionAndOptions[i + 1];
+            answers.put((Long) questionAndOptions[i], selected);
+        }
+        return answers;
+    }
+}
@@ -0,0 +1,5 @@
+package com.unihelp.discovery;
+
+// REGISTER carries the full instance (also used for status changes), CANCEL only app and instance id
+public record RegistryChange(long seq, String action, RegistryInstance instance) {
+}
@@ -0,0 +1,36 @@
+package com.unihelp.discovery;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+// Registry push for the cours and gateway watchers: a full snapshot once, then long polls that
+// return as soon as an instance registers, changes status or goes away
+@RestController
+@RequestMapping("/registry")
+public class RegistryChangeController {
+
+    private static final long MAX_TIMEOUT_MS = 60_000;
+
+    private final RegistryChangeFeed registryChangeFeed;
+
+    public RegistryChangeController(RegistryChangeFeed registryChangeFeed) {
+        this.registryChangeFeed = registryChangeFeed;
+    }
+
+    @GetMapping("/snapshot")
+    public RegistrySnapshot snapshot() {
+        return registryChangeFeed.snapshot();
+    }
+
+    @GetMapping("/changes")
+    public DeferredResult<RegistryChanges> changes(@RequestParam String epoch,
+                                                   @RequestParam long since,
+                                                   @RequestParam(defaultValue = "25000") long timeoutMs) {
+        DeferredResult<RegistryChanges> result = new DeferredResult<>(Math.min(timeoutMs, MAX_TIMEOUT_MS));
+        registryChangeFeed.poll(epoch, since, result);
+        return result;
+    }
+}
@@ -0,0 +1,133 @@
+package com.unihelp.discovery;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.shared.Application;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceCanceledEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRegisteredEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Numbered log of register/cancel events (evictions included) kept in a bounded buffer, so that
+// clients can long-poll for what changed since their last position instead of re-fetching the
+// registry on a timer. The epoch changes with every restart of this server.
+@Component
+public class RegistryChangeFeed {
+
+    private static final int SNAPSHOT_REPLAY = 16;
+
+    private final PeerAwareInstanceRegistry registry;
+    private final String epoch = UUID.randomUUID().toString();
+    private final Deque<RegistryChange> buffer = new ArrayDeque<>();
+    private final List<Waiter> waiters = new ArrayList<>();
+    private long seq;
+
+    @Value("${discovery.changes.buffer-size:1024}")
+    private int bufferSize;
+
+    public RegistryChangeFeed(@Lazy PeerAwareInstanceRegistry registry) {
+        this.registry = registry;
+    }
+
+    @EventListener
+    public void onRegistered(EurekaInstanceRegisteredEvent event) {
+        InstanceInfo info = event.getInstanceInfo();
+        append("REGISTER", RegistryInstance.of(info, upSince(info, event.getTimestamp())));
+    }
+
+    @EventListener
+    public void onCanceled(EurekaInstanceCanceledEvent event) {
+        append("CANCEL", new RegistryInstance(event.getServerId(), event.getAppName(), null, 0, false, null, 0));
+    }
+
+    public RegistrySnapshot snapshot() {
+        long position;
+        synchronized (this) {
+            // Eureka publishes the event just before updating the registry, so the snapshot starts
+            // a few changes back; replaying changes already in it is harmless
+            long oldest = buffer.isEmpty() ? seq : buffer.peekFirst().seq() - 1;
+            position = Math.max(oldest, seq - SNAPSHOT_REPLAY);
+        }
+        Map<String, List<RegistryInstance>> apps = new HashMap<>();
+        for (Application application : registry.getApplications().getRegisteredApplications()) {
+            apps.put(application.getName(), application.getInstances().stream().map(RegistryInstance::of).toList());
+        }
+        return new RegistrySnapshot(epoch, position, apps);
+    }
+
+    public synchronized void poll(String clientEpoch, long since, DeferredResult<RegistryChanges> result) {
+        RegistryChanges changes = changesSince(clientEpoch, since);
+        if (changes.reset() || !changes.changes().isEmpty()) {
+            result.setResult(changes);
+            return;
+        }
+        Waiter waiter = new Waiter(since, result);
+        waiters.add(waiter);
+        result.onTimeout(() -> {
+            synchronized (this) {
+                waiters.remove(waiter);
+            }
+            result.setResult(new RegistryChanges(epoch, since, false, List.of()));
+        });
+        result.onCompletion(() -> {
+            synchronized (this) {
+                waiters.remove(waiter);
+            }
+        });
+    }
+
+    // The registrant's own LeaseInfo has no service-up time, and the event comes before Eureka records
+    // the lease. Like Eureka, a re-registration keeps the existing lease's time; a new instance came up
+    // when it registered
+    private long upSince(InstanceInfo info, long registeredAt) {
+        Application application = registry.getApplication(info.getAppName());
+        InstanceInfo known = application != null ? application.getByInstanceId(info.getId()) : null;
+        if (known != null && known.getLeaseInfo() != null && known.getLeaseInfo().getServiceUpTimestamp() > 0) {
+            return known.getLeaseInfo().getServiceUpTimestamp();
+        }
+        return registeredAt;
+    }
+
+    private synchronized void append(String action, RegistryInstance instance) {
+        buffer.addLast(new RegistryChange(++seq, action, instance));
+        while (buffer.size() > bufferSize) {
+            buffer.removeFirst();
+        }
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+            Waiter waiter = it.next();
+            it.remove();
+            waiter.result().setResult(changesSince(epoch, waiter.since()));
+        }
+    }
+
+    private RegistryChanges changesSince(String clientEpoch, long since) {
+        boolean lost = !epoch.equals(clientEpoch)
+                || since > seq
+                || (!buffer.isEmpty() && since < buffer.peekFirst().seq() - 1);
+        if (lost) {
+            return new RegistryChanges(epoch, seq, true, List.of());
+        }
+        List<RegistryChange> changes = new ArrayList<>();
+        for (RegistryChange change : buffer) {
+            if (change.seq() > since) {
+                changes.add(change);
+            }
+        }
+        return new RegistryChanges(epoch, seq, false, changes);
+    }
+
+    private record Waiter(long since, DeferredResult<RegistryChanges> result) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.unihelp.discovery;
+
+import java.util.List;
+
+// Answer to a long poll: reset means the client's position is gone (other epoch, or too far
+// behind the buffer) and it has to start again from a snapshot
+public record RegistryChanges(String epoch, long seq, boolean reset, List<RegistryChange> changes) {
+}
@@ -0,0 +1,20 @@
+package com.unihelp.discovery;
+
+import com.netflix.appinfo.InstanceInfo;
+
+// The part of an Eureka InstanceInfo that clients need to route to an instance
+public record RegistryInstance(String instanceId, String app, String host, int port, boolean secure,
+                               String status, long upSince) {
+
+    // For instances read from the registry, whose lease knows when they came up
+    static RegistryInstance of(InstanceInfo info) {
+        return of(info, info.getLeaseInfo() != null ? info.getLeaseInfo().getServiceUpTimestamp() : 0);
+    }
+
+    static RegistryInstance of(InstanceInfo info, long upSince) {
+        boolean secure = info.isPortEnabled(InstanceInfo.PortType.SECURE);
+        return new RegistryInstance(info.getInstanceId(), info.getAppName(), info.getHostName(),
+                secure ? info.getSecurePort() : info.getPort(), secure,
+                info.getStatus().name(), upSince);
+    }
+}
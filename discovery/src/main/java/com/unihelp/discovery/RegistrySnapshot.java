@@ -0,0 +1,7 @@
+package com.unihelp.discovery;
+
+import java.util.List;
+import java.util.Map;
+
+public record RegistrySnapshot(String epoch, long seq, Map<String, List<RegistryInstance>> apps) {
+}
@@ -0,0 +1,92 @@
+package com.unihelp.discovery;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.LeaseInfo;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceCanceledEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRegisteredEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RegistryChangeFeedTest {
+
+    private PeerAwareInstanceRegistry registry;
+    private RegistryChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        registry = mock(PeerAwareInstanceRegistry.class);
+        when(registry.getApplications()).thenReturn(new Applications());
+        feed = new RegistryChangeFeed(registry);
+        ReflectionTestUtils.setField(feed, "bufferSize", 16);
+    }
+
+    @Test
+    void newInstanceIsUpSinceItRegistered() {
+        EurekaInstanceRegisteredEvent event = registered(instance("user-1", 0));
+
+        feed.onRegistered(event);
+
+        List<RegistryChange> changes = changesSince(0);
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).action()).isEqualTo("REGISTER");
+        assertThat(changes.get(0).instance().upSince()).isEqualTo(event.getTimestamp());
+    }
+
+    @Test
+    void reRegistrationKeepsTheLeaseServiceUpTime() {
+        Application application = new Application("USER");
+        application.addInstance(instance("user-1", 1_000L));
+        when(registry.getApplication("USER")).thenReturn(application);
+
+        feed.onRegistered(registered(instance("user-1", 0)));
+
+        assertThat(changesSince(0).get(0).instance().upSince()).isEqualTo(1_000L);
+    }
+
+    @Test
+    void changesAreReturnedInOrderFromTheClientsPosition() {
+        feed.onRegistered(registered(instance("user-1", 0)));
+        feed.onRegistered(registered(instance("user-2", 0)));
+        feed.onCanceled(new EurekaInstanceCanceledEvent(this, "USER", "user-1", false));
+
+        List<RegistryChange> changes = changesSince(1);
+
+        assertThat(changes).extracting(RegistryChange::seq).containsExactly(2L, 3L);
+        assertThat(changes).extracting(RegistryChange::action).containsExactly("REGISTER", "CANCEL");
+        assertThat(changes.get(1).instance().instanceId()).isEqualTo("user-1");
+    }
+
+    private List<RegistryChange> changesSince(long since) {
+        DeferredResult<RegistryChanges> result = new DeferredResult<>();
+        feed.poll(feed.snapshot().epoch(), since, result);
+        RegistryChanges changes = (RegistryChanges) result.getResult();
+        assertThat(changes.reset()).isFalse();
+        return changes.changes();
+    }
+
+    private EurekaInstanceRegisteredEvent registered(InstanceInfo info) {
+        return new EurekaInstanceRegisteredEvent(this, info, 30, false);
+    }
+
+    private static InstanceInfo instance(String id, long serviceUpTimestamp) {
+        return InstanceInfo.Builder.newBuilder()
+                .setAppName("USER")
+                .setInstanceId(id)
+                .setHostName(id + ".local")
+                .setPort(8073)
+                .setStatus(InstanceInfo.InstanceStatus.UP)
+                .setLeaseInfo(LeaseInfo.Builder.newBuilder().setServiceUpTimestamp(serviceUpTimestamp).build())
+                .build();
+    }
+}
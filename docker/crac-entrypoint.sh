@@ -0,0 +1,17 @@
+#!/bin/sh
+# Restores from /crac when a checkpoint exists; otherwise starts normally, lets Spring take the
+# checkpoint once the context is refreshed (the JVM exits after the dump) and then restores it.
+# The checkpoint is taken with the container's real environment, so /crac should be a volume
+# kept per service.
+CHECKPOINT_DIR=${CRAC_CHECKPOINT_DIR:-/crac}
+
+if [ ! -f "$CHECKPOINT_DIR/core.img" ]; then
+    mkdir -p "$CHECKPOINT_DIR"
+    java -XX:CRaCCheckpointTo="$CHECKPOINT_DIR" \
+         -Dspring.context.checkpoint=onRefresh \
+         -Dspring.aot.enabled=true \
+         -Dspring.cloud.refresh.enabled=false \
+         -jar app.jar
+fi
+
+exec java -XX:CRaCRestoreFrom="$CHECKPOINT_DIR"
@@ -0,0 +1,21 @@
+#!/bin/sh
+# Prints how long each service took to start, as logged by Spring Boot
+# ("Started ... in X seconds" for a normal or AOT/CDS start, "Restored ..." after a CRaC restore).
+# Usage: docker/startup-report.sh [compose files...]
+#   docker/startup-report.sh -f docker-compose.yml -f docker-compose.fast.yml
+SERVICES="discovery config-server user cours gateway"
+
+printf '%-15s %-10s %-12s %s\n' SERVICE MODE STARTUP_S PROCESS_S
+for service in $SERVICES; do
+    for container in $(docker compose "$@" ps -q "$service"); do
+        line=$(docker logs "$container" 2>&1 | grep -E '(Started|Restored) .* in [0-9.]+ seconds' | tail -n 1)
+        if [ -z "$line" ]; then
+            printf '%-15s %-10s %-12s %s\n' "$service" "-" "not started" "-"
+            continue
+        fi
+        mode=$(echo "$line" | grep -q 'Restored' && echo crac || echo jvm)
+        startup=$(echo "$line" | sed -E 's/.* in ([0-9.]+) seconds.*/\1/')
+        process=$(echo "$line" | sed -nE 's/.*process running for ([0-9.]+).*/\1/p')
+        printf '%-15s %-10s %-12s %s\n' "$service" "$mode" "$startup" "${process:--}"
+    done
+done
@@ -0,0 +1,11 @@
+package com.unihelp.gateway.config;
+
+import com.unihelp.gateway.loadbalancer.LatencyAwareLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+// Latency-aware instance choice for every load-balanced client (lb://COURS, lb://USER and the discovery routes)
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
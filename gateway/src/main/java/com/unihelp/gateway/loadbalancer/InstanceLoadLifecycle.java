@@ -0,0 +1,84 @@
+package com.unihelp.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.net.ConnectException;
+
+// Feeds InstanceLoadRegistry from every load-balanced call: in-flight count around the request,
+// latency of successful ones, and drains instances that refuse connections or answer 503
+// (typically because they are shutting down)
+@Component
+public class InstanceLoadLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final InstanceLoadRegistry instanceLoadRegistry;
+
+    public InstanceLoadLifecycle(InstanceLoadRegistry instanceLoadRegistry) {
+        this.instanceLoadRegistry = instanceLoadRegistry;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext timed) {
+            timed.setRequestStartTime(System.nanoTime());
+        }
+        instanceLoadRegistry.get(lbResponse.getServer()).started();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        instanceLoadRegistry.get(instance).finished();
+
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            if (refused(completionContext.getThrowable())) {
+                instanceLoadRegistry.drain(instance);
+            }
+            return;
+        }
+        if (completionContext.getClientResponse() instanceof ResponseData response
+                && response.getHttpStatus() != null
+                && response.getHttpStatus().value() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+            instanceLoadRegistry.drain(instance);
+            return;
+        }
+        if (completionContext.getLoadBalancerRequest().getContext() instanceof TimedRequestContext timed
+                && timed.getRequestStartTime() > 0) {
+            instanceLoadRegistry.recordLatency(instance, System.nanoTime() - timed.getRequestStartTime());
+        }
+    }
+
+    // A refused connection means the instance is gone or going away; a read timeout or any other
+    // failure says nothing about the instance's health and must not take it out of rotation
+    private static boolean refused(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,102 @@
+package com.unihelp.gateway.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.netflix.eureka.EurekaServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-instance in-flight count, EWMA latency, warm-up start and drain state, shared by every
+// load-balanced route of the gateway
+//
+// This package exists in both cours and gateway and is kept in step; the copies differ only in property
+// prefix and Lombok use. Every service builds from its own directory and pom, with no shared module
+@Component
+public class InstanceLoadRegistry {
+
+    // Set on instances coming from RegistryWatcher, which are not EurekaServiceInstances
+    static final String UP_SINCE_METADATA = "up-since";
+
+    private final Map<String, InstanceLoad> loads = new ConcurrentHashMap<>();
+    private final AtomicLong nextPruneMillis = new AtomicLong();
+
+    @Value("${gateway.loadbalancer.ewma-alpha:0.3}")
+    private double ewmaAlpha;
+
+    @Value("${gateway.loadbalancer.warmup-ms:60000}")
+    private long warmupMs;
+
+    @Value("${gateway.loadbalancer.min-weight:0.1}")
+    private double minWeight;
+
+    @Value("${gateway.loadbalancer.drain-ms:30000}")
+    private long drainMs;
+
+    @Value("${gateway.loadbalancer.evict-after-ms:600000}")
+    private long evictAfterMs;
+
+    // Without a reported start the first time we saw the instance will do; it is taken once, when the
+    // instance is first seen, so later lookups never restart its warm-up or reset its latency
+    public InstanceLoad get(ServiceInstance instance) {
+        long now = System.currentTimeMillis();
+        pruneIfDue(now);
+        long upSince = reportedUpSince(instance);
+        InstanceLoad load = loads.computeIfAbsent(key(instance),
+                key -> new InstanceLoad(upSince > 0 ? upSince : now));
+        if (upSince > 0) {
+            load.upSince(upSince);
+        }
+        load.seen(now);
+        return load;
+    }
+
+    void recordLatency(ServiceInstance instance, long nanos) {
+        get(instance).recordLatency(nanos, ewmaAlpha);
+    }
+
+    void drain(ServiceInstance instance) {
+        get(instance).drainFor(drainMs);
+    }
+
+    // Grows linearly from min-weight to 1 over the warm-up period after the instance came up
+    double weight(InstanceLoad load) {
+        long age = System.currentTimeMillis() - load.getUpSinceMillis();
+        if (age >= warmupMs) {
+            return 1.0;
+        }
+        return Math.max(minWeight, (double) age / warmupMs);
+    }
+
+    // Every choice looks up all the candidates the supplier (or RegistryWatcher) lists, so an entry not
+    // looked up for evict-after-ms belongs to an instance that is gone, or to an idle service that will
+    // get it back with its reported start. Runs on a calling thread, at most twice per period
+    private void pruneIfDue(long now) {
+        long due = nextPruneMillis.get();
+        if (now < due || !nextPruneMillis.compareAndSet(due, now + evictAfterMs / 2)) {
+            return;
+        }
+        loads.values().removeIf(load -> load.getInFlight() == 0 && now - load.getLastSeenMillis() > evictAfterMs);
+    }
+
+    // When Eureka says the instance came up, or 0 if nobody knows
+    private static long reportedUpSince(ServiceInstance instance) {
+        if (instance instanceof EurekaServiceInstance eureka && eureka.getInstanceInfo().getLeaseInfo() != null) {
+            long upTimestamp = eureka.getInstanceInfo().getLeaseInfo().getServiceUpTimestamp();
+            if (upTimestamp > 0) {
+                return upTimestamp;
+            }
+        }
+        String upSince = instance.getMetadata() != null ? instance.getMetadata().get(UP_SINCE_METADATA) : null;
+        if (upSince != null && Long.parseLong(upSince) > 0) {
+            return Long.parseLong(upSince);
+        }
+        return 0;
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "/" + instance.getHost() + ":" + instance.getPort();
+    }
+}
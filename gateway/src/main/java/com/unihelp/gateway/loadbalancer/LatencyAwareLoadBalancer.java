@@ -0,0 +1,83 @@
+package com.unihelp.gateway.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Power of two choices: two random instances are compared on EWMA latency times requests in
+// flight, divided by their warm-up weight, and the cheaper one wins. Draining instances are left
+// out unless nothing else is available.
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final InstanceLoadRegistry instanceLoadRegistry;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                    String serviceId, InstanceLoadRegistry instanceLoadRegistry) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.instanceLoadRegistry = instanceLoadRegistry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        List<ServiceInstance> candidates = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!instanceLoadRegistry.get(instance).isDraining()) {
+                candidates.add(instance);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = instances;
+        }
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        InstanceLoad loadA = instanceLoadRegistry.get(a);
+        InstanceLoad loadB = instanceLoadRegistry.get(b);
+
+        // An instance without latency samples yet is assumed as fast as the other one
+        long latencyA = loadA.getEwmaNanos() > 0 ? loadA.getEwmaNanos() : Math.max(loadB.getEwmaNanos(), 1);
+        long latencyB = loadB.getEwmaNanos() > 0 ? loadB.getEwmaNanos() : Math.max(loadA.getEwmaNanos(), 1);
+        return new DefaultResponse(cost(loadA, latencyA) <= cost(loadB, latencyB) ? a : b);
+    }
+
+    private double cost(InstanceLoad load, long latencyNanos) {
+        return (double) latencyNanos * (load.getInFlight() + 1) / instanceLoadRegistry.weight(load);
+    }
+}
@@ -0,0 +1,35 @@
+package com.unihelp.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+// Per-client load balancer configuration, registered for every client by config.LoadBalancerConfig;
+// deliberately not a @Configuration so that it only lives in the per-client contexts
+public class LatencyAwareLoadBalancerConfiguration {
+
+    @Bean
+    ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(Environment environment,
+                                                                  LoadBalancerClientFactory loadBalancerClientFactory,
+                                                                  InstanceLoadRegistry instanceLoadRegistry) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LatencyAwareLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class),
+                name, instanceLoadRegistry);
+    }
+
+    // Watcher view first (pushed by discovery), Eureka client cache behind the LB cache otherwise
+    @Bean
+    ServiceInstanceListSupplier registryOverlayServiceInstanceListSupplier(ConfigurableApplicationContext context,
+                                                                          RegistryWatcher registryWatcher) {
+        return ServiceInstanceListSupplier.builder()
+                .withDiscoveryClient()
+                .withCaching()
+                .with((ctx, delegate) -> new RegistryOverlayServiceInstanceListSupplier(delegate, registryWatcher))
+                .build(context);
+    }
+}
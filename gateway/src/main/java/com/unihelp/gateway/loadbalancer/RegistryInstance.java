@@ -0,0 +1,6 @@
+package com.unihelp.gateway.loadbalancer;
+
+// Instance as published by discovery's /registry endpoints
+public record RegistryInstance(String instanceId, String app, String host, int port, boolean secure,
+                               String status, long upSince) {
+}
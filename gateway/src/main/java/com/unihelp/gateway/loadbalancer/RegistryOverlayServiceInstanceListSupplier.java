@@ -0,0 +1,27 @@
+package com.unihelp.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+// Answers from the RegistryWatcher view when it has one, from the Eureka client cache otherwise
+public class RegistryOverlayServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final RegistryWatcher registryWatcher;
+
+    public RegistryOverlayServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
+                                                      RegistryWatcher registryWatcher) {
+        super(delegate);
+        this.registryWatcher = registryWatcher;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return Flux.defer(() -> registryWatcher.instances(getServiceId())
+                .<Flux<List<ServiceInstance>>>map(Flux::just)
+                .orElseGet(() -> delegate.get()));
+    }
+}
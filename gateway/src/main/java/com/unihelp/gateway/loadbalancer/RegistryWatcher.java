@@ -0,0 +1,194 @@
+package com.unihelp.gateway.loadbalancer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Mirror of the discovery registry kept current by long-polling /registry/changes, so a new or
+// departed instance is seen within a round trip instead of after the next registry fetch and load
+// balancer cache expiry. The view is saved to disk and reloaded on startup, which lets the gateway
+// route even if discovery is down while it starts.
+@Component
+public class RegistryWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistryWatcher.class);
+
+    private final ObjectMapper objectMapper;
+    private final RestClient restClient;
+    private final String discoveryUrl;
+    private final boolean enabled;
+    private final long pollTimeoutMs;
+    private final File snapshotFile;
+
+    // app name (lower case) -> instance id -> instance
+    private final Map<String, Map<String, RegistryInstance>> apps = new ConcurrentHashMap<>();
+    private volatile boolean available;
+    private String epoch = "";
+    private long seq = -1;
+    private Thread thread;
+
+    public RegistryWatcher(ObjectMapper objectMapper,
+                           @Value("${eureka.client.service-url.defaultZone:${DISCOVERY_SERVICE_URL:http://localhost:8761/eureka/}}") String defaultZone,
+                           @Value("${gateway.discovery.watch.enabled:true}") boolean enabled,
+                           @Value("${gateway.discovery.watch.poll-timeout-ms:25000}") long pollTimeoutMs,
+                           @Value("${gateway.discovery.watch.snapshot-file:${java.io.tmpdir}/gateway-registry.json}") String snapshotFile) {
+        this.objectMapper = objectMapper;
+        this.discoveryUrl = defaultZone.split(",")[0].trim().replaceAll("/eureka/?$", "");
+        this.enabled = enabled;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.snapshotFile = new File(snapshotFile);
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(2));
+        requestFactory.setReadTimeout(Duration.ofMillis(pollTimeoutMs + 10_000));
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    // UP instances of the service, or empty while there is no view to answer from
+    public Optional<List<ServiceInstance>> instances(String serviceId) {
+        if (!enabled || !available) {
+            return Optional.empty();
+        }
+        Map<String, RegistryInstance> instances = apps.getOrDefault(serviceId.toLowerCase(), Map.of());
+        return Optional.of(instances.values().stream()
+                .filter(instance -> "UP".equals(instance.status()))
+                .map(instance -> toServiceInstance(serviceId, instance))
+                .toList());
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        loadSnapshotFile();
+        thread = new Thread(this::watch, "registry-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void watch() {
+        long backoffMs = 1000;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (seq < 0) {
+                    RegistrySnapshot snapshot = restClient.get()
+                            .uri(discoveryUrl + "/registry/snapshot")
+                            .retrieve()
+                            .body(RegistrySnapshot.class);
+                    replace(snapshot);
+                }
+                RegistryChanges changes = restClient.get()
+                        .uri(discoveryUrl + "/registry/changes?epoch={epoch}&since={since}&timeoutMs={timeout}",
+                                epoch, seq, pollTimeoutMs)
+                        .retrieve()
+                        .body(RegistryChanges.class);
+                if (changes.reset()) {
+                    seq = -1;
+                } else if (!changes.changes().isEmpty()) {
+                    apply(changes);
+                }
+                backoffMs = 1000;
+            } catch (RuntimeException e) {
+                // The current view stays in use while discovery is unreachable
+                log.warn("Registry watch failed ({}), retrying in {} ms", e.getMessage(), backoffMs);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, 10_000);
+            }
+        }
+    }
+
+    private void replace(RegistrySnapshot snapshot) {
+        Map<String, Map<String, RegistryInstance>> fresh = new HashMap<>();
+        snapshot.apps().forEach((app, instances) -> {
+            Map<String, RegistryInstance> byId = new ConcurrentHashMap<>();
+            for (RegistryInstance instance : instances) {
+                byId.put(instance.instanceId(), instance);
+            }
+            fresh.put(app.toLowerCase(), byId);
+        });
+        apps.keySet().retainAll(fresh.keySet());
+        apps.putAll(fresh);
+        epoch = snapshot.epoch();
+        seq = snapshot.seq();
+        available = true;
+        saveSnapshotFile();
+    }
+
+    private void apply(RegistryChanges changes) {
+        for (RegistryChange change : changes.changes()) {
+            RegistryInstance instance = change.instance();
+            Map<String, RegistryInstance> instances = apps.computeIfAbsent(instance.app().toLowerCase(),
+                    app -> new ConcurrentHashMap<>());
+            if ("CANCEL".equals(change.action())) {
+                instances.remove(instance.instanceId());
+            } else {
+                instances.put(instance.instanceId(), instance);
+            }
+        }
+        seq = changes.seq();
+        saveSnapshotFile();
+    }
+
+    private void loadSnapshotFile() {
+        if (!snapshotFile.isFile()) {
+            return;
+        }
+        try {
+            RegistrySnapshot snapshot = objectMapper.readValue(snapshotFile, RegistrySnapshot.class);
+            replace(snapshot);
+            // Positions do not survive restarts of this service: resync from a fresh snapshot
+            seq = -1;
+            log.info("Loaded registry snapshot from {}", snapshotFile);
+        } catch (IOException e) {
+            log.warn("Unreadable registry snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private void saveSnapshotFile() {
+        Map<String, List<RegistryInstance>> view = new HashMap<>();
+        apps.forEach((app, instances) -> view.put(app, List.copyOf(instances.values())));
+        try {
+            File tmp = new File(snapshotFile.getPath() + ".tmp");
+            objectMapper.writeValue(tmp, new RegistrySnapshot(epoch, seq, view));
+            Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not save registry snapshot: {}", e.getMessage());
+        }
+    }
+
+    private static ServiceInstance toServiceInstance(String serviceId, RegistryInstance instance) {
+        return new DefaultServiceInstance(instance.instanceId(), serviceId, instance.host(), instance.port(),
+                instance.secure(), Map.of(InstanceLoadRegistry.UP_SINCE_METADATA, Long.toString(instance.upSince())));
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import com.unihelp.user.security.InternalTokenFilter;
 import com.unihelp.user.security.JwtAuthFilter;
 
 @Configuration
@@ -23,10 +24,13 @@ import com.unihelp.user.security.JwtAuthFilter;
 public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final InternalTokenFilter internalTokenFilter;
     private final UserDetailsService userDetailsService;
 
-    public SecurityConfig(JwtAuthFilter jwtAuthFilter, UserDetailsService userDetailsService) {
+    public SecurityConfig(JwtAuthFilter jwtAuthFilter, InternalTokenFilter internalTokenFilter,
+                          UserDetailsService userDetailsService) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.internalTokenFilter = internalTokenFilter;
         this.userDetailsService = userDetailsService;
     }
 
@@ -36,9 +40,12 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/admin/users/**").permitAll()
+                        .requestMatchers("/api/internal/**").hasAuthority(InternalTokenFilter.AUTHORITY)
                         .requestMatchers("/api/auth/reset-password").permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
-                        .requestMatchers( "/actuator/**").permitAll()
+                        .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()
+                        // refresh, metrics: config-server and other services only
+                        .requestMatchers("/actuator/**").hasAuthority(InternalTokenFilter.AUTHORITY)
                         .requestMatchers( "/v3/api-docs/**").permitAll()
                         .requestMatchers( " /swagger-ui/**").permitAll()
 
@@ -49,6 +56,7 @@ public class SecurityConfig {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authenticationProvider(authenticationProvider())
+                .addFilterBefore(internalTokenFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -3,14 +3,22 @@ package com.unihelp.user.controllers;
 import com.unihelp.user.dto.*;
 import com.unihelp.user.entities.Token;
 import com.unihelp.user.entities.User;
+import com.unihelp.user.exception.EmailAlreadyExistsException;
 import com.unihelp.user.repositories.TokenRepository;
 import com.unihelp.user.repositories.UserRepository;
 import com.unihelp.user.security.JwtUtils;
+import com.unihelp.user.services.SkillIndex;
+import com.unihelp.user.services.UserLookupCache;
 import com.unihelp.user.services.UserService;
 import jakarta.mail.MessagingException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -19,6 +27,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 
@@ -40,6 +49,8 @@ public class AuthController {
     private final UserRepository userRepository;
     private final TokenRepository tokenRepository;
     private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final UserLookupCache userLookupCache;
+    private final SkillIndex skillIndex;
 
 
     @PostMapping("/register")
@@ -47,6 +58,8 @@ public class AuthController {
         try {
             User user = userService.registerUser(request);
             return ResponseEntity.ok(user);
+        } catch (EmailAlreadyExistsException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Erreur d'inscription : " + e.getMessage());
@@ -58,7 +71,7 @@ public class AuthController {
         // Log the email being used for login
         System.out.println("Attempting login for email: " + request.getEmail());
 
-        User user = userRepository.findByEmail(request.getEmail())
+        User user = userLookupCache.findByEmail(request.getEmail())
             .orElseThrow(() -> {
                 System.out.println("User not found for email: " + request.getEmail());
                 return new RuntimeException("User not found");
@@ -98,9 +111,32 @@ public class AuthController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/admin/users/page")
+    public ResponseEntity<PagedModel<UserSummary>> getUsersPage(
+            @PageableDefault(size = 50, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
+        return ResponseEntity.ok(new PagedModel<>(userRepository.findSummaries(pageable)));
+    }
+
+    @GetMapping(value = "/admin/users/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        StreamingResponseBody body = userService::streamUserSummaries;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // e.g. ?skills=java,spring boot&mode=OR; mentors matching more skills come first
+    @GetMapping("/mentors/search")
+    public ResponseEntity<PagedModel<UserSummary>> searchMentors(
+            @RequestParam String skills,
+            @RequestParam(defaultValue = "AND") SkillIndex.MatchMode mode,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(new PagedModel<>(userService.searchMentors(skills, mode, pageable)));
+    }
+
     @GetMapping("/admin/users/{id}")
     public ResponseEntity<User> getUserById(@PathVariable Long id) {
-        User user = userRepository.findById(id)
+        User user = userLookupCache.findById(id)
             .orElseThrow(() -> new RuntimeException("User not found"));
         return ResponseEntity.ok(user);
     }
@@ -113,6 +149,8 @@ public class AuthController {
         }
         user.setBanned(true);
         userRepository.save(user);
+        userLookupCache.evict(user);
+        skillIndex.userChanged(user);
         return ResponseEntity.ok("User banned successfully.");
     }
 
@@ -125,6 +163,8 @@ public class AuthController {
         }
         user.setBanned(false);
         userRepository.save(user);
+        userLookupCache.evict(user);
+        skillIndex.userChanged(user);
         return ResponseEntity.ok("User unbanned successfully.");
     }
 
@@ -132,6 +172,7 @@ public class AuthController {
     public ResponseEntity<String> updateUser(@PathVariable Long id, @RequestBody User updatedUser) {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("User not found"));
+        userLookupCache.evict(user.getId(), user.getEmail());
         user.setFirstName(updatedUser.getFirstName());
         user.setLastName(updatedUser.getLastName());
         user.setEmail(updatedUser.getEmail());
@@ -140,6 +181,8 @@ public class AuthController {
         user.setProfileImage(updatedUser.getProfileImage());
         user.setRole(updatedUser.getRole());
         userRepository.save(user);
+        userLookupCache.evict(user);
+        skillIndex.userChanged(user);
         return ResponseEntity.ok("User details updated successfully.");
     }
 
@@ -148,6 +191,8 @@ public class AuthController {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("User not found"));
         userRepository.delete(user);
+        userLookupCache.evict(user);
+        skillIndex.userRemoved(user.getId());
         return ResponseEntity.ok("User deleted successfully.");
     }
 
@@ -158,7 +203,7 @@ public class AuthController {
     }
     @GetMapping("/reset-password")
     public ResponseEntity<String> verifyToken(@RequestParam String token) {
-        Token resetToken = tokenRepository.findByToken(token)
+        Token resetToken = userService.findResetToken(token)
                 .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
 
         if (resetToken.getExpiresAt().isBefore(LocalDateTime.now())) {
@@ -172,7 +217,7 @@ public class AuthController {
         String token = request.getToken();
         String newPassword = request.getNewPassword();
 
-        Token resetToken = tokenRepository.findByToken(token)
+        Token resetToken = userService.findResetToken(token)
                 .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
 
         if (resetToken.getExpiresAt().isBefore(LocalDateTime.now())) {
@@ -184,6 +229,7 @@ public class AuthController {
         User user = resetToken.getUser();
         user.setPassword(bCryptPasswordEncoder.encode(newPassword));
         userRepository.save(user);
+        userLookupCache.evict(user);
 
         tokenRepository.delete(resetToken);
 
@@ -0,0 +1,60 @@
+package com.unihelp.user.controllers;
+
+import com.unihelp.user.dto.UserChange;
+import com.unihelp.user.dto.UserSummary;
+import com.unihelp.user.entities.User;
+import com.unihelp.user.repositories.UserRepository;
+import com.unihelp.user.services.SkillIndex;
+import com.unihelp.user.services.UserLookupCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Objects;
+
+// Service-to-service lookups: only the fields other services need, as CBOR when the caller
+// asks for it (Accept: application/cbor) and JSON otherwise
+@RestController
+@RequestMapping(value = "/api/internal/users", produces = {MediaType.APPLICATION_CBOR_VALUE, MediaType.APPLICATION_JSON_VALUE})
+@RequiredArgsConstructor
+public class InternalUserController {
+
+    private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
+    private final SkillIndex skillIndex;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UserSummary> getUser(@PathVariable Long id) {
+        return userLookupCache.findById(id)
+                .map(InternalUserController::toSummary)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping
+    public ResponseEntity<List<UserSummary>> getUsers(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(userRepository.findSummariesByIds(ids));
+    }
+
+    // Users changed on another instance; see UserChangeBroadcaster. Each changed user is reloaded
+    // so that the skill index follows skill, role and ban changes without waiting for its resync
+    @PostMapping(value = "/changes", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> usersChanged(@RequestBody List<UserChange> changes) {
+        changes.forEach(change -> userLookupCache.evictLocally(change.getId(), change.getEmail()));
+        changes.stream()
+                .map(UserChange::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(id -> userRepository.findById(id).ifPresentOrElse(
+                        skillIndex::userChanged,
+                        () -> skillIndex.userRemoved(id)));
+        return ResponseEntity.noContent().build();
+    }
+
+    private static UserSummary toSummary(User user) {
+        return new UserSummary(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                user.getProfileImage(), user.getRole());
+    }
+}
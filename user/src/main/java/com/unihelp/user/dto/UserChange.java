@@ -0,0 +1,14 @@
+package com.unihelp.user.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A user that was registered, changed or deleted on one instance, as sent to the other user instances
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserChange {
+    private Long id;
+    private String email;
+}
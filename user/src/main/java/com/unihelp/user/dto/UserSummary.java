@@ -0,0 +1,18 @@
+package com.unihelp.user.dto;
+
+import com.unihelp.user.entities.UserRole;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSummary {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String profileImage;
+    private UserRole role;
+}
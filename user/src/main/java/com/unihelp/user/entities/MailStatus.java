@@ -0,0 +1,6 @@
+package com.unihelp.user.entities;
+
+public enum MailStatus {
+    PENDING,
+    FAILED
+}
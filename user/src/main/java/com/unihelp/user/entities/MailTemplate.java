@@ -0,0 +1,6 @@
+package com.unihelp.user.entities;
+
+// Messages that MailDispatcher renders when it sends them, so that the outbox never holds their content
+public enum MailTemplate {
+    PASSWORD_RESET
+}
@@ -0,0 +1,53 @@
+package com.unihelp.user.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "outbound_email", indexes = @Index(name = "idx_outbound_email_due", columnList = "status, next_attempt_at"))
+public class OutboundEmail {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    // Null for templated messages, which are rendered at send time, and once a message has failed for good
+    @Column(length = 4000)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    private MailTemplate template;
+
+    // What the template is rendered for, e.g. the user of a password reset
+    private Long reference;
+
+    // Neither sent nor retried after this
+    private LocalDateTime expiresAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MailStatus status;
+
+    private int attempts;
+
+    // Earliest time the message may be (re)sent; also used as the lease of a claimed message
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+}
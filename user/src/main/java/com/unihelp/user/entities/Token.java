@@ -9,17 +9,27 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Entity 
+@Entity
+// Constraint names are shared with data-mysql.sql, which adds them to databases holding duplicates
+@Table(indexes = @Index(name = "idx_token_expires_at", columnList = "expires_at"),
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_token_token", columnNames = "token"),
+                @UniqueConstraint(name = "uk_token_user", columnNames = "user_id")
+        })
 public class Token {
 
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
+    // SHA-256 (hex) of the token sent by email, never the raw value
+    @Column(nullable = false, length = 64)
     private String token;
     private LocalDateTime createdAt;
     private LocalDateTime expiresAt;
 
-    @ManyToOne 
+    // At most one live reset token per user
+    @OneToOne
+    @JoinColumn(name = "user_id")
     private User user;
 }
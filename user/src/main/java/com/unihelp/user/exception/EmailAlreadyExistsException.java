@@ -0,0 +1,7 @@
+package com.unihelp.user.exception;
+
+public class EmailAlreadyExistsException extends RuntimeException {
+    public EmailAlreadyExistsException(String email) {
+        super("Email already in use: " + email);
+    }
+}
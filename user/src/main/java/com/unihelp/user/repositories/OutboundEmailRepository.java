@@ -0,0 +1,43 @@
+package com.unihelp.user.repositories;
+
+import com.unihelp.user.entities.MailStatus;
+import com.unihelp.user.entities.OutboundEmail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboundEmailRepository extends JpaRepository<OutboundEmail, Long> {
+
+    // Lock timeout -2 is Hibernate's SKIP LOCKED, so concurrent dispatchers never claim the same rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select m from OutboundEmail m where m.status = :status and m.nextAttemptAt <= :now order by m.nextAttemptAt")
+    List<OutboundEmail> findDue(@Param("status") MailStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    // Gives messages that failed before failedBefore a fresh round of attempts, unless created before keepAfter.
+    // Only templated messages can be sent again (failed ones no longer have a body), and only until they expire
+    @Transactional
+    @Modifying
+    @Query("update OutboundEmail m set m.status = :pending, m.attempts = 0, m.nextAttemptAt = :now "
+            + "where m.status = :failed and m.nextAttemptAt <= :failedBefore and m.createdAt >= :keepAfter "
+            + "and m.template is not null and (m.expiresAt is null or m.expiresAt > :now)")
+    int retryFailed(@Param("failed") MailStatus failed, @Param("pending") MailStatus pending,
+                    @Param("failedBefore") LocalDateTime failedBefore, @Param("keepAfter") LocalDateTime keepAfter,
+                    @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM outbound_email WHERE status = 'FAILED' AND created_at < :before LIMIT :batchSize",
+            nativeQuery = true)
+    int deleteFailedBefore(@Param("before") LocalDateTime before, @Param("batchSize") int batchSize);
+}
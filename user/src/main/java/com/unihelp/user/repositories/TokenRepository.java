@@ -2,10 +2,21 @@ package com.unihelp.user.repositories;
 
 import com.unihelp.user.entities.Token;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
-public interface TokenRepository extends JpaRepository<Token, Long> {
+public interface TokenRepository extends JpaRepository<Token, String> {
     Optional<Token> findByToken(String token);
+    Optional<Token> findByUserId(Long userId);
     void deleteByToken(String token);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM token WHERE expires_at < :now LIMIT :batchSize", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
 }
@@ -1,11 +1,54 @@
 package com.unihelp.user.repositories;
 
+import com.unihelp.user.dto.UserSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.unihelp.user.entities.User;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query(value = "select new com.unihelp.user.dto.UserSummary(u.id, u.firstName, u.lastName, u.email, u.profileImage, u.role) from User u",
+            countQuery = "select count(u) from User u")
+    Page<UserSummary> findSummaries(Pageable pageable);
+
+    @Query("select new com.unihelp.user.dto.UserSummary(u.id, u.firstName, u.lastName, u.email, u.profileImage, u.role) from User u where u.id in :ids")
+    List<UserSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // Ids from SkillIndex may be a resync behind: a user demoted or banned since then is left out
+    @Query("select new com.unihelp.user.dto.UserSummary(u.id, u.firstName, u.lastName, u.email, u.profileImage, u.role) from User u " +
+            "where u.id in :ids and u.role = com.unihelp.user.entities.UserRole.MENTOR and u.isBanned = false")
+    List<UserSummary> findMentorSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("select new com.unihelp.user.dto.UserSummary(u.id, u.firstName, u.lastName, u.email, u.profileImage, u.role) from User u order by u.id")
+    Stream<UserSummary> streamSummaries();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("select u.email from User u")
+    Stream<String> streamEmails();
+
+    // Only the users SkillIndex serves: mentors that are not banned
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("select u.id as id, u.skills as skills from User u " +
+            "where u.role = com.unihelp.user.entities.UserRole.MENTOR and u.isBanned = false")
+    Stream<MentorSkills> streamMentorSkills();
+
+    interface MentorSkills {
+        Long getId();
+        String getSkills();
+    }
 }
@@ -0,0 +1,50 @@
+package com.unihelp.user.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+// Authenticates service-to-service calls (cours, the other user instances) by the shared
+// internal.token, sent in the X-Internal-Token header; SecurityConfig requires INTERNAL on their paths
+@Component
+public class InternalTokenFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Internal-Token";
+    public static final String AUTHORITY = "INTERNAL";
+
+    @Value("${internal.token:}")
+    private String token;
+
+    @PostConstruct
+    void checkToken() {
+        if (token.isBlank()) {
+            throw new IllegalStateException("internal.token must be set");
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String presented = request.getHeader(HEADER);
+        if (presented != null && MessageDigest.isEqual(
+                presented.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    "internal", null, List.of(new SimpleGrantedAuthority(AUTHORITY)));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+        filterChain.doFilter(request, response);
+    }
+}
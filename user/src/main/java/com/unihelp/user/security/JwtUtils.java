@@ -5,8 +5,7 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.core.env.Environment;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -20,19 +19,20 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
+// Reads jwt.* from the Environment on use instead of through @RefreshScope, so /actuator/refresh
+// still picks up a new secret while the bean stays compatible with AOT-processed (fast-startup) builds.
+// Those builds run without the refresh endpoint though, and take a new secret on restart only
 @Component
-@RefreshScope
-
 public class JwtUtils {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final Environment environment;
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    public JwtUtils(Environment environment) {
+        this.environment = environment;
+    }
 
     private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
+        byte[] keyBytes = Decoders.BASE64.decode(environment.getRequiredProperty("jwt.secret"));
         return Keys.hmacShaKeyFor(keyBytes);
     }
 
@@ -74,7 +74,7 @@ public class JwtUtils {
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
+                .setExpiration(new Date(System.currentTimeMillis() + environment.getRequiredProperty("jwt.expiration", Long.class)))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
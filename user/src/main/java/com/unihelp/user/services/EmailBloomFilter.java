@@ -0,0 +1,60 @@
+package com.unihelp.user.services;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free Bloom filter over lower-cased emails: "false" means the email is definitely not registered
+public class EmailBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+
+    public EmailBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = (long) wordCount * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String email) {
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+            long mask = 1L << (bit & 63);
+            words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+    }
+
+    public boolean mightContain(String email) {
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a followed by the MurmurHash3 finalizer
+    private static long hash(String email) {
+        String value = email.toLowerCase(Locale.ROOT);
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,31 @@
+package com.unihelp.user.services;
+
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Local stand-in used when no SMTP server is configured (spring.mail.host unset): logs and keeps messages
+@Slf4j
+public class LoggingMailSender extends JavaMailSenderImpl {
+
+    private final List<Object> delivered = new CopyOnWriteArrayList<>();
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+        Object[] messages = originalMessages != null ? originalMessages : mimeMessages;
+        for (Object message : messages) {
+            if (message instanceof SimpleMailMessage simple) {
+                log.info("Mail to {}: {}", String.join(",", simple.getTo()), simple.getSubject());
+            }
+            delivered.add(message);
+        }
+    }
+
+    public List<Object> getDelivered() {
+        return delivered;
+    }
+}
@@ -0,0 +1,231 @@
+package com.unihelp.user.services;
+
+import com.unihelp.user.entities.MailStatus;
+import com.unihelp.user.entities.OutboundEmail;
+import com.unihelp.user.repositories.OutboundEmailRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class MailDispatcher {
+
+    private final OutboundEmailRepository outboundEmailRepository;
+    private final ObjectProvider<JavaMailSender> mailSenderProvider;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordResetMail passwordResetMail;
+    private final ThreadPoolTaskExecutor senders = new ThreadPoolTaskExecutor();
+    private JavaMailSender mailSender;
+
+    @Value("${mail.queue.senders:4}")
+    private int senderThreads;
+
+    @Value("${mail.queue.capacity:50}")
+    private int queueCapacity;
+
+    @Value("${mail.queue.messages-per-connection:20}")
+    private int messagesPerConnection;
+
+    @Value("${mail.queue.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.queue.backoff-ms:5000}")
+    private long backoffMs;
+
+    @Value("${mail.queue.max-backoff-ms:900000}")
+    private long maxBackoffMs;
+
+    @Value("${mail.queue.lease-ms:120000}")
+    private long leaseMs;
+
+    // FAILED messages get another round of attempts this long after giving up...
+    @Value("${mail.queue.failed-retry-after:PT1H}")
+    private Duration failedRetryAfter;
+
+    // ...until they are this old, then they are deleted
+    @Value("${mail.queue.failed-retention:P3D}")
+    private Duration failedRetention;
+
+    @Value("${mail.queue.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Value("${mail.from:no-reply@unihelp.com}")
+    private String from;
+
+    public MailDispatcher(OutboundEmailRepository outboundEmailRepository,
+                          ObjectProvider<JavaMailSender> mailSenderProvider,
+                          TransactionTemplate transactionTemplate,
+                          PasswordResetMail passwordResetMail) {
+        this.outboundEmailRepository = outboundEmailRepository;
+        this.mailSenderProvider = mailSenderProvider;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordResetMail = passwordResetMail;
+    }
+
+    @PostConstruct
+    void start() {
+        senders.setCorePoolSize(senderThreads);
+        senders.setMaxPoolSize(senderThreads);
+        senders.setQueueCapacity(queueCapacity);
+        senders.setThreadNamePrefix("mail-sender-");
+        senders.setWaitForTasksToCompleteOnShutdown(true);
+        senders.setAwaitTerminationSeconds(30);
+        senders.initialize();
+        mailSender = mailSenderProvider.getIfAvailable(LoggingMailSender::new);
+    }
+
+    @PreDestroy
+    void stop() {
+        senders.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${mail.queue.poll-interval-ms:1000}")
+    public void dispatch() {
+        int freeSlots = senders.getThreadPoolExecutor().getQueue().remainingCapacity();
+        if (freeSlots == 0) {
+            return;
+        }
+        List<OutboundEmail> claimed = claim(freeSlots * messagesPerConnection);
+        for (int i = 0; i < claimed.size(); i += messagesPerConnection) {
+            List<OutboundEmail> group = claimed.subList(i, Math.min(i + messagesPerConnection, claimed.size()));
+            try {
+                senders.execute(() -> send(group));
+            } catch (TaskRejectedException e) {
+                // Leftovers are picked up again once their lease expires
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mail.queue.failed-sweep-ms:600000}")
+    public void sweepFailed() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime keepAfter = now.minus(failedRetention);
+        outboundEmailRepository.retryFailed(MailStatus.FAILED, MailStatus.PENDING,
+                now.minus(failedRetryAfter), keepAfter, now);
+        int deleted;
+        do {
+            deleted = outboundEmailRepository.deleteFailedBefore(keepAfter, purgeBatchSize);
+        } while (deleted == purgeBatchSize);
+    }
+
+    // Takes a lease on due messages so other instances (and the next poll) skip them
+    private List<OutboundEmail> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboundEmail> due = outboundEmailRepository.findDue(MailStatus.PENDING, now, PageRequest.of(0, limit));
+            LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000);
+            due.forEach(email -> email.setNextAttemptAt(leaseUntil));
+            return new ArrayList<>(due);
+        });
+    }
+
+    // All messages of a group go through a single SMTP connection
+    private void send(List<OutboundEmail> claimed) {
+        List<OutboundEmail> group = new ArrayList<>(claimed.size());
+        List<OutboundEmail> expired = new ArrayList<>();
+        List<SimpleMailMessage> rendered = new ArrayList<>(claimed.size());
+        for (OutboundEmail email : claimed) {
+            String body = render(email);
+            if (body == null) {
+                expired.add(email);
+                continue;
+            }
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(from);
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(body);
+            group.add(email);
+            rendered.add(message);
+        }
+        SimpleMailMessage[] messages = rendered.toArray(new SimpleMailMessage[0]);
+
+        Set<Object> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        String error = null;
+        try {
+            if (messages.length > 0) {
+                mailSender.send(messages);
+            }
+        } catch (MailSendException e) {
+            error = e.getMessage();
+            if (e.getFailedMessages().isEmpty()) {
+                Collections.addAll(failed, (Object[]) messages);
+            } else {
+                failed.addAll(e.getFailedMessages().keySet());
+            }
+        } catch (MailException e) {
+            error = e.getMessage();
+            Collections.addAll(failed, (Object[]) messages);
+        }
+
+        String lastError = error;
+        transactionTemplate.executeWithoutResult(status -> {
+            expired.forEach(email -> outboundEmailRepository.deleteById(email.getId()));
+            for (int i = 0; i < group.size(); i++) {
+                OutboundEmail email = group.get(i);
+                if (failed.contains(messages[i])) {
+                    scheduleRetry(email, lastError);
+                } else {
+                    outboundEmailRepository.deleteById(email.getId());
+                }
+            }
+        });
+    }
+
+    // Null when the message has expired, or its template has nothing left to send
+    private String render(OutboundEmail email) {
+        if (email.getExpiresAt() != null && !email.getExpiresAt().isAfter(LocalDateTime.now())) {
+            return null;
+        }
+        if (email.getTemplate() == null) {
+            return email.getBody();
+        }
+        return switch (email.getTemplate()) {
+            case PASSWORD_RESET -> passwordResetMail.render(email.getReference());
+        };
+    }
+
+    private void scheduleRetry(OutboundEmail email, String error) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime retryAt = null;
+        if (attempts < maxAttempts) {
+            long delay = Math.min(maxBackoffMs, backoffMs << Math.min(attempts - 1, 20));
+            delay += ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+            retryAt = now.plusNanos(delay * 1_000_000);
+        }
+        if (retryAt == null || (email.getExpiresAt() != null && retryAt.isAfter(email.getExpiresAt()))) {
+            // nextAttemptAt records when it gave up, see sweepFailed. The row is kept for diagnosis only,
+            // so the body goes: a templated message that is retried is rendered afresh
+            email.setStatus(MailStatus.FAILED);
+            email.setBody(null);
+            email.setNextAttemptAt(now);
+        } else {
+            email.setNextAttemptAt(retryAt);
+        }
+        outboundEmailRepository.save(email);
+    }
+}
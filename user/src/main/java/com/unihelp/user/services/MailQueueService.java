@@ -0,0 +1,49 @@
+package com.unihelp.user.services;
+
+import com.unihelp.user.entities.MailStatus;
+import com.unihelp.user.entities.MailTemplate;
+import com.unihelp.user.entities.OutboundEmail;
+import com.unihelp.user.repositories.OutboundEmailRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class MailQueueService {
+
+    private final OutboundEmailRepository outboundEmailRepository;
+
+    // Only records the message; MailDispatcher delivers it outside the request
+    public OutboundEmail enqueue(String recipient, String subject, String body) {
+        LocalDateTime now = LocalDateTime.now();
+        return outboundEmailRepository.save(OutboundEmail.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .status(MailStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    // Stores only what the template needs; MailDispatcher renders the message when it sends it, and
+    // gives up once expiresAt has passed
+    public OutboundEmail enqueue(String recipient, String subject, MailTemplate template, Long reference,
+                                 LocalDateTime expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        return outboundEmailRepository.save(OutboundEmail.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .template(template)
+                .reference(reference)
+                .expiresAt(expiresAt)
+                .status(MailStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+}
@@ -0,0 +1,58 @@
+package com.unihelp.user.services;
+
+import com.unihelp.user.entities.Token;
+import com.unihelp.user.repositories.TokenRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+
+// Renders the password reset mail at send time. The outbox only records the user: the raw token is
+// generated here, its hash replaces the stored one, and it exists nowhere but in the outgoing message
+@Component
+@RequiredArgsConstructor
+public class PasswordResetMail {
+
+    static final String SUBJECT = "Reset your UniHelp password";
+
+    private final TokenRepository tokenRepository;
+
+    @Value("${user.reset.link:http://localhost:8070/reset-password}")
+    private String link;
+
+    // Null once the user has no live reset token: it expired or was already used
+    @Transactional
+    public String render(Long userId) {
+        Token token = tokenRepository.findByUserId(userId).orElse(null);
+        LocalDateTime now = LocalDateTime.now();
+        if (token == null || !token.getExpiresAt().isAfter(now)) {
+            return null;
+        }
+        String rawToken = UUID.randomUUID().toString();
+        token.setToken(hash(rawToken));
+        tokenRepository.save(token);
+
+        long minutes = Math.max(1, Duration.between(now, token.getExpiresAt()).plusSeconds(59).toMinutes());
+        return "Hello " + token.getUser().getFirstName() + ",\n\n"
+                + "Use the following link to reset your password (valid for " + minutes + " minutes):\n"
+                + link + "?token=" + rawToken + "\n";
+    }
+
+    // SHA-256 (hex), the form in which reset tokens are stored and looked up
+    static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
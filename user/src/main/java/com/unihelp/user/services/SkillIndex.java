@@ -0,0 +1,210 @@
+package com.unihelp.user.services;
+
+import com.unihelp.user.entities.User;
+import com.unihelp.user.entities.UserRole;
+import com.unihelp.user.repositories.UserRepository;
+import com.unihelp.user.repositories.UserRepository.MentorSkills;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Inverted index from skill terms to mentor ids, so finding mentors never scans the users table.
+// Every skill of the free-form list is indexed as a phrase ("spring boot") and by its words ("spring",
+// "boot"); a phrase hit outranks a word hit. Only MENTORs that are not banned are indexed
+@Slf4j
+@Component
+public class SkillIndex {
+
+    public enum MatchMode { AND, OR }
+
+    private static final int PHRASE_WEIGHT = 2;
+    private static final int WORD_WEIGHT = 1;
+    private static final Pattern SKILL_SEPARATOR = Pattern.compile("[,;|\\n]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final UserRepository userRepository;
+
+    // term -> mentor id -> weight, read without locking; all writes to the live index hold the instance lock
+    private volatile Map<String, Map<Long, Integer>> postings = new ConcurrentHashMap<>();
+    // mentor id -> its terms, so that a change can unindex the old ones
+    private volatile Map<Long, Map<String, Integer>> termsByUser = new ConcurrentHashMap<>();
+    // Changes reported while a rebuild reads the table, by user id (null value: removed); null when no
+    // rebuild is running. Guarded by the instance lock
+    private Map<Long, User> changedDuringRebuild;
+
+    public SkillIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    // Called after every save or ban change; also drops users that are no longer eligible
+    public synchronized void userChanged(User user) {
+        apply(postings, termsByUser, user.getId(), user);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(user.getId(), user);
+        }
+    }
+
+    public synchronized void userRemoved(Long userId) {
+        apply(postings, termsByUser, userId, null);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(userId, null);
+        }
+    }
+
+    // Mentor ids ranked by the summed weight of the matched skills, then by id. AND walks the shortest
+    // posting list and probes the others; OR merges them
+    public Page<Long> search(String skills, MatchMode mode, Pageable pageable) {
+        List<String> terms = new ArrayList<>(phrases(skills));
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        Map<String, Map<Long, Integer>> index = postings;
+        List<Map<Long, Integer>> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            lists.add(index.getOrDefault(term, Map.of()));
+        }
+
+        Map<Long, Integer> scores = new HashMap<>();
+        if (mode == MatchMode.AND) {
+            lists.sort(Comparator.comparingInt(Map::size));
+            candidates:
+            for (Map.Entry<Long, Integer> candidate : lists.get(0).entrySet()) {
+                int score = candidate.getValue();
+                for (int i = 1; i < lists.size(); i++) {
+                    Integer weight = lists.get(i).get(candidate.getKey());
+                    if (weight == null) {
+                        continue candidates;
+                    }
+                    score += weight;
+                }
+                scores.put(candidate.getKey(), score);
+            }
+        } else {
+            for (Map<Long, Integer> list : lists) {
+                list.forEach((userId, weight) -> scores.merge(userId, weight, Integer::sum));
+            }
+        }
+
+        List<Long> ranked = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry::getKey))
+                .map(Map.Entry::getKey)
+                .toList();
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        return new PageImpl<>(ranked.subList(from, to), pageable, ranked.size());
+    }
+
+    // Full rebuild from the eligible mentors, which also picks up changes made on other instances.
+    // The table is read without the lock, so changes keep being applied meanwhile; those reported
+    // during the read may be missing from it, and are replayed onto the new index before the swap
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${user.skill-index.resync-ms:60000}",
+            fixedDelayString = "${user.skill-index.resync-ms:60000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (this) {
+            if (changedDuringRebuild != null) {
+                log.debug("Skill index rebuild skipped, one is already running");
+                return;
+            }
+            changedDuringRebuild = new HashMap<>();
+        }
+        Map<String, Map<Long, Integer>> newPostings = new ConcurrentHashMap<>();
+        Map<Long, Map<String, Integer>> newTerms = new ConcurrentHashMap<>();
+        try (Stream<MentorSkills> mentors = userRepository.streamMentorSkills()) {
+            Iterator<MentorSkills> it = mentors.iterator();
+            while (it.hasNext()) {
+                MentorSkills mentor = it.next();
+                add(newPostings, newTerms, mentor.getId(), mentor.getSkills());
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            changedDuringRebuild.forEach((userId, user) -> apply(newPostings, newTerms, userId, user));
+            changedDuringRebuild = null;
+            postings = newPostings;
+            termsByUser = newTerms;
+        }
+        log.info("Skill index built: {} mentors, {} terms", newTerms.size(), newPostings.size());
+    }
+
+    // Indexes the user's current skills in place of the old ones; null or no longer eligible unindexes
+    private static void apply(Map<String, Map<Long, Integer>> postings, Map<Long, Map<String, Integer>> termsByUser,
+                              Long userId, User user) {
+        remove(postings, termsByUser, userId);
+        if (user != null && user.getRole() == UserRole.MENTOR && !user.isBanned()) {
+            add(postings, termsByUser, userId, user.getSkills());
+        }
+    }
+
+    private static void add(Map<String, Map<Long, Integer>> postings, Map<Long, Map<String, Integer>> termsByUser,
+                            Long userId, String skills) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String phrase : phrases(skills)) {
+            terms.merge(phrase, PHRASE_WEIGHT, Math::max);
+            String[] words = WHITESPACE.split(phrase);
+            if (words.length > 1) {
+                for (String word : words) {
+                    terms.merge(word, WORD_WEIGHT, Math::max);
+                }
+            }
+        }
+        if (terms.isEmpty()) {
+            return;
+        }
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(userId, weight));
+        termsByUser.put(userId, terms);
+    }
+
+    private static void remove(Map<String, Map<Long, Integer>> postings, Map<Long, Map<String, Integer>> termsByUser,
+                               Long userId) {
+        Map<String, Integer> terms = termsByUser.remove(userId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            postings.computeIfPresent(term, (t, users) -> {
+                users.remove(userId);
+                return users.isEmpty() ? null : users;
+            });
+        }
+    }
+
+    // "Java, Spring  Boot; java" -> [java, spring boot]
+    private static Set<String> phrases(String skills) {
+        Set<String> phrases = new LinkedHashSet<>();
+        if (skills == null) {
+            return phrases;
+        }
+        for (String part : SKILL_SEPARATOR.split(skills)) {
+            String phrase = WHITESPACE.matcher(part.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+            if (!phrase.isEmpty()) {
+                phrases.add(phrase);
+            }
+        }
+        return phrases;
+    }
+}
@@ -0,0 +1,29 @@
+package com.unihelp.user.services;
+
+import com.unihelp.user.repositories.TokenRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+public class TokenCleanupJob {
+
+    private final TokenRepository tokenRepository;
+
+    @Value("${token.cleanup.batch-size:1000}")
+    private int batchSize;
+
+    // Deletes expired reset tokens in small transactions so the table never grows unbounded
+    @Scheduled(fixedDelayString = "${token.cleanup.interval-ms:600000}")
+    public void purgeExpiredTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted;
+        do {
+            deleted = tokenRepository.deleteExpired(now, batchSize);
+        } while (deleted == batchSize);
+    }
+}
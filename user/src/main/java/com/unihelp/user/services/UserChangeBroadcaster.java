@@ -0,0 +1,83 @@
+package com.unihelp.user.services;
+
+import com.unihelp.user.dto.UserChange;
+import com.unihelp.user.security.InternalTokenFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Tells every other user instance registered in Eureka which users changed here, so that their
+// lookup caches drop them within send-ms instead of serving them until the TTL runs out
+@Slf4j
+@Component
+public class UserChangeBroadcaster {
+
+    private final DiscoveryClient discoveryClient;
+    private final Registration registration;
+    private final RestClient restClient;
+    private final ConcurrentLinkedQueue<UserChange> outgoing = new ConcurrentLinkedQueue<>();
+
+    @Value("${spring.application.name}")
+    private String serviceId;
+
+    @Value("${internal.token}")
+    private String internalToken;
+
+    public UserChangeBroadcaster(DiscoveryClient discoveryClient, Registration registration) {
+        this.discoveryClient = discoveryClient;
+        this.registration = registration;
+        // Short timeouts: a slow peer must not hold back the others
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(1));
+        requestFactory.setReadTimeout(Duration.ofSeconds(2));
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    public void changed(Long id, String email) {
+        outgoing.add(new UserChange(id, email));
+    }
+
+    // Batches everything changed since the last run into one message per peer
+    @Scheduled(fixedDelayString = "${user.changes.send-ms:200}")
+    public void send() {
+        if (outgoing.isEmpty()) {
+            return;
+        }
+        Map<String, UserChange> batch = new LinkedHashMap<>();
+        UserChange change;
+        while ((change = outgoing.poll()) != null) {
+            batch.putIfAbsent(change.getId() + "#" + change.getEmail(), change);
+        }
+        for (ServiceInstance peer : discoveryClient.getInstances(serviceId)) {
+            if (Objects.equals(peer.getInstanceId(), registration.getInstanceId())) {
+                continue;
+            }
+            try {
+                restClient.post()
+                        .uri(peer.getUri() + "/api/internal/users/changes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(InternalTokenFilter.HEADER, internalToken)
+                        .body(new ArrayList<>(batch.values()))
+                        .retrieve()
+                        .toBodilessEntity();
+            } catch (RuntimeException e) {
+                // The peer's cache TTL bounds the staleness if it missed this message
+                log.warn("User change notification to {} failed: {}", peer.getUri(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.unihelp.user.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unihelp.user.entities.User;
+import com.unihelp.user.entities.UserRole;
+import com.unihelp.user.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Per-request memo in front of a short-lived shared cache, so one login costs at most one user query.
+// Entries are immutable copies and every lookup returns a new User, so no two callers share an instance.
+// Evictions are broadcast to the other user instances, which drop the same entries within a fraction of a second
+@Component
+public class UserLookupCache {
+
+    private static final String REQUEST_PREFIX = UserLookupCache.class.getName() + ".";
+
+    private final UserRepository userRepository;
+    private final UserChangeBroadcaster userChangeBroadcaster;
+    private final Cache<String, CachedUser> byEmail;
+    private final Cache<Long, CachedUser> byId;
+    private final double bloomFalsePositiveRate;
+
+    private volatile EmailBloomFilter emailFilter;
+    private volatile EmailBloomFilter rebuildingFilter;
+
+    public UserLookupCache(UserRepository userRepository, UserChangeBroadcaster userChangeBroadcaster,
+                           @Value("${user.cache.ttl-seconds:30}") long ttlSeconds,
+                           @Value("${user.cache.max-size:10000}") long maxSize,
+                           @Value("${user.cache.bloom-false-positive-rate:0.01}") double bloomFalsePositiveRate) {
+        this.userRepository = userRepository;
+        this.userChangeBroadcaster = userChangeBroadcaster;
+        this.byEmail = Caffeine.newBuilder().expireAfterWrite(Duration.ofSeconds(ttlSeconds)).maximumSize(maxSize).build();
+        this.byId = Caffeine.newBuilder().expireAfterWrite(Duration.ofSeconds(ttlSeconds)).maximumSize(maxSize).build();
+        this.bloomFalsePositiveRate = bloomFalsePositiveRate;
+    }
+
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        CachedUser user = fromRequest("email:" + email);
+        if (user == null) {
+            user = byEmail.getIfPresent(email);
+        }
+        if (user == null) {
+            user = userRepository.findByEmail(email).map(CachedUser::of).orElse(null);
+        }
+        if (user != null) {
+            remember(user, email);
+        }
+        return Optional.ofNullable(user).map(CachedUser::toUser);
+    }
+
+    public Optional<User> findById(Long id) {
+        CachedUser user = fromRequest("id:" + id);
+        if (user == null) {
+            user = byId.getIfPresent(id);
+        }
+        if (user == null) {
+            user = userRepository.findById(id).map(CachedUser::of).orElse(null);
+        }
+        if (user != null) {
+            remember(user, user.email());
+        }
+        return Optional.ofNullable(user).map(CachedUser::toUser);
+    }
+
+    // The Bloom filter answers "no" for unknown emails without touching the database
+    public boolean existsByEmail(String email) {
+        EmailBloomFilter filter = emailFilter;
+        if (filter != null && !filter.mightContain(email)) {
+            return false;
+        }
+        return findByEmail(email).isPresent();
+    }
+
+    public void registered(User user) {
+        addToFilters(user.getEmail());
+        evict(user);
+    }
+
+    public void evict(User user) {
+        evict(user.getId(), user.getEmail());
+    }
+
+    public void evict(Long id, String email) {
+        evictLocally(id, email);
+        userChangeBroadcaster.changed(id, email);
+    }
+
+    // For changes made on another instance
+    public void evictLocally(Long id, String email) {
+        if (id != null) {
+            byId.invalidate(id);
+            removeFromRequest("id:" + id);
+        }
+        if (email != null) {
+            byEmail.invalidate(email);
+            removeFromRequest("email:" + email);
+            addToFilters(email);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${user.cache.bloom-rebuild-ms:21600000}",
+            fixedDelayString = "${user.cache.bloom-rebuild-ms:21600000}")
+    @Transactional(readOnly = true)
+    public void rebuildEmailFilter() {
+        long expected = Math.max(100_000L, userRepository.count() * 2);
+        EmailBloomFilter filter = new EmailBloomFilter(expected, bloomFalsePositiveRate);
+        rebuildingFilter = filter;
+        try (Stream<String> emails = userRepository.streamEmails()) {
+            Iterator<String> it = emails.iterator();
+            while (it.hasNext()) {
+                filter.put(it.next());
+            }
+        }
+        emailFilter = filter;
+        rebuildingFilter = null;
+    }
+
+    private void addToFilters(String email) {
+        EmailBloomFilter filter = emailFilter;
+        if (filter != null) {
+            filter.put(email);
+        }
+        EmailBloomFilter rebuilding = rebuildingFilter;
+        if (rebuilding != null) {
+            rebuilding.put(email);
+        }
+    }
+
+    private void remember(CachedUser user, String email) {
+        byEmail.put(email, user);
+        byId.put(user.id(), user);
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(REQUEST_PREFIX + "email:" + email, user, RequestAttributes.SCOPE_REQUEST);
+            attributes.setAttribute(REQUEST_PREFIX + "id:" + user.id(), user, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private CachedUser fromRequest(String key) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes == null ? null : (CachedUser) attributes.getAttribute(REQUEST_PREFIX + key, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private void removeFromRequest(String key) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.removeAttribute(REQUEST_PREFIX + key, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private record CachedUser(Long id, String firstName, String lastName, String email, String password, String bio,
+                              String skills, String profileImage, UserRole role, boolean active, boolean banned) {
+
+        static CachedUser of(User user) {
+            return new CachedUser(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                    user.getPassword(), user.getBio(), user.getSkills(), user.getProfileImage(), user.getRole(),
+                    user.isActive(), user.isBanned());
+        }
+
+        User toUser() {
+            return User.builder()
+                    .id(id)
+                    .firstName(firstName)
+                    .lastName(lastName)
+                    .email(email)
+                    .password(password)
+                    .bio(bio)
+                    .skills(skills)
+                    .profileImage(profileImage)
+                    .role(role)
+                    .isActive(active)
+                    .isBanned(banned)
+                    .build();
+        }
+    }
+}
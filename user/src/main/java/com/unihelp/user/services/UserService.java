@@ -1,18 +1,38 @@
 package com.unihelp.user.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.unihelp.user.dto.UserSummary;
+import com.unihelp.user.entities.MailTemplate;
 import com.unihelp.user.entities.Token;
+import com.unihelp.user.exception.EmailAlreadyExistsException;
 import com.unihelp.user.repositories.TokenRepository;
 import jakarta.mail.MessagingException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import com.unihelp.user.dto.RegisterRequest;
 import com.unihelp.user.entities.User;
 import com.unihelp.user.repositories.UserRepository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
@@ -20,19 +40,45 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final TokenRepository tokenRepository;
+    private final ObjectMapper objectMapper;
+    private final MailQueueService mailQueueService;
+    private final UserLookupCache userLookupCache;
+    private final SkillIndex skillIndex;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, TokenRepository tokenRepository) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, TokenRepository tokenRepository,
+                       ObjectMapper objectMapper, MailQueueService mailQueueService, UserLookupCache userLookupCache,
+                       SkillIndex skillIndex) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.tokenRepository = tokenRepository;
+        this.objectMapper = objectMapper;
+        this.mailQueueService = mailQueueService;
+        this.userLookupCache = userLookupCache;
+        this.skillIndex = skillIndex;
     }
 
     public User registerUser(RegisterRequest request) {
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already exists");
+        if (userLookupCache.existsByEmail(request.getEmail())) {
+            throw new EmailAlreadyExistsException(request.getEmail());
         }
 
+        User user;
+        try {
+            user = saveNewUser(request);
+        } catch (DataIntegrityViolationException e) {
+            // Registered concurrently, or on another instance whose email has not reached this filter yet
+            if (userRepository.existsByEmail(request.getEmail())) {
+                throw new EmailAlreadyExistsException(request.getEmail());
+            }
+            throw e;
+        }
+        userLookupCache.registered(user);
+        skillIndex.userChanged(user);
+        return user;
+    }
+
+    private User saveNewUser(RegisterRequest request) {
         return userRepository.save(User.builder()
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
@@ -47,26 +93,67 @@ public class UserService {
                 .build());
     }
 
+    // Ranked ids from the skill index, then one summary query for the page
+    public Page<UserSummary> searchMentors(String skills, SkillIndex.MatchMode mode, Pageable pageable) {
+        Page<Long> ids = skillIndex.search(skills, mode, pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+        }
+        Map<Long, UserSummary> summaries = userRepository.findMentorSummariesByIds(ids.getContent()).stream()
+                .collect(Collectors.toMap(UserSummary::getId, Function.identity()));
+        List<UserSummary> ranked = ids.getContent().stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(ranked, pageable, ids.getTotalElements());
+    }
+
+    @Transactional
     public void generateAndSendEmailRestToken(String email) throws MessagingException {
         Optional<User> userByEmail = userRepository.findByEmail(email);
 
         if (userByEmail.isPresent()) {
-            String generatedToken = generateActivationCode();
-            var token = Token.builder()
-                    .token(generatedToken)
-                    .createdAt(LocalDateTime.now())
-                    .expiresAt(LocalDateTime.now().plusMinutes(15))
-                    .user(userByEmail.get())
-                    .build();
+            User user = userByEmail.get();
+            // Reuse the user's existing row so each user keeps at most one live token. The link is only
+            // generated when the mail goes out (PasswordResetMail); until then the row holds the hash of
+            // a value nobody knows, which also retires any earlier link
+            Token token = tokenRepository.findByUserId(user.getId())
+                    .orElseGet(() -> Token.builder().user(user).build());
+            token.setToken(PasswordResetMail.hash(UUID.randomUUID().toString()));
+            token.setCreatedAt(LocalDateTime.now());
+            token.setExpiresAt(LocalDateTime.now().plusMinutes(15));
             tokenRepository.save(token);
 
-            String resetLink = "http://localhost:8070/reset-password?token=" + token.getToken();
+            // Delivered asynchronously by MailDispatcher, committed together with the token, and
+            // dropped if it cannot be sent before the token expires
+            mailQueueService.enqueue(user.getEmail(), PasswordResetMail.SUBJECT, MailTemplate.PASSWORD_RESET,
+                    user.getId(), token.getExpiresAt());
+        }
+    }
 
-            System.out.println(resetLink);
+    public Optional<Token> findResetToken(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return Optional.empty();
         }
+        // Looked up by the hash, so the raw token is never compared with anything stored
+        return tokenRepository.findByToken(PasswordResetMail.hash(rawToken));
     }
 
-    private String generateActivationCode() {
-        return UUID.randomUUID().toString();
+    @Transactional(readOnly = true)
+    public void streamUserSummaries(OutputStream out) throws IOException {
+        try (Stream<UserSummary> users = userRepository.streamSummaries();
+             SequenceWriter writer = objectMapper.writerFor(UserSummary.class)
+                     .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                     .withRootValueSeparator("\n")
+                     .writeValues(out)) {
+            Iterator<UserSummary> it = users.iterator();
+            int written = 0;
+            while (it.hasNext()) {
+                writer.write(it.next());
+                if (++written % 500 == 0) {
+                    writer.flush();
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
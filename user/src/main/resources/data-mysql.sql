@@ -0,0 +1,30 @@
+-- Runs on every start after Hibernate's schema update (spring.sql.init, platform mysql). Every
+-- statement must be safe to repeat.
+
+-- Reset tokens used to be stored raw, several per user. Raw tokens can no longer be found by their hash,
+-- so they are dropped; of the hashed ones only the newest per user is kept. Then the unique keys that
+-- Hibernate could not add while duplicates existed are created
+DELETE FROM token WHERE CHAR_LENGTH(token) <> 64;
+DELETE older FROM token older JOIN token newer ON newer.user_id = older.user_id
+    AND (COALESCE(newer.created_at, '1970-01-01') > COALESCE(older.created_at, '1970-01-01')
+        OR (COALESCE(newer.created_at, '1970-01-01') = COALESCE(older.created_at, '1970-01-01') AND newer.id > older.id));
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'token' AND index_name = 'uk_token_token') = 0,
+              'ALTER TABLE token ADD CONSTRAINT uk_token_token UNIQUE (token)', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'token' AND index_name = 'uk_token_user') = 0,
+              'ALTER TABLE token ADD CONSTRAINT uk_token_user UNIQUE (user_id)', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+-- Queued mails used to carry their whole body, reset links (raw tokens) included. Reset mails are now
+-- rendered at send time from a template; the old ones are dropped (the user can ask for another link)
+-- and body may be empty
+ALTER TABLE outbound_email MODIFY body VARCHAR(4000) NULL;
+DELETE FROM outbound_email WHERE template IS NULL AND subject = 'Reset your UniHelp password';
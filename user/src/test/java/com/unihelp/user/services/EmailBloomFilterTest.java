@@ -0,0 +1,48 @@
+package com.unihelp.user.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void neverForgetsAnInsertedEmail() {
+        EmailBloomFilter filter = new EmailBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@unihelp.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i + "@unihelp.com")).isTrue();
+        }
+    }
+
+    @Test
+    void ignoresCase() {
+        EmailBloomFilter filter = new EmailBloomFilter(100, 0.01);
+        filter.put("Jane.Doe@UniHelp.com");
+        assertThat(filter.mightContain("jane.doe@unihelp.com")).isTrue();
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheConfiguredRate() {
+        EmailBloomFilter filter = new EmailBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@unihelp.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i + "@example.org")) {
+                falsePositives++;
+            }
+        }
+        // 1% expected; allow for the variance of the hash
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        EmailBloomFilter filter = new EmailBloomFilter(1, 0.01);
+        assertThat(filter.mightContain("nobody@unihelp.com")).isFalse();
+    }
+}
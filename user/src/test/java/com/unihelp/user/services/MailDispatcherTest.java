@@ -0,0 +1,223 @@
+package com.unihelp.user.services;
+
+import com.unihelp.user.entities.MailStatus;
+import com.unihelp.user.entities.MailTemplate;
+import com.unihelp.user.entities.OutboundEmail;
+import com.unihelp.user.repositories.OutboundEmailRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MailDispatcherTest {
+
+    private OutboundEmailRepository repository;
+    private PasswordResetMail passwordResetMail;
+    private LoggingMailSender mailSender;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(OutboundEmailRepository.class);
+        passwordResetMail = mock(PasswordResetMail.class);
+        mailSender = new LoggingMailSender();
+    }
+
+    @Test
+    void deliveredMessagesLeaveTheOutbox() {
+        List<OutboundEmail> due = List.of(email(1L, 0), email(2L, 0), email(3L, 0));
+        when(repository.findDue(eq(MailStatus.PENDING), any(), any())).thenReturn(due);
+
+        runOnce(dispatcher(mailSender));
+
+        assertThat(mailSender.getDelivered()).hasSize(3);
+        assertThat(mailSender.getDelivered())
+                .extracting(message -> ((SimpleMailMessage) message).getTo()[0])
+                .containsExactlyInAnyOrder("a1@unihelp.com", "a2@unihelp.com", "a3@unihelp.com");
+        verify(repository).deleteById(1L);
+        verify(repository).deleteById(2L);
+        verify(repository).deleteById(3L);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void failedMessagesAreRescheduledAndMarkedFailedAfterMaxAttempts() {
+        OutboundEmail fresh = email(1L, 0);
+        OutboundEmail lastTry = email(2L, 2);
+        when(repository.findDue(eq(MailStatus.PENDING), any(), any())).thenReturn(List.of(fresh, lastTry));
+        LoggingMailSender refusing = new LoggingMailSender() {
+            @Override
+            protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+                throw new MailSendException("connection refused");
+            }
+        };
+
+        LocalDateTime before = LocalDateTime.now();
+        runOnce(dispatcher(refusing));
+
+        verify(repository, never()).deleteById(any());
+        verify(repository, times(2)).save(any());
+        assertThat(fresh.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(fresh.getAttempts()).isEqualTo(1);
+        assertThat(fresh.getNextAttemptAt()).isAfter(before.plusSeconds(4));
+        assertThat(fresh.getLastError()).contains("connection refused");
+        assertThat(lastTry.getStatus()).isEqualTo(MailStatus.FAILED);
+        assertThat(lastTry.getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    void templatedMessagesAreRenderedWhenSent() {
+        OutboundEmail reset = resetEmail(1L, LocalDateTime.now().plusMinutes(15));
+        when(repository.findDue(eq(MailStatus.PENDING), any(), any())).thenReturn(List.of(reset));
+        when(passwordResetMail.render(7L)).thenReturn("Use this link: http://localhost/reset-password?token=abc");
+
+        runOnce(dispatcher(mailSender));
+
+        assertThat(mailSender.getDelivered())
+                .extracting(message -> ((SimpleMailMessage) message).getText())
+                .containsExactly("Use this link: http://localhost/reset-password?token=abc");
+        assertThat(reset.getBody()).isNull();
+        verify(repository).deleteById(1L);
+    }
+
+    @Test
+    void expiredOrUnrenderableMessagesAreDroppedUnsent() {
+        OutboundEmail expired = resetEmail(1L, LocalDateTime.now().minusMinutes(1));
+        OutboundEmail tokenUsed = resetEmail(2L, LocalDateTime.now().plusMinutes(5));
+        when(repository.findDue(eq(MailStatus.PENDING), any(), any())).thenReturn(List.of(expired, tokenUsed));
+        when(passwordResetMail.render(7L)).thenReturn(null);
+
+        runOnce(dispatcher(mailSender));
+
+        assertThat(mailSender.getDelivered()).isEmpty();
+        verify(passwordResetMail, times(1)).render(7L);
+        verify(repository).deleteById(1L);
+        verify(repository).deleteById(2L);
+    }
+
+    @Test
+    void retriesStopAtExpiryAndFailedMessagesKeepNoBody() {
+        OutboundEmail reset = resetEmail(1L, LocalDateTime.now().plusSeconds(2));
+        OutboundEmail plain = email(2L, 2);
+        when(repository.findDue(eq(MailStatus.PENDING), any(), any())).thenReturn(List.of(reset, plain));
+        when(passwordResetMail.render(7L)).thenReturn("link");
+        LoggingMailSender refusing = new LoggingMailSender() {
+            @Override
+            protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+                throw new MailSendException("connection refused");
+            }
+        };
+
+        runOnce(dispatcher(refusing));
+
+        // The first retry would come after 5s, past the reset's expiry
+        assertThat(reset.getStatus()).isEqualTo(MailStatus.FAILED);
+        assertThat(reset.getAttempts()).isEqualTo(1);
+        assertThat(plain.getStatus()).isEqualTo(MailStatus.FAILED);
+        assertThat(plain.getBody()).isNull();
+    }
+
+    @Test
+    void sweepRetriesRecentFailuresAndPurgesOldOnesInBatches() {
+        when(repository.deleteFailedBefore(any(), eq(2))).thenReturn(2, 2, 1);
+        MailDispatcher dispatcher = dispatcher(mailSender);
+        ReflectionTestUtils.setField(dispatcher, "purgeBatchSize", 2);
+
+        dispatcher.sweepFailed();
+        dispatcher.stop();
+
+        verify(repository).retryFailed(eq(MailStatus.FAILED), eq(MailStatus.PENDING), any(), any(), any());
+        verify(repository, times(3)).deleteFailedBefore(any(), eq(2));
+    }
+
+    private MailDispatcher dispatcher(JavaMailSender sender) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<JavaMailSender> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(sender);
+        MailDispatcher dispatcher = new MailDispatcher(repository, provider, new TransactionTemplate(new NoOpTransactionManager()),
+                passwordResetMail);
+        ReflectionTestUtils.setField(dispatcher, "senderThreads", 2);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 10);
+        ReflectionTestUtils.setField(dispatcher, "messagesPerConnection", 2);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "backoffMs", 5000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 900000L);
+        ReflectionTestUtils.setField(dispatcher, "leaseMs", 120000L);
+        ReflectionTestUtils.setField(dispatcher, "failedRetryAfter", Duration.ofHours(1));
+        ReflectionTestUtils.setField(dispatcher, "failedRetention", Duration.ofDays(3));
+        ReflectionTestUtils.setField(dispatcher, "purgeBatchSize", 1000);
+        ReflectionTestUtils.setField(dispatcher, "from", "no-reply@unihelp.com");
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    // stop() waits for the sender threads, so every claimed group has been handled afterwards
+    private static void runOnce(MailDispatcher dispatcher) {
+        dispatcher.dispatch();
+        dispatcher.stop();
+    }
+
+    private static OutboundEmail email(Long id, int attempts) {
+        return OutboundEmail.builder()
+                .id(id)
+                .recipient("a" + id + "@unihelp.com")
+                .subject("Reset your UniHelp password")
+                .body("Hello")
+                .status(MailStatus.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static OutboundEmail resetEmail(Long id, LocalDateTime expiresAt) {
+        return OutboundEmail.builder()
+                .id(id)
+                .recipient("a" + id + "@unihelp.com")
+                .subject(PasswordResetMail.SUBJECT)
+                .template(MailTemplate.PASSWORD_RESET)
+                .reference(7L)
+                .expiresAt(expiresAt)
+                .status(MailStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
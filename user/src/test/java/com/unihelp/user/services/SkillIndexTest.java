@@ -0,0 +1,133 @@
+package com.unihelp.user.services;
+
+import com.unihelp.user.entities.User;
+import com.unihelp.user.entities.UserRole;
+import com.unihelp.user.repositories.UserRepository;
+import com.unihelp.user.repositories.UserRepository.MentorSkills;
+import com.unihelp.user.services.SkillIndex.MatchMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SkillIndexTest {
+
+    private UserRepository userRepository;
+    private SkillIndex index;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        index = new SkillIndex(userRepository);
+        index.userChanged(mentor(1L, "Java, Spring Boot"));
+        index.userChanged(mentor(2L, "spring; docker"));
+        index.userChanged(mentor(3L, "Java"));
+        index.userChanged(mentor(4L, "Spring Boot, Java, Docker"));
+    }
+
+    @Test
+    void andKeepsOnlyMentorsWithEverySkillRankedByWeight() {
+        // 1 and 4 have both phrases (2 + 2) and tie, so by id; 2 and 3 miss one of them
+        Page<Long> page = index.search("java, spring boot", MatchMode.AND, PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).containsExactly(1L, 4L);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void orMergesTheListsAndPhraseHitsOutrankWordHits() {
+        Page<Long> page = index.search("spring boot, docker", MatchMode.OR, PageRequest.of(0, 10));
+
+        // 4: spring boot (2) + docker (2); 1: spring boot (2); 2: docker (2); 3: nothing
+        assertThat(page.getContent()).containsExactly(4L, 1L, 2L);
+    }
+
+    @Test
+    void singleWordsMatchInsideLongerSkills() {
+        // "spring" is a whole skill of 2 and a word of the other two
+        assertThat(index.search("Spring", MatchMode.OR, PageRequest.of(0, 10)).getContent())
+                .containsExactly(2L, 1L, 4L);
+    }
+
+    @Test
+    void pagesAreCutFromTheRankedList() {
+        Page<Long> page = index.search("java", MatchMode.OR, PageRequest.of(1, 2));
+
+        assertThat(page.getContent()).containsExactly(4L);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void changedSkillsReplaceTheOldTermsAndBannedMentorsDropOut() {
+        index.userChanged(mentor(3L, "Python"));
+        User banned = mentor(1L, "Java, Spring Boot");
+        banned.setBanned(true);
+        index.userChanged(banned);
+
+        assertThat(index.search("java", MatchMode.OR, PageRequest.of(0, 10)).getContent()).containsExactly(4L);
+        assertThat(index.search("python", MatchMode.OR, PageRequest.of(0, 10)).getContent()).containsExactly(3L);
+    }
+
+    @Test
+    void rebuildReplacesTheIndex() {
+        when(userRepository.streamMentorSkills()).thenReturn(Stream.of(mentorSkills(5L, "Kotlin")));
+
+        index.rebuild();
+
+        assertThat(index.search("java", MatchMode.OR, PageRequest.of(0, 10))).isEmpty();
+        assertThat(index.search("kotlin", MatchMode.AND, PageRequest.of(0, 10)).getContent()).containsExactly(5L);
+    }
+
+    @Test
+    void changesReportedWhileTheTableIsReadSurviveTheRebuild() {
+        when(userRepository.streamMentorSkills()).thenAnswer(invocation -> {
+            // Not in the rows read; reported before the swap, and searchable meanwhile
+            index.userChanged(mentor(6L, "Scala"));
+            index.userRemoved(5L);
+            assertThat(index.search("scala", MatchMode.OR, PageRequest.of(0, 10)).getContent()).containsExactly(6L);
+            return Stream.of(mentorSkills(5L, "Kotlin"), mentorSkills(3L, "Java"));
+        });
+
+        index.rebuild();
+
+        assertThat(index.search("scala", MatchMode.OR, PageRequest.of(0, 10)).getContent()).containsExactly(6L);
+        assertThat(index.search("kotlin", MatchMode.OR, PageRequest.of(0, 10))).isEmpty();
+        assertThat(index.search("java", MatchMode.OR, PageRequest.of(0, 10)).getContent()).containsExactly(3L);
+    }
+
+    @Test
+    void failedReadKeepsTheCurrentIndex() {
+        when(userRepository.streamMentorSkills()).thenThrow(new IllegalStateException("database down"));
+
+        assertThatThrownBy(() -> index.rebuild()).isInstanceOf(IllegalStateException.class);
+        index.userChanged(mentor(6L, "Scala"));
+
+        assertThat(index.search("java", MatchMode.OR, PageRequest.of(0, 10)).getContent()).containsExactly(1L, 3L, 4L);
+        assertThat(index.search("scala", MatchMode.OR, PageRequest.of(0, 10)).getContent()).containsExactly(6L);
+    }
+
+    private static User mentor(Long id, String skills) {
+        return User.builder().id(id).role(UserRole.MENTOR).skills(skills).build();
+    }
+
+    private static MentorSkills mentorSkills(Long id, String skills) {
+        return new MentorSkills() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getSkills() {
+                return skills;
+            }
+        };
+    }
+}
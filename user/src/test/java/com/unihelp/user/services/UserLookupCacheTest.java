@@ -0,0 +1,89 @@
+package com.unihelp.user.services;
+
+import com.unihelp.user.entities.User;
+import com.unihelp.user.entities.UserRole;
+import com.unihelp.user.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserLookupCacheTest {
+
+    private UserRepository userRepository;
+    private UserChangeBroadcaster broadcaster;
+    private UserLookupCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        broadcaster = mock(UserChangeBroadcaster.class);
+        cache = new UserLookupCache(userRepository, broadcaster, 30, 100, 0.01);
+        when(userRepository.findById(1L)).thenAnswer(invocation -> Optional.of(user(false)));
+        when(userRepository.findByEmail("jane@unihelp.com")).thenAnswer(invocation -> Optional.of(user(false)));
+    }
+
+    @Test
+    void everyLookupReturnsItsOwnCopy() {
+        User first = cache.findById(1L).orElseThrow();
+        first.setBanned(true);
+        first.setFirstName("Changed");
+
+        User second = cache.findById(1L).orElseThrow();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.isBanned()).isFalse();
+        assertThat(second.getFirstName()).isEqualTo("Jane");
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void lookupsByIdAndEmailShareTheEntry() {
+        cache.findByEmail("jane@unihelp.com");
+        cache.findById(1L);
+
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void evictionReloadsAndIsBroadcast() {
+        cache.findById(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(true)));
+
+        cache.evict(1L, "jane@unihelp.com");
+
+        assertThat(cache.findById(1L).orElseThrow().isBanned()).isTrue();
+        verify(broadcaster).changed(1L, "jane@unihelp.com");
+    }
+
+    @Test
+    void peerEvictionsAreNotBroadcastAgain() {
+        cache.findById(1L);
+
+        cache.evictLocally(1L, "jane@unihelp.com");
+        cache.findById(1L);
+
+        verify(userRepository, times(2)).findById(1L);
+        verify(broadcaster, never()).changed(any(), any());
+    }
+
+    private static User user(boolean banned) {
+        return User.builder()
+                .id(1L)
+                .firstName("Jane")
+                .lastName("Doe")
+                .email("jane@unihelp.com")
+                .password("hash")
+                .role(UserRole.MENTOR)
+                .isBanned(banned)
+                .build();
+    }
+}